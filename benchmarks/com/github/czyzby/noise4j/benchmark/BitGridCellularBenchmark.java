@@ -0,0 +1,71 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.czyzby.noise4j.map.BitGrid;
+import com.github.czyzby.noise4j.map.concurrent.ForkJoinGridExecutor;
+import com.github.czyzby.noise4j.map.generator.cellular.CellularAutomataGenerator;
+import com.github.czyzby.noise4j.map.generator.util.Generators;
+
+/** Measures {@link CellularAutomataGenerator#generate(BitGrid)} with and without bit-parallel neighbor counting,
+ * sequentially and with row bands processed in parallel. Can be compared with
+ * {@link CellularAutomataGeneratorBenchmark}, which processes the same cells stored in a regular grid. Each invocation
+ * restores the same initial cells and runs the default amount of iterations.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitGridCellularBenchmark {
+    @Param({ "64", "256", "1024", "4096" })
+    public int size;
+    @Param({ "1", "2", "3" })
+    public int radius;
+    @Param({ "true", "false" })
+    public boolean bitParallel;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+    private BitGrid initialCells;
+    private BitGrid cells;
+    private CellularAutomataGenerator generator;
+
+    @Setup
+    public void setUp() {
+        Generators.setRandom(new Random(1L));
+        generator = new CellularAutomataGenerator();
+        generator.setRadius(radius);
+        generator.setInitiate(false);
+        generator.setBitParallel(bitParallel);
+        initialCells = new BitGrid(size);
+        CellularAutomataGenerator.initiate(initialCells, generator.getAliveChance());
+        cells = new BitGrid(size);
+        if (parallel) {
+            cells.setExecutor(new ForkJoinGridExecutor());
+        }
+    }
+
+    @Benchmark
+    public BitGrid generate(final CellCounter counter) {
+        cells.set(initialCells);
+        generator.generate(cells);
+        counter.count(size);
+        return cells;
+    }
+}
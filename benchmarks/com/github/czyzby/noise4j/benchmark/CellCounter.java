@@ -0,0 +1,29 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Secondary JMH counter. Benchmarks add the amount of processed cells after each invocation, which makes JMH report
+ * processed cells per second next to the usual operations per second.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class CellCounter {
+    /** Amount of processed cells. Reported as a throughput rate. */
+    public long cells;
+
+    /** Clears the counter before each iteration. */
+    @Setup(Level.Iteration)
+    public void reset() {
+        cells = 0L;
+    }
+
+    /** @param size amount of columns and rows of the processed grid. */
+    public void count(final int size) {
+        cells += (long) size * size;
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.concurrent.ForkJoinGridExecutor;
+import com.github.czyzby.noise4j.map.generator.cellular.CellularAutomataGenerator;
+import com.github.czyzby.noise4j.map.generator.util.Generators;
+
+/** Measures {@link CellularAutomataGenerator#generate(Grid)} with different neighbor radiuses, with and without double
+ * buffering and summed-area tables, sequentially and in parallel. Each invocation restores the same initial cells (a single array copy) and runs the default amount of
+ * iterations.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellularAutomataGeneratorBenchmark {
+    @Param({ "64", "256", "1024", "4096" })
+    public int size;
+    @Param({ "1", "2", "3", "4" })
+    public int radius;
+    @Param({ "true", "false" })
+    public boolean doubleBuffering;
+    @Param({ "true", "false" })
+    public boolean summedArea;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+    private Grid initialGrid;
+    private Grid grid;
+    private CellularAutomataGenerator generator;
+
+    @Setup
+    public void setUp() {
+        Generators.setRandom(new Random(1L));
+        generator = new CellularAutomataGenerator();
+        generator.setRadius(radius);
+        generator.setInitiate(false);
+        generator.setDoubleBuffering(doubleBuffering);
+        // Summed-area table is used for any radius or never:
+        generator.setSummedAreaRadius(summedArea ? 1 : Integer.MAX_VALUE);
+        initialGrid = new Grid(size);
+        CellularAutomataGenerator.initiate(initialGrid, generator);
+        grid = new Grid(size);
+        if (parallel) {
+            grid.setExecutor(new ForkJoinGridExecutor());
+        }
+    }
+
+    @Benchmark
+    public Grid generate(final CellCounter counter) {
+        grid.set(initialGrid);
+        generator.generate(grid);
+        counter.count(size);
+        return grid;
+    }
+}
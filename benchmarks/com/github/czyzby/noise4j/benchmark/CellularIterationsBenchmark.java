@@ -0,0 +1,80 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.czyzby.noise4j.map.BitGrid;
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.generator.cellular.CellularAutomataGenerator;
+import com.github.czyzby.noise4j.map.generator.util.Generators;
+
+/** Measures {@link CellularAutomataGenerator} with high amounts of iterations, where most cells stop changing after the
+ * first few iterations. Compares full passes with change tracking and early exit after convergence, on both regular
+ * and bit grids.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellularIterationsBenchmark {
+    @Param({ "1024", "4096" })
+    public int size;
+    @Param({ "5", "50" })
+    public int iterationsAmount;
+    @Param({ "false", "true" })
+    public boolean trackingChanges;
+    @Param({ "-1", "0.001" })
+    public float convergenceThreshold;
+
+    private Grid initialGrid;
+    private Grid grid;
+    private BitGrid initialCells;
+    private BitGrid cells;
+    private CellularAutomataGenerator generator;
+
+    @Setup
+    public void setUp() {
+        Generators.setRandom(new Random(1L));
+        generator = new CellularAutomataGenerator();
+        generator.setInitiate(false);
+        generator.setIterationsAmount(iterationsAmount);
+        generator.setTrackingChanges(trackingChanges);
+        generator.setConvergenceThreshold(convergenceThreshold);
+        initialGrid = new Grid(size);
+        CellularAutomataGenerator.initiate(initialGrid, generator);
+        grid = new Grid(size);
+        initialCells = BitGrid.threshold(initialGrid, generator.getMarker());
+        cells = new BitGrid(size);
+    }
+
+    @Benchmark
+    public Grid grid(final CellCounter counter) {
+        grid.set(initialGrid);
+        generator.generate(grid);
+        counter.count(size);
+        return grid;
+    }
+
+    @Benchmark
+    public BitGrid bitGrid(final CellCounter counter) {
+        cells.set(initialCells);
+        generator.generate(cells);
+        counter.count(size);
+        return cells;
+    }
+}
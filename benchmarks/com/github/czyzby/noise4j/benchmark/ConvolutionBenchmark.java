@@ -0,0 +1,75 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.filter.Convolution;
+import com.github.czyzby.noise4j.map.filter.Kernel;
+
+/** Measures {@link Convolution} with different kernel radiuses: box blur (running sums), Gaussian blur (separable
+ * passes) and a generic, non-separable kernel with the same size. Each invocation processes the same grid, so its
+ * values get smoother over time - which does not affect the cost of the operations.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvolutionBenchmark {
+    @Param({ "256", "1024", "4096" })
+    public int size;
+    @Param({ "1", "4", "16" })
+    public int radius;
+
+    private Grid grid;
+    private Convolution convolution;
+    private Kernel gaussian;
+    private Kernel generic;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(1L);
+        grid = new Grid(size);
+        final float[] array = grid.getArray();
+        for (int index = 0; index < array.length; index++) {
+            array[index] = random.nextFloat();
+        }
+        convolution = new Convolution();
+        gaussian = Kernel.gaussian(radius, radius / 2f);
+        // Same weights as the Gaussian kernel, but without the separable representation:
+        generic = new Kernel(gaussian.getWidth(), gaussian.getHeight(), gaussian.getWeights());
+    }
+
+    @Benchmark
+    public Grid boxBlur(final CellCounter counter) {
+        counter.count(size);
+        return convolution.boxBlur(grid, radius);
+    }
+
+    @Benchmark
+    public Grid gaussianBlur(final CellCounter counter) {
+        counter.count(size);
+        return convolution.apply(grid, gaussian);
+    }
+
+    @Benchmark
+    public Grid genericKernel(final CellCounter counter) {
+        counter.count(size);
+        return convolution.apply(grid, generic);
+    }
+}
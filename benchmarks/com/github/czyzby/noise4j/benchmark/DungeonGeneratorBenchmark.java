@@ -0,0 +1,63 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.generator.room.dungeon.DungeonGenerator;
+import com.github.czyzby.noise4j.map.generator.util.Generators;
+
+/** Measures {@link DungeonGenerator#generate(Grid)} and generation with a reused {@link DungeonGenerator.Context}, which
+ * keeps its temporary collections between generations. Room generation attempts scale linearly with the map size - the
+ * default setting scales quadratically, which would make the biggest maps dominated by room overlap checks.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DungeonGeneratorBenchmark {
+    @Param({ "65", "257", "1025", "4097" }) // Dungeons prefer odd sizes.
+    public int size;
+
+    private Grid grid;
+    private DungeonGenerator generator;
+    private DungeonGenerator.Context context;
+
+    @Setup
+    public void setUp() {
+        Generators.setRandom(new Random(1L));
+        grid = new Grid(size);
+        generator = new DungeonGenerator();
+        generator.setRoomGenerationAttempts(size);
+        context = new DungeonGenerator.Context();
+    }
+
+    @Benchmark
+    public Grid generate(final CellCounter counter) {
+        generator.generate(grid);
+        counter.count(size);
+        return grid;
+    }
+
+    @Benchmark
+    public Grid generateWithContext(final CellCounter counter) {
+        generator.generate(grid, context);
+        counter.count(size);
+        return grid;
+    }
+}
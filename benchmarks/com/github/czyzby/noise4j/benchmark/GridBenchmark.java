@@ -0,0 +1,101 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.GridPipeline;
+import com.github.czyzby.noise4j.map.GridStatistics;
+import com.github.czyzby.noise4j.map.concurrent.ForkJoinGridExecutor;
+
+/** Measures {@link Grid} whole-array operations, both sequential and split across a fork-join pool.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+    @Param({ "64", "256", "1024", "4096" })
+    public int size;
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private Grid grid;
+    private Grid mask;
+    private GridPipeline pipeline;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(1L);
+        grid = new Grid(size);
+        final float[] array = grid.getArray();
+        for (int index = 0; index < array.length; index++) {
+            // Half of the cells match the replaced value, the rest is spread across [0, 1).
+            array[index] = random.nextBoolean() ? 1f : random.nextFloat();
+        }
+        mask = new Grid(1f, size, size); // Multiplying by ones keeps values stable across invocations.
+        pipeline = new GridPipeline().multiply(mask).add(0.2f).clamp(0f, 1f).subtract(0.2f);
+        if (parallel) {
+            grid.setExecutor(new ForkJoinGridExecutor());
+        }
+    }
+
+    @Benchmark
+    public Grid add(final CellCounter counter) {
+        counter.count(size);
+        return grid.add(0.5f);
+    }
+
+    @Benchmark
+    public Grid multiply(final CellCounter counter) {
+        counter.count(size);
+        grid.multiply(mask);
+        return grid;
+    }
+
+    @Benchmark
+    public Grid clamp(final CellCounter counter) {
+        counter.count(size);
+        return grid.clamp(0.25f, 0.75f);
+    }
+
+    @Benchmark
+    public Grid replace(final CellCounter counter) {
+        counter.count(size);
+        return grid.replace(1f, 1f);
+    }
+
+    @Benchmark
+    public Grid chain(final CellCounter counter) {
+        counter.count(size);
+        grid.multiply(mask);
+        return grid.add(0.2f).clamp(0f, 1f).subtract(0.2f);
+    }
+
+    @Benchmark
+    public Grid fusedChain(final CellCounter counter) {
+        counter.count(size);
+        return pipeline.apply(grid);
+    }
+
+    @Benchmark
+    public GridStatistics statistics(final CellCounter counter) {
+        counter.count(size);
+        return GridStatistics.compute(grid, GridStatistics.DEFAULT_BINS_AMOUNT, 0f, 1f);
+    }
+}
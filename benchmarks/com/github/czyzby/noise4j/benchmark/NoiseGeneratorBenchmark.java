@@ -0,0 +1,62 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.generator.noise.NoiseGenerator;
+import com.github.czyzby.noise4j.map.generator.noise.NoiseGenerator.DefaultNoiseAlgorithmProvider;
+import com.github.czyzby.noise4j.map.generator.util.LookupCalculator;
+
+/** Measures {@link NoiseGenerator#generate(Grid)} with the default {@link Math}-based calculator and with a
+ * {@link LookupCalculator}.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseGeneratorBenchmark {
+    @Param({ "64", "256", "1024", "4096" })
+    public int size;
+    @Param({ "4", "32" })
+    public int radius;
+    @Param({ "false", "true" })
+    public boolean lookup;
+
+    private Grid grid;
+    private NoiseGenerator generator;
+
+    @Setup
+    public void setUp() {
+        grid = new Grid(size);
+        generator = new NoiseGenerator();
+        generator.setRadius(radius);
+        generator.setModifier(1f);
+        generator.setSeed(65537); // Fixed seed: every invocation computes the same noise.
+        generator.setMode(NoiseGenerator.GenerationMode.REPLACE);
+        if (lookup) {
+            generator.setAlgorithmProvider(new DefaultNoiseAlgorithmProvider(new LookupCalculator()));
+        }
+    }
+
+    @Benchmark
+    public Grid generate(final CellCounter counter) {
+        generator.generate(grid);
+        counter.count(size);
+        return grid;
+    }
+}
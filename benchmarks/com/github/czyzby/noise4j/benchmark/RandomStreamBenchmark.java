@@ -0,0 +1,65 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.concurrent.ForkJoinGridExecutor;
+import com.github.czyzby.noise4j.map.generator.cellular.CellularAutomataGenerator;
+import com.github.czyzby.noise4j.map.generator.util.Generators;
+import com.github.czyzby.noise4j.map.generator.util.RandomStream;
+
+/** Measures initiation of cellular automata cells - a single random value per cell - with the shared
+ * {@link Generators#getRandom()} instance and with a seeded {@link RandomStream} split into rows. Run with multiple JMH
+ * threads (for example, {@code -t 4}) to see the contention on the shared instance.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomStreamBenchmark {
+    @Param({ "256", "1024" })
+    public int size;
+    @Param({ "false", "true" })
+    public boolean seeded;
+    @Param({ "false", "true" })
+    public boolean parallel;
+    private Grid grid;
+    private RandomStream random;
+
+    @Setup
+    public void setUp() {
+        Generators.setRandom(new Random(1L));
+        random = new RandomStream(1L);
+        grid = new Grid(size);
+        if (parallel) {
+            grid.setExecutor(new ForkJoinGridExecutor());
+        }
+    }
+
+    @Benchmark
+    public Grid initiate(final CellCounter counter) {
+        if (seeded) {
+            CellularAutomataGenerator.initiate(grid, 0.5f, 1f, random.split());
+        } else {
+            CellularAutomataGenerator.initiate(grid, 0.5f, 1f);
+        }
+        counter.count(size);
+        return grid;
+    }
+}
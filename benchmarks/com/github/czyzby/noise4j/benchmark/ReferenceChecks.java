@@ -0,0 +1,1334 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.czyzby.noise4j.array.Int2dArray;
+import com.github.czyzby.noise4j.io.GridFiles;
+import com.github.czyzby.noise4j.map.BitGrid;
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.Grid.CellConsumer;
+import com.github.czyzby.noise4j.map.GridExecutor;
+import com.github.czyzby.noise4j.map.GridPipeline;
+import com.github.czyzby.noise4j.map.GridPipeline.CellFunction;
+import com.github.czyzby.noise4j.map.GridStatistics;
+import com.github.czyzby.noise4j.map.GridView;
+import com.github.czyzby.noise4j.map.buffer.BufferGrid;
+import com.github.czyzby.noise4j.map.chunk.ChunkedGrid;
+import com.github.czyzby.noise4j.map.concurrent.ForkJoinGridExecutor;
+import com.github.czyzby.noise4j.map.concurrent.StripedGridExecutor;
+import com.github.czyzby.noise4j.map.filter.Convolution;
+import com.github.czyzby.noise4j.map.filter.Convolution.EdgeMode;
+import com.github.czyzby.noise4j.map.filter.Kernel;
+import com.github.czyzby.noise4j.map.filter.Resampler;
+import com.github.czyzby.noise4j.map.filter.Resampler.Interpolation;
+import com.github.czyzby.noise4j.map.generator.cellular.CellularAutomataGenerator;
+import com.github.czyzby.noise4j.map.generator.noise.NoiseGenerator;
+import com.github.czyzby.noise4j.map.generator.room.dungeon.DungeonGenerator;
+import com.github.czyzby.noise4j.map.generator.util.RandomStream;
+import com.github.czyzby.noise4j.map.quantized.ByteGrid;
+import com.github.czyzby.noise4j.map.quantized.QuantizedGrid;
+import com.github.czyzby.noise4j.map.quantized.ShortGrid;
+
+/** Compares optimized code paths with straightforward reference implementations written from scratch in this class:
+ * <ul>
+ * <li>{@link Convolution} - separable, running-sum (box) and generic two-dimensional kernels - with a brute-force
+ * convolution, for every {@link EdgeMode}.
+ * <li>{@link Resampler} with a direct evaluation of each {@link Interpolation}'s kernel function.
+ * <li>{@link CellularAutomataGenerator} - regular and double-buffered grids, bit-parallel and per-cell bit grids,
+ * summed-area tables and tracked changes - with a naive automaton operating on a boolean array.
+ * <li>{@link BufferGrid} - cell access, long indexes, bulk operations and copies of grids divided into segments of a
+ * few rows - with a float array.
+ * <li>{@link ChunkedGrid} - cell changes, fills, windows and compacted shared chunks at any coordinates - with a
+ * float array covering the modified region.
+ * <li>{@link GridPipeline} - chained operations applied in a single pass, including operand grids of every type and
+ * the processed grid itself - with the same operations invoked one by one on a {@link Grid}.
+ * <li>{@link QuantizedGrid} - {@link ByteGrid} and {@link ShortGrid} levels, range limits, NaN and infinite values,
+ * bulk operations and copies - with the nearest level computed in double precision.
+ * <li>{@link GridStatistics} - merged row statistics, histograms, percentiles, normalization and thresholds of
+ * grids with NaN values - with two-pass computations on a sorted array.
+ * <li>{@link RandomStream} - values, split streams in any order and seeded cellular automata and dungeon generation
+ * on parallel grids - with a SplitMix64 implementation.
+ * <li>{@link NoiseGenerator} - noise generated with cached region corners and edges on regular, view, buffer and
+ * chunked grids - with the same noise generated cell by cell.
+ * <li>{@link GridFiles} - saved grids and int arrays are read and mapped in every {@link MapMode}, including changes
+ * of mapped values - with the values that were written.
+ * </ul>
+ * Each check is repeated on a sequential grid, on grids with {@link ForkJoinGridExecutor} and
+ * {@link StripedGridExecutor} splitting them into many small row bands, and - where supported - on a
+ * {@link Grid#view(int, int, int, int) view} of a bigger grid. Run with <code>gradle referenceChecks</code>: prints
+ * each mismatch and exits with a non-zero status if any check fails. Unlike the benchmarks, this is not a JMH class.
+ *
+ * @author MJ */
+public class ReferenceChecks {
+    /** Maximum accepted difference between float results. Optimized paths sum the values in a different order. */
+    private static final float TOLERANCE = 1E-4f;
+    /** SplitMix64 state increment used by {@link RandomStream}. */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    /** Constant used by {@link RandomStream} to derive seeds of split streams. */
+    private static final long SPLIT_GAMMA = 0xD1B54A32D192ED03L;
+    private static final int[][] SIZES = { { 37, 29 }, { 64, 64 }, { 129, 70 }, { 1, 1 }, { 3, 41 }, { 200, 2 } };
+
+    private final GridExecutor[] executors;
+    private final Random random = new Random(7L);
+    private int checks;
+    private int failures;
+
+    /** @param executors will be used by parallel variants of the checks. */
+    public ReferenceChecks(final GridExecutor... executors) {
+        this.executors = executors;
+    }
+
+    public static void main(final String... args) throws IOException {
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        final ExecutorService threads = Executors.newFixedThreadPool(3);
+        final ReferenceChecks referenceChecks = new ReferenceChecks(new ForkJoinGridExecutor(forkJoinPool, 64),
+                new StripedGridExecutor(threads, 4, 64));
+        try {
+            referenceChecks.checkConvolution();
+            referenceChecks.checkResampler();
+            referenceChecks.checkCellularAutomata();
+            referenceChecks.checkBufferGrid();
+            referenceChecks.checkChunkedGrid();
+            referenceChecks.checkGridPipeline();
+            referenceChecks.checkQuantizedGrid();
+            referenceChecks.checkGridStatistics();
+            referenceChecks.checkRandomStream();
+            referenceChecks.checkNoiseGenerator();
+            referenceChecks.checkGridFiles();
+        } finally {
+            forkJoinPool.shutdown();
+            threads.shutdown();
+        }
+        System.out.println(referenceChecks.checks + " checks, " + referenceChecks.failures + " failed.");
+        if (referenceChecks.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** @return amount of performed checks. */
+    public int getChecks() {
+        return checks;
+    }
+
+    /** @return amount of checks that did not match the reference. */
+    public int getFailures() {
+        return failures;
+    }
+
+    /** Checks all convolution paths against {@link #convolve(float[][], Kernel, EdgeMode, float)}. */
+    public void checkConvolution() {
+        final Kernel[] kernels = { Kernel.box(1), Kernel.box(9), Kernel.box(40), Kernel.gaussian(1.5f),
+                Kernel.gaussian(6, 2f), new Kernel(new float[] { 1f, 2f, 1f }, new float[] { -1f, 0f, 1f }),
+                new Kernel(3, 5, 0.1f, 0.2f, -0.1f, 0.3f, 0f, 0.05f, 1f, 0.2f, 0.1f, -0.3f, 0.1f, 0.1f, 0.2f, 0.2f,
+                        0.2f) };
+        final float edgeValue = 0.3f;
+        for (final int[] size : SIZES) {
+            for (final Kernel kernel : kernels) {
+                for (final EdgeMode edgeMode : EdgeMode.values()) {
+                    final float[][] cells = randomCells(size[0], size[1]);
+                    final float[][] expected = convolve(cells, kernel, edgeMode, edgeValue);
+                    final Convolution convolution = new Convolution(edgeMode);
+                    convolution.setEdgeValue(edgeValue);
+                    final String name = "Convolution " + edgeMode + " " + kernel.getWidth() + "x" + kernel.getHeight()
+                            + (kernel.isSeparable() ? " separable" : "") + " on " + size[0] + "x" + size[1];
+                    for (final Grid grid : createGrids(cells)) {
+                        assertEquals(name + describe(grid), expected, convolution.apply(grid, kernel));
+                    }
+                }
+            }
+        }
+    }
+
+    /** Checks all interpolations against {@link #resample(float[][], Interpolation, int, int)}. */
+    public void checkResampler() {
+        final int[][] targetSizes = { { 101, 57 }, { 9, 5 }, { 37, 29 }, { 1, 1 }, { 64, 3 } };
+        for (final int[] size : SIZES) {
+            for (final int[] targetSize : targetSizes) {
+                for (final Interpolation interpolation : Interpolation.values()) {
+                    final float[][] cells = randomCells(size[0], size[1]);
+                    final float[][] expected = resample(cells, interpolation, targetSize[0], targetSize[1]);
+                    final Resampler resampler = new Resampler(interpolation);
+                    final String name = "Resampler " + interpolation + " " + size[0] + "x" + size[1] + " to "
+                            + targetSize[0] + "x" + targetSize[1];
+                    for (final Grid grid : createGrids(cells)) {
+                        assertEquals(name + describe(grid), expected,
+                                resampler.resize(grid, targetSize[0], targetSize[1]));
+                    }
+                }
+            }
+        }
+    }
+
+    /** Checks all cellular automata paths against {@link #iterate(boolean[][], int, int, int)}. */
+    public void checkCellularAutomata() {
+        final int iterations = 4;
+        for (final int[] size : SIZES) {
+            for (int radius = 1; radius <= 4; radius++) {
+                final int neighbors = (2 * radius + 1) * (2 * radius + 1) - 1;
+                // Radius 1 checks every meaningful pair of limits; bigger radiuses use the majority rule.
+                final int maxLimit = radius == 1 ? neighbors + 1 : 0;
+                for (int birthLimit = 0; birthLimit <= maxLimit; birthLimit++) {
+                    for (int deathLimit = 0; deathLimit <= maxLimit; deathLimit++) {
+                        final int birth = radius == 1 ? birthLimit : neighbors / 2;
+                        final int death = radius == 1 ? deathLimit : neighbors / 2 - 1;
+                        checkCellularAutomata(size[0], size[1], radius, birth, death, iterations);
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkCellularAutomata(final int width, final int height, final int radius, final int birthLimit,
+            final int deathLimit, final int iterations) {
+        final boolean[][] cells = new boolean[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                cells[y][x] = random.nextBoolean();
+            }
+        }
+        boolean[][] expected = cells;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            expected = iterate(expected, radius, birthLimit, deathLimit);
+        }
+        final String name = "Cellular automata r" + radius + " birth " + birthLimit + " death " + deathLimit + " on "
+                + width + "x" + height;
+        final CellularAutomataGenerator generator = new CellularAutomataGenerator();
+        generator.setInitiate(false);
+        generator.setIterationsAmount(iterations);
+        generator.setRadius(radius);
+        generator.setBirthLimit(birthLimit);
+        generator.setDeathLimit(deathLimit);
+        for (int settings = 0; settings < 8; settings++) {
+            final boolean doubleBuffering = (settings & 1) != 0;
+            final boolean summedAreaTable = (settings & 2) != 0;
+            final boolean trackingChanges = (settings & 4) != 0;
+            generator.setDoubleBuffering(doubleBuffering);
+            generator.setSummedAreaRadius(summedAreaTable ? 1 : Integer.MAX_VALUE);
+            generator.setTrackingChanges(trackingChanges);
+            final String settingsName = name + (doubleBuffering ? " double-buffered" : "")
+                    + (summedAreaTable ? " summed-area" : "") + (trackingChanges ? " tracking" : "");
+            for (final Grid grid : createGrids(toFloats(cells))) {
+                generator.generate(grid);
+                assertEquals(settingsName + describe(grid), expected, grid);
+            }
+            for (int bitParallel = 0; bitParallel < 2; bitParallel++) {
+                generator.setBitParallel(bitParallel == 1);
+                for (final BitGrid bits : createBitGrids(cells)) {
+                    generator.generate(bits);
+                    assertEquals(settingsName + (bitParallel == 1 ? " bit-parallel" : " bits") + describe(bits),
+                            expected, bits.toGrid());
+                }
+            }
+        }
+    }
+
+    /** Checks {@link BufferGrid} operations on grids with segments storing 1, 2, 4 and 32 rows - so that most
+     * operations cross segment boundaries - and on a grid with the default segment size against the same operations on
+     * a float array. */
+    public void checkBufferGrid() {
+        final int[] rowShifts = { 0, 1, 2, 5, -1 };
+        for (final int[] size : SIZES) {
+            final int width = size[0];
+            final int height = size[1];
+            for (final int rowShift : rowShifts) {
+                for (int executorIndex = 0; executorIndex <= executors.length; executorIndex++) {
+                    final BufferGrid grid = rowShift < 0 ? BufferGrid.allocate(width, height)
+                            : new SegmentedBufferGrid(width, height, rowShift);
+                    grid.setExecutor(executorIndex == 0 ? null : executors[executorIndex - 1]);
+                    final String name = "BufferGrid " + width + "x" + height + " with " + grid.getSegmentRows()
+                            + " rows per segment" + describe(grid);
+                    checkBufferGrid(name, grid);
+                }
+            }
+        }
+    }
+
+    private void checkBufferGrid(final String name, final BufferGrid grid) {
+        final int width = grid.getWidth();
+        final int height = grid.getHeight();
+        final float[][] expected = randomCells(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                grid.set(x, y, expected[y][x]);
+            }
+        }
+        assertEquals(name + " set", expected, grid);
+        // Long indexes:
+        boolean matches = true;
+        for (long index = 0L; index < grid.getCellsAmount(); index++) {
+            final int x = (int) (index % width);
+            final int y = (int) (index / width);
+            matches &= grid.get(index) == expected[y][x];
+            expected[y][x] = grid.set(index, index * 0.25f);
+        }
+        assertTrue(name + " long indexes", matches);
+        assertEquals(name + " set with long indexes", expected, grid);
+        // Bulk operations:
+        grid.add(0.5f).multiply(-2f).clamp(-100f, 50f);
+        final Grid other = new Grid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                other.set(x, y, x - y);
+                expected[y][x] = Math.max(-100f, Math.min(50f, (expected[y][x] + 0.5f) * -2f)) + (x - y);
+            }
+        }
+        grid.add(other);
+        assertEquals(name + " bulk operations", expected, grid);
+        // Iteration: each cell has to be visited exactly once.
+        final int[][] visits = new int[height][width];
+        grid.forEach(new CellConsumer() {
+            @Override
+            public boolean consume(final Grid grid, final int x, final int y, final float value) {
+                if (value == expected[y][x]) {
+                    visits[y][x]++;
+                }
+                return CONTINUE;
+            }
+        });
+        boolean visited = true;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                visited &= visits[y][x] == 1;
+            }
+        }
+        assertTrue(name + " iteration", visited);
+        // Copies - bulk transfer between grids with the same segments and cell by cell otherwise:
+        assertEquals(name + " copy", expected, grid.copy());
+        final BufferGrid sameSegments = grid.getSegments().length == 1 ? BufferGrid.allocate(width, height)
+                : new SegmentedBufferGrid(width, height, Integer.numberOfTrailingZeros(grid.getSegmentRows()));
+        sameSegments.set(grid);
+        assertEquals(name + " set with the same segments", expected, sameSegments);
+        final BufferGrid otherSegments = new SegmentedBufferGrid(width, height, 3);
+        otherSegments.set(grid);
+        assertEquals(name + " set with other segments", expected, otherSegments);
+        final Grid heapGrid = new Grid(width, height);
+        heapGrid.set(grid);
+        assertTrue(name + " equals heap grid", grid.equals(heapGrid) && heapGrid.equals(grid)
+                && grid.hashCode() == heapGrid.hashCode());
+        grid.set(3f);
+        for (final float[] row : expected) {
+            Arrays.fill(row, 3f);
+        }
+        assertEquals(name + " fill", expected, grid);
+    }
+
+    /** Performs random cell changes, fills and window operations on {@link ChunkedGrid} instances with various chunk
+     * sizes and default values, including regions at the int coordinates limits. Compares the region with a float
+     * array after each batch of operations and checks the amount of chunks stored after {@link ChunkedGrid#compact()}
+     * - only non-uniform chunks should keep their own arrays. */
+    public void checkChunkedGrid() {
+        final int width = 80, height = 64; // Multiples of each chunk size.
+        final int[] chunkSizes = { 1, 4, 16 };
+        final float[] defaultValues = { 0f, 1f };
+        final int[][] origins = { { 0, 0 }, { -32, -48 }, { Integer.MIN_VALUE, Integer.MIN_VALUE },
+                { (Integer.MAX_VALUE & -16) - 96, Integer.MIN_VALUE + 16 } };
+        for (final int chunkSize : chunkSizes) {
+            for (final float defaultValue : defaultValues) {
+                for (final int[] origin : origins) {
+                    final String name = "ChunkedGrid with " + chunkSize + "x" + chunkSize + " chunks, default value "
+                            + defaultValue + ", region at [" + origin[0] + "," + origin[1] + "]";
+                    checkChunkedGrid(name, new ChunkedGrid(chunkSize, defaultValue), origin[0], origin[1], width,
+                            height);
+                }
+            }
+        }
+    }
+
+    private void checkChunkedGrid(final String name, final ChunkedGrid map, final int originX, final int originY,
+            final int width, final int height) {
+        final float[][] expected = new float[height][width];
+        for (final float[] row : expected) {
+            Arrays.fill(row, map.getDefaultValue());
+        }
+        // A few values shared by many cells, so that fills and changes produce uniform chunks:
+        final float[] values = { map.getDefaultValue(), 0.5f, 2f, -3f };
+        final int chunkSize = map.getChunkSize();
+        final Grid region = map.window(originX, originY, width, height);
+        for (int operation = 1; operation <= 400; operation++) {
+            final float value = random.nextInt(4) == 0 ? random.nextFloat() : values[random.nextInt(values.length)];
+            // Random rectangle, aligned to the chunks in half of the cases:
+            int fromX = random.nextInt(width), toX = fromX + 1 + random.nextInt(width - fromX);
+            int fromY = random.nextInt(height), toY = fromY + 1 + random.nextInt(height - fromY);
+            if (random.nextBoolean()) {
+                fromX &= -chunkSize;
+                fromY &= -chunkSize;
+                toX = Math.min(width, toX + chunkSize - 1 & -chunkSize);
+                toY = Math.min(height, toY + chunkSize - 1 & -chunkSize);
+            }
+            switch (random.nextInt(6)) {
+                case 0: // Single cell.
+                    expected[fromY][fromX] = map.set(originX + fromX, originY + fromY, value);
+                    break;
+                case 1: // Single cell changed with the map's method.
+                    expected[fromY][fromX] += value;
+                    map.add(originX + fromX, originY + fromY, value);
+                    break;
+                case 2: // Filled rectangle.
+                    map.fill(originX + fromX, originY + fromY, originX + toX, originY + toY, value);
+                    fill(expected, fromX, fromY, toX, toY, value);
+                    break;
+                case 3: // Window filled with a single value - delegates to fill.
+                    map.window(originX + fromX, originY + fromY, toX - fromX, toY - fromY).set(value);
+                    fill(expected, fromX, fromY, toX, toY, value);
+                    break;
+                case 4: // Window modified with a generic bulk operation.
+                    map.window(originX + fromX, originY + fromY, toX - fromX, toY - fromY).add(value);
+                    for (int y = fromY; y < toY; y++) {
+                        for (int x = fromX; x < toX; x++) {
+                            expected[y][x] += value;
+                        }
+                    }
+                    break;
+                default: // Window cell.
+                    final Grid window = map.window(originX + fromX, originY + fromY, toX - fromX, toY - fromY);
+                    expected[toY - 1][toX - 1] = window.set(toX - fromX - 1, toY - fromY - 1, value);
+            }
+            if (operation % 30 == 0) {
+                // Chunk made uniform cell by cell is the last accessed one - it will be replaced when compacting:
+                final int chunkX = random.nextInt(width) & -chunkSize, chunkY = random.nextInt(height) & -chunkSize;
+                for (int y = chunkY; y < chunkY + chunkSize; y++) {
+                    for (int x = chunkX; x < chunkX + chunkSize; x++) {
+                        expected[y][x] = map.set(originX + x, originY + y, values[1]);
+                    }
+                }
+                checkCompactedChunks(name + " after " + operation + " operations", map, expected);
+                // Changes of the compacted chunk cannot modify the replaced array or the shared chunk:
+                expected[chunkY][chunkX] = map.set(originX + chunkX, originY + chunkY, values[2]);
+            }
+            if (operation % 50 == 0) {
+                assertEquals(name + " after " + operation + " operations", expected, region);
+            }
+        }
+        final int chunks = map.getChunksAmount();
+        assertEquals(name + " window copy", expected, region.copy());
+        assertTrue(name + " window copy allocation", map.getChunksAmount() == chunks);
+        map.clear();
+        for (final float[] row : expected) {
+            Arrays.fill(row, map.getDefaultValue());
+        }
+        assertEquals(name + " clear", expected, region);
+        assertTrue(name + " clear chunks", map.getChunksAmount() == 0);
+    }
+
+    /** @param name name of the check.
+     * @param map will be compacted.
+     * @param expected values of all cells that could have been modified. Its size has to be a multiple of the chunk
+     *            size and it has to start at a chunk boundary. */
+    private void checkCompactedChunks(final String name, final ChunkedGrid map, final float[][] expected) {
+        map.compact();
+        final int chunkSize = map.getChunkSize();
+        int uniformChunks = 0, nonUniformChunks = 0;
+        for (int chunkY = 0; chunkY < expected.length; chunkY += chunkSize) {
+            for (int chunkX = 0; chunkX < expected[0].length; chunkX += chunkSize) {
+                final int value = Float.floatToIntBits(expected[chunkY][chunkX]);
+                boolean uniform = true;
+                for (int y = chunkY; y < chunkY + chunkSize; y++) {
+                    for (int x = chunkX; x < chunkX + chunkSize; x++) {
+                        uniform &= Float.floatToIntBits(expected[y][x]) == value;
+                    }
+                }
+                if (!uniform) {
+                    nonUniformChunks++;
+                } else if (value != Float.floatToIntBits(map.getDefaultValue())) {
+                    uniformChunks++;
+                }
+            }
+        }
+        assertTrue(name + " allocated chunks", map.getAllocatedChunksAmount() == nonUniformChunks);
+        assertTrue(name + " stored chunks", map.getChunksAmount() == nonUniformChunks + uniformChunks);
+    }
+
+    private static void fill(final float[][] cells, final int fromX, final int fromY, final int toX, final int toY,
+            final float value) {
+        for (int y = fromY; y < toY; y++) {
+            Arrays.fill(cells[y], fromX, toX, value);
+        }
+    }
+
+    /** Applies {@link GridPipeline} instances to regular grids, views and buffer grids - including grids wider than
+     * a single processed block - and compares them with the same operations invoked one by one on a {@link Grid}. */
+    public void checkGridPipeline() {
+        final int[][] sizes = Arrays.copyOf(SIZES, SIZES.length + 4);
+        // Widths around multiples of the pipeline's block size:
+        sizes[SIZES.length] = new int[] { 511, 5 };
+        sizes[SIZES.length + 1] = new int[] { 512, 3 };
+        sizes[SIZES.length + 2] = new int[] { 513, 9 };
+        sizes[SIZES.length + 3] = new int[] { 1100, 4 };
+        final CellFunction function = new CellFunction() {
+            @Override
+            public float apply(final float value) {
+                return value * value - 0.5f;
+            }
+        };
+        for (final int[] size : sizes) {
+            final int width = size[0];
+            final int height = size[1];
+            final float[][] cells = randomCells(width, height);
+            // Operands: regular grid, virtual grid and a view. Divisors are in range of [1, 2).
+            final Grid mask = new Grid(width, height);
+            final BufferGrid buffer = BufferGrid.allocate(width, height);
+            final Grid divisor = new Grid(-1f, width + 2, height + 3).view(1, 2, width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    mask.set(x, y, random.nextFloat() * 2f - 1f);
+                    buffer.set(x, y, random.nextFloat() * 2f - 1f);
+                    divisor.set(x, y, random.nextFloat() + 1f);
+                }
+            }
+            final Grid expected = new Grid(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    expected.set(x, y, cells[y][x]);
+                }
+            }
+            expected.multiply(mask);
+            expected.add(0.2f).clamp(0f, 1f).modulo(0.3f);
+            expected.add(expected);
+            expected.replace(0f, 5f);
+            expected.subtract(buffer);
+            expected.divide(divisor);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    expected.set(x, y, function.apply(expected.get(x, y)));
+                }
+            }
+            expected.multiply(-1.5f).subtract(0.25f).divide(3f).negate();
+            final Grid[] grids = Arrays.copyOf(createGrids(cells), executors.length + 3);
+            final BufferGrid bufferTarget = BufferGrid.allocate(width, height);
+            bufferTarget.set(grids[0]);
+            grids[grids.length - 1] = bufferTarget;
+            for (final Grid grid : grids) {
+                // The pipeline is applied to the grid it is built for: adding the grid uses its current values.
+                new GridPipeline().multiply(mask).add(0.2f).clamp(0f, 1f).modulo(0.3f).add(grid).replace(0f, 5f)
+                        .subtract(buffer).divide(divisor).map(function).multiply(-1.5f).subtract(0.25f).divide(3f)
+                        .negate().apply(grid);
+                assertEquals("GridPipeline " + width + "x" + height + describe(grid), toFloats(expected), grid);
+            }
+            // Reused pipeline replacing the values:
+            final GridPipeline pipeline = new GridPipeline().set(mask).subtract(buffer);
+            final Grid replaced = mask.copy();
+            replaced.subtract(buffer);
+            for (final Grid grid : grids) {
+                pipeline.apply(grid);
+                assertEquals("GridPipeline " + width + "x" + height + " set" + describe(grid), toFloats(replaced),
+                        grid);
+            }
+        }
+    }
+
+    /** Checks encoding and decoding of every level of {@link ByteGrid} and {@link ShortGrid} with various ranges, then
+     * checks that grid operations store the nearest level of each value. */
+    public void checkQuantizedGrid() {
+        // Float arithmetic does not reach the exact maximum of the second range, so decoding has to handle it:
+        final float[][] ranges = { { 0f, 1f }, { -7.3f, 5.1f }, { -1000f, 1000f }, { -1E-3f, 1E-3f } };
+        for (final float[] range : ranges) {
+            for (final boolean shortLevels : new boolean[] { false, true }) {
+                final QuantizedGrid levels = createQuantizedGrid(shortLevels, 1, 1, range[0], range[1]);
+                final String name = levels.getClass().getSimpleName() + " [" + range[0] + ", " + range[1] + "]";
+                checkQuantizedLevels(name, levels);
+                for (final int[] size : SIZES) {
+                    for (int executorIndex = 0; executorIndex <= executors.length; executorIndex++) {
+                        final QuantizedGrid grid = createQuantizedGrid(shortLevels, size[0], size[1], range[0],
+                                range[1]);
+                        grid.setExecutor(executorIndex == 0 ? null : executors[executorIndex - 1]);
+                        checkQuantizedGrid(name + " " + size[0] + "x" + size[1] + describe(grid), grid);
+                    }
+                }
+            }
+        }
+        final float[][] invalidRanges = { { 1f, 1f }, { 1f, 0f }, { Float.NaN, 1f }, { 0f, Float.POSITIVE_INFINITY },
+                { -Float.MAX_VALUE, Float.MAX_VALUE } };
+        for (final float[] range : invalidRanges) {
+            for (final boolean shortLevels : new boolean[] { false, true }) {
+                boolean rejected = false;
+                try {
+                    createQuantizedGrid(shortLevels, 1, 1, range[0], range[1]);
+                } catch (final IllegalArgumentException exception) {
+                    rejected = true;
+                }
+                assertTrue((shortLevels ? "ShortGrid" : "ByteGrid") + " invalid range [" + range[0] + ", " + range[1]
+                        + "]", rejected);
+            }
+        }
+    }
+
+    private void checkQuantizedLevels(final String name, final QuantizedGrid grid) {
+        final float min = grid.getMin(), max = grid.getMax();
+        final int maxLevel = grid.getMaxLevel();
+        final double step = ((double) max - min) / maxLevel;
+        boolean decoded = true, roundTrip = true, increasing = true;
+        float previous = Float.NEGATIVE_INFINITY;
+        for (int level = 0; level <= maxLevel; level++) {
+            final float value = grid.decode(level);
+            decoded &= Math.abs(value - (level == maxLevel ? max : min + level * step)) <= step * 0.01;
+            roundTrip &= grid.encode(value) == level;
+            increasing &= value > previous;
+            previous = value;
+        }
+        assertTrue(name + " decoding", decoded);
+        assertTrue(name + " round trips", roundTrip);
+        assertTrue(name + " increasing levels", increasing);
+        // Range limits:
+        assertTrue(name + " minimum", grid.decode(0) == min && grid.encode(min) == 0
+                && grid.encode(Math.nextUp(min)) == 0 && grid.encode(min - (float) step) == 0);
+        assertTrue(name + " maximum", grid.decode(maxLevel) == max && grid.encode(max) == maxLevel
+                && grid.encode(Math.nextAfter(max, min)) == maxLevel && grid.encode(max + (float) step) == maxLevel);
+        assertTrue(name + " special values", grid.encode(Float.NaN) == 0
+                && grid.encode(Float.NEGATIVE_INFINITY) == 0 && grid.encode(Float.POSITIVE_INFINITY) == maxLevel);
+        // Random values, including values out of range:
+        boolean nearest = true;
+        for (int index = 0; index < 10000; index++) {
+            final float value = (float) (min - step * 10.0 + random.nextDouble() * ((double) max - min + step * 20.0));
+            nearest &= isNearestLevel(grid, value, grid.encode(value));
+        }
+        assertTrue(name + " nearest levels", nearest);
+    }
+
+    private void checkQuantizedGrid(final String name, final QuantizedGrid grid) {
+        final int width = grid.getWidth();
+        final int height = grid.getHeight();
+        final float min = grid.getMin(), max = grid.getMax();
+        // Values in range extended by 10% on both sides:
+        final float[][] values = randomCells(width, height);
+        final Grid source = new Grid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                values[y][x] = (float) (min + (values[y][x] * 0.6 + 0.5) * ((double) max - min));
+                source.set(x, y, values[y][x]);
+            }
+        }
+        grid.set(source);
+        assertQuantized(name + " set", values, grid);
+        boolean returned = true;
+        grid.set(min);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                returned &= grid.set(x, y, values[y][x]) == grid.get(x, y);
+            }
+        }
+        assertTrue(name + " returned values", returned);
+        assertQuantized(name + " cell set", values, grid);
+        // Bulk operations store the nearest level of each result:
+        final float change = grid.getPrecision() * 2.3f;
+        final float[][] stored = toFloats(grid);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                stored[y][x] += change;
+            }
+        }
+        grid.add(change);
+        assertQuantized(name + " add", stored, grid);
+        // Copies - bulk copy of levels between grids with the same range and conversion otherwise:
+        final float[][] expected = toFloats(grid);
+        assertEquals(name + " copy", expected, grid.copy());
+        final QuantizedGrid sameRange = createQuantizedGrid(grid instanceof ShortGrid, width, height, min, max);
+        sameRange.set(grid);
+        assertEquals(name + " set with the same range", expected, sameRange);
+        final Grid heapGrid = new Grid(width, height);
+        heapGrid.set(grid);
+        assertEquals(name + " set heap grid", expected, heapGrid);
+        grid.set(Float.NaN);
+        for (final float[] row : expected) {
+            Arrays.fill(row, min);
+        }
+        assertEquals(name + " fill with NaN", expected, grid);
+    }
+
+    private static QuantizedGrid createQuantizedGrid(final boolean shortLevels, final int width, final int height,
+            final float min, final float max) {
+        return shortLevels ? new ShortGrid(width, height, min, max) : new ByteGrid(width, height, min, max);
+    }
+
+    /** @param grid defines the levels.
+     * @param value will be converted.
+     * @param level stored level of the value.
+     * @return true if the level is the nearest level to the value. Float rounding might select any of the two levels
+     *         if the value is almost equally distant from both. */
+    private static boolean isNearestLevel(final QuantizedGrid grid, final float value, final int level) {
+        final double position;
+        if (value > grid.getMin()) {
+            position = Math.min(grid.getMaxLevel(),
+                    (value - (double) grid.getMin()) / ((double) grid.getMax() - grid.getMin()) * grid.getMaxLevel());
+        } else {
+            position = 0.0; // Also handles NaN.
+        }
+        return Math.abs(level - position) <= 0.51;
+    }
+
+    /** Computes {@link GridStatistics} of grids with random values - including an offset that would cause precision
+     * loss in naive single-pass variance, NaN values and rows without any values - and compares them with two-pass
+     * computations on a sorted array. Statistics of parallel grids have to be identical to the sequential ones. */
+    public void checkGridStatistics() {
+        final float[] offsets = { 0f, 1000f };
+        for (final int[] size : SIZES) {
+            final int width = size[0];
+            final int height = size[1];
+            for (final float offset : offsets) {
+                final float[][] cells = randomCells(width, height);
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        // Second row and about 5% of other cells - except for the first one - are ignored:
+                        final boolean ignored = (x != 0 || y != 0) && (y == 1 || random.nextInt(20) == 0);
+                        cells[y][x] = ignored ? Float.NaN : cells[y][x] * 4f + offset;
+                    }
+                }
+                final Grid[] grids = Arrays.copyOf(createGrids(cells), executors.length + 3);
+                final BufferGrid buffer = BufferGrid.allocate(width, height);
+                buffer.set(grids[0]);
+                grids[grids.length - 1] = buffer;
+                final GridStatistics sequential = GridStatistics.compute(grids[0], 256);
+                for (final Grid grid : grids) {
+                    final String name = "GridStatistics " + width + "x" + height + " with offset " + offset
+                            + describe(grid);
+                    final GridStatistics statistics = GridStatistics.compute(grid, 256);
+                    checkGridStatistics(name, cells, statistics);
+                    assertTrue(name + " parallel determinism", statistics.getMean() == sequential.getMean()
+                            && statistics.getVariance() == sequential.getVariance()
+                            && Arrays.equals(statistics.getHistogram(), sequential.getHistogram()));
+                    checkStatisticsOperations(name, cells, statistics, grid);
+                }
+            }
+        }
+        final Grid empty = new Grid(Float.NaN, 5, 3);
+        final GridStatistics statistics = GridStatistics.compute(empty, 16);
+        assertTrue("GridStatistics of NaN values", statistics.getCount() == 0L
+                && statistics.getMin() == Float.POSITIVE_INFINITY && statistics.getMax() == Float.NEGATIVE_INFINITY
+                && statistics.getVariance() == 0.0 && statistics.getPercentile(0.5f) == Float.POSITIVE_INFINITY);
+    }
+
+    private void checkGridStatistics(final String name, final float[][] cells, final GridStatistics statistics) {
+        final float[] values = getSortedValues(cells);
+        final int count = values.length;
+        double sum = 0.0;
+        for (final float value : values) {
+            sum += value;
+        }
+        final double mean = sum / count;
+        double squaredDeviations = 0.0;
+        for (final float value : values) {
+            squaredDeviations += (value - mean) * (value - mean);
+        }
+        final double variance = squaredDeviations / count;
+        assertTrue(name + " count", statistics.getCount() == count);
+        assertTrue(name + " min and max", statistics.getMin() == values[0] && statistics.getMax() == values[count - 1]);
+        assertTrue(name + " mean: " + statistics.getMean() + " instead of " + mean,
+                Math.abs(statistics.getMean() - mean) <= 1E-9 * Math.max(1.0, Math.abs(mean)));
+        assertTrue(name + " variance: " + statistics.getVariance() + " instead of " + variance,
+                Math.abs(statistics.getVariance() - variance) <= 1E-9 * Math.max(1.0, variance));
+        long histogramCount = 0L;
+        for (final long bin : statistics.getHistogram()) {
+            histogramCount += bin;
+        }
+        assertTrue(name + " histogram count", histogramCount == count);
+        // Percentile error is not bigger than the width of a single bin:
+        final double binWidth = ((double) statistics.getHistogramMax() - statistics.getHistogramMin())
+                / statistics.getHistogram().length;
+        for (final float percentile : new float[] { 0f, 0.001f, 0.25f, 0.45f, 0.5f, 0.9f, 0.999f, 1f }) {
+            final float lower = values[Math.max(0, (int) Math.ceil((double) percentile * count) - 1)];
+            final float upper = values[Math.min(count - 1, (int) ((double) percentile * count))];
+            final float actual = statistics.getPercentile(percentile);
+            assertTrue(name + " percentile " + percentile + ": " + actual + " instead of [" + lower + ", " + upper
+                    + "]", actual >= lower - binWidth * 1.001 && actual <= upper + binWidth * 1.001);
+        }
+        assertTrue(name + " percentile limits", statistics.getPercentile(0f) == values[0]
+                && statistics.getPercentile(1f) == values[count - 1]);
+    }
+
+    private void checkStatisticsOperations(final String name, final float[][] cells, final GridStatistics statistics,
+            final Grid grid) {
+        final int width = grid.getWidth();
+        final int height = grid.getHeight();
+        final float[][] expected = new float[height][width];
+        final double scale = statistics.getMax() > statistics.getMin()
+                ? 2.0 / ((double) statistics.getMax() - statistics.getMin()) : 0.0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                expected[y][x] = cells[y][x] != cells[y][x] ? Float.NaN
+                        : (float) Math.min(1.0, (cells[y][x] - (double) statistics.getMin()) * scale - 1.0);
+            }
+        }
+        final Grid normalized = grid.copy();
+        statistics.normalize(normalized, -1f, 1f);
+        assertEquals(name + " normalize", expected, normalized);
+        final float threshold = statistics.getPercentile(0.45f);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                expected[y][x] = cells[y][x] < threshold ? 1f : 0f;
+            }
+        }
+        final Grid thresholds = grid.copy();
+        assertTrue(name + " threshold", statistics.thresholdByPercentile(thresholds, 0.45f, 1f, 0f) == threshold);
+        assertEquals(name + " threshold", expected, thresholds);
+    }
+
+    /** @param cells values indexed with [y][x]. Might contain NaN.
+     * @return sorted values without NaN. */
+    private static float[] getSortedValues(final float[][] cells) {
+        float[] values = new float[cells.length * cells[0].length];
+        int count = 0;
+        for (final float[] row : cells) {
+            for (final float value : row) {
+                if (value == value) {
+                    values[count++] = value;
+                }
+            }
+        }
+        values = Arrays.copyOf(values, count);
+        Arrays.sort(values);
+        return values;
+    }
+
+    /** Compares {@link RandomStream} values and split streams with a SplitMix64 implementation, then checks that
+     * seeded initiation and generation produce the same results regardless of the executor and the order of rows. */
+    public void checkRandomStream() {
+        // First value of the SplitMix64 reference implementation with seed 0:
+        assertTrue("RandomStream SplitMix64 value", new RandomStream(0L).nextLong() == 0xE220A8397B1DCDAFL);
+        final long[] seeds = { 0L, 1L, -1L, 42L, Long.MIN_VALUE };
+        final int splits = 10000;
+        for (final long seed : seeds) {
+            final String name = "RandomStream with seed " + seed;
+            final RandomStream stream = new RandomStream(seed);
+            boolean matches = true;
+            long state = seed;
+            for (int index = 0; index < 1000; index++) {
+                state += GOLDEN_GAMMA;
+                matches &= stream.nextLong() == splitMix64(state);
+            }
+            assertTrue(name + " values", matches);
+            // Split streams depend only on the index - not on the order of calls:
+            final RandomStream parent = new RandomStream(seed);
+            final long[] values = new long[splits];
+            final HashSet<Long> distinctValues = new HashSet<Long>();
+            matches = true;
+            for (int index = 0; index < splits; index++) {
+                values[index] = parent.split(index).nextLong();
+                matches &= values[index] == splitMix64(getSplitSeed(seed, index) + GOLDEN_GAMMA);
+                distinctValues.add(values[index]);
+            }
+            assertTrue(name + " split values", matches);
+            assertTrue(name + " distinct split streams", distinctValues.size() == splits);
+            boolean deterministic = true;
+            for (int index = splits - 1; index >= 0; index--) {
+                deterministic &= parent.split(index).nextLong() == values[index];
+            }
+            assertTrue(name + " split in reverse order", deterministic);
+            assertTrue(name + " split does not advance", parent.nextLong() == new RandomStream(seed).nextLong());
+            // Unindexed split advances the stream:
+            final RandomStream first = new RandomStream(seed), second = new RandomStream(seed);
+            assertTrue(name + " unindexed split", first.split().nextLong() == second.split().nextLong()
+                    && first.split().nextLong() != new RandomStream(seed).split().nextLong());
+        }
+        final CellularAutomataGenerator cellularAutomata = new CellularAutomataGenerator();
+        cellularAutomata.setAliveChance(0.45f);
+        for (final int[] size : SIZES) {
+            final int width = size[0];
+            final int height = size[1];
+            final long seed = random.nextLong();
+            final String name = "RandomStream " + width + "x" + height + " with seed " + seed;
+            // Initiation uses streams split from the passed stream for each row:
+            final boolean[][] expected = roll(seed, width, height, 0.45f);
+            for (final Grid grid : createGrids(new float[height][width])) {
+                CellularAutomataGenerator.initiate(grid, 0.45f, 1f, new RandomStream(seed));
+                assertEquals(name + " initiation" + describe(grid), expected, grid);
+            }
+            for (final BitGrid bits : createBitGrids(new boolean[height][width])) {
+                CellularAutomataGenerator.initiate(bits, 0.45f, new RandomStream(seed));
+                assertEquals(name + " bits initiation" + describe(bits), expected, bits.toGrid());
+            }
+            // Generators split the context's stream once, then initiate the rows:
+            boolean[][] generated = roll(splitMix64(splitMix64(seed + GOLDEN_GAMMA) ^ SPLIT_GAMMA), width, height,
+                    0.45f);
+            for (int iteration = 0; iteration < cellularAutomata.getIterationsAmount(); iteration++) {
+                generated = iterate(generated, cellularAutomata.getRadius(), cellularAutomata.getBirthLimit(),
+                        cellularAutomata.getDeathLimit());
+            }
+            for (final Grid grid : createGrids(new float[height][width])) {
+                cellularAutomata.generate(grid, new CellularAutomataGenerator.Context(seed));
+                assertEquals(name + " cellular automata" + describe(grid), generated, grid);
+            }
+            for (final BitGrid bits : createBitGrids(new boolean[height][width])) {
+                cellularAutomata.generate(bits, new CellularAutomataGenerator.Context(seed));
+                assertEquals(name + " cellular automata" + describe(bits), generated, bits.toGrid());
+            }
+        }
+        // Seeded dungeons do not depend on the grid type or executor:
+        final DungeonGenerator dungeonGenerator = new DungeonGenerator();
+        for (final long seed : seeds) {
+            final Grid[] grids = createGrids(new float[41][61]);
+            for (final Grid grid : grids) {
+                dungeonGenerator.generate(grid, new DungeonGenerator.Context(seed));
+            }
+            final float[][] dungeon = toFloats(grids[0]);
+            for (int index = 1; index < grids.length; index++) {
+                assertEquals("RandomStream dungeon with seed " + seed + describe(grids[index]), dungeon,
+                        grids[index]);
+            }
+            final Grid repeated = new Grid(61, 41);
+            dungeonGenerator.generate(repeated, new DungeonGenerator.Context(seed));
+            assertEquals("RandomStream repeated dungeon with seed " + seed, dungeon, repeated);
+        }
+    }
+
+    /** @param seed seed of a {@link RandomStream}.
+     * @param index index of the split stream.
+     * @return seed of the stream returned by {@link RandomStream#split(long)} of a new stream. */
+    private static long getSplitSeed(final long seed, final long index) {
+        return splitMix64(seed ^ splitMix64((index + 1L) * SPLIT_GAMMA));
+    }
+
+    /** @param seed seed of a {@link RandomStream}.
+     * @param width amount of columns.
+     * @param height amount of rows.
+     * @param aliveChance see {@link CellularAutomataGenerator#setAliveChance(float)}.
+     * @return cells rolled as alive by the cellular automata initiation with streams split for each row. */
+    private static boolean[][] roll(final long seed, final int width, final int height, final float aliveChance) {
+        final boolean[][] cells = new boolean[height][width];
+        for (int y = 0; y < height; y++) {
+            long state = getSplitSeed(seed, y);
+            for (int x = 0; x < width; x++) {
+                state += GOLDEN_GAMMA;
+                // Random#nextFloat uses 24 highest bits:
+                cells[y][x] = (splitMix64(state) >>> 40) / (float) (1 << 24) > aliveChance;
+            }
+        }
+        return cells;
+    }
+
+    /** @param value will be mixed.
+     * @return SplitMix64 output for the chosen state. */
+    private static long splitMix64(final long value) {
+        long result = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ result >>> 27) * 0x94D049BB133111EBL;
+        return result ^ result >>> 31;
+    }
+
+    /** Generates noise with {@link NoiseGenerator#generate(Grid)}, which caches the corners and edges of the regions
+     * for whole row bands, and compares it with noise generated cell by cell - which computes all four region corners
+     * for each cell - and row by row with the consumer methods. Values have to be identical for all radiuses -
+     * including radiuses that do not divide the grid size - on regular, parallel, view, buffer and chunked grids. */
+    public void checkNoiseGenerator() {
+        final int[] radiuses = { 1, 2, 3, 7, 32, 1000 };
+        for (final int[] size : SIZES) {
+            final int width = size[0];
+            final int height = size[1];
+            for (final int radius : radiuses) {
+                final NoiseGenerator generator = new NoiseGenerator();
+                generator.setRadius(radius);
+                generator.setModifier(0.7f);
+                generator.setSeed(random.nextInt(Integer.MAX_VALUE - 1) + 1);
+                final String name = "NoiseGenerator r" + radius + " on " + width + "x" + height;
+                // Generated values are added to the current cell values:
+                final float[][] cells = randomCells(width, height);
+                final Grid reference = createGrids(cells)[0];
+                reference.forEach(generator);
+                final float[][] expected = toFloats(reference);
+                final Grid[] grids = Arrays.copyOf(createGrids(cells), executors.length + 4);
+                final BufferGrid buffer = BufferGrid.allocate(width, height);
+                buffer.set(grids[0]);
+                grids[grids.length - 2] = buffer;
+                final Grid window = new ChunkedGrid(16, 0f).window(-5, -20, width, height);
+                window.set(grids[0]);
+                grids[grids.length - 1] = window;
+                for (final Grid grid : grids) {
+                    generator.generate(grid);
+                    assertIdentical(name + describe(grid), expected, grid);
+                }
+                // Row consumer - rows backed by an array and virtual rows:
+                final Grid[] rowGrids = createGrids(cells);
+                final BufferGrid rowBuffer = BufferGrid.allocate(width, height);
+                rowBuffer.set(rowGrids[0]);
+                for (final Grid grid : new Grid[] { rowGrids[0], rowGrids[rowGrids.length - 1], rowBuffer }) {
+                    grid.forEachRow(generator);
+                    assertIdentical(name + " row consumer" + describe(grid), expected, grid);
+                }
+            }
+        }
+    }
+
+    /** Writes grids and int arrays to temporary files, then checks that reading and mapping the files in every
+     * {@link MapMode} restores the written values.
+     *
+     * @throws IOException if unable to use the temporary files. */
+    public void checkGridFiles() throws IOException {
+        // The last size exceeds the buffer used to write and read the files:
+        final int[][] sizes = Arrays.copyOf(SIZES, SIZES.length + 1);
+        sizes[SIZES.length] = new int[] { 300, 61 };
+        final MapMode[] modes = { MapMode.READ_ONLY, MapMode.READ_WRITE, MapMode.PRIVATE };
+        for (final int[] size : sizes) {
+            final int width = size[0];
+            final int height = size[1];
+            final float[][] cells = randomCells(width, height);
+            final String name = "GridFiles " + width + "x" + height;
+            for (final Grid grid : createGrids(cells)) {
+                final File file = createTempFile();
+                try {
+                    GridFiles.write(grid, file);
+                    assertTrue(name + " checksum" + describe(grid), GridFiles.verify(file));
+                    assertEquals(name + " read" + describe(grid), cells, GridFiles.readGrid(file));
+                } finally {
+                    delete(file);
+                }
+            }
+            // Last cell is modified through the mapped grids:
+            final float[][] modified = new float[height][];
+            for (int y = 0; y < height; y++) {
+                modified[y] = cells[y].clone();
+            }
+            modified[height - 1][width - 1] = 42f;
+            for (final MapMode mode : modes) {
+                final String modeName = name + " mapped " + mode;
+                final File file = createTempFile();
+                try {
+                    GridFiles.write(createGrids(cells)[0], file);
+                    final BufferGrid mapped = GridFiles.mapGrid(file, mode);
+                    assertEquals(modeName, cells, mapped);
+                    if (mode != MapMode.READ_ONLY) {
+                        mapped.set(width - 1, height - 1, 42f);
+                        assertEquals(modeName + " modified", modified, mapped);
+                        // Only READ_WRITE mode saves the changes in the file:
+                        assertEquals(modeName + " reloaded", mode == MapMode.READ_WRITE ? modified : cells,
+                                GridFiles.mapGrid(file, MapMode.READ_ONLY));
+                    }
+                } finally {
+                    delete(file);
+                }
+            }
+            final Int2dArray array = new Int2dArray(width, height);
+            for (int index = 0; index < array.getArray().length; index++) {
+                array.getArray()[index] = random.nextInt();
+            }
+            final File file = createTempFile();
+            try {
+                GridFiles.write(array, file);
+                assertTrue(name + " int array", Arrays.equals(array.getArray(), GridFiles.readInt2dArray(file)
+                        .getArray()));
+            } finally {
+                delete(file);
+            }
+        }
+    }
+
+    /** @param cells values of the grid, indexed with [y][x].
+     * @param kernel will be applied.
+     * @param edgeMode decides how cells outside of the grid are handled.
+     * @param edgeValue value of cells outside of the grid in {@link EdgeMode#CONSTANT} mode.
+     * @return convolved values computed cell by cell with a 2D loop over all kernel weights. */
+    public static float[][] convolve(final float[][] cells, final Kernel kernel, final EdgeMode edgeMode,
+            final float edgeValue) {
+        final int height = cells.length;
+        final int width = cells[0].length;
+        final float[][] result = new float[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double sum = 0d;
+                for (int kernelY = 0; kernelY < kernel.getHeight(); kernelY++) {
+                    for (int kernelX = 0; kernelX < kernel.getWidth(); kernelX++) {
+                        final int sourceX = x + kernelX - kernel.getRadiusX();
+                        final int sourceY = y + kernelY - kernel.getRadiusY();
+                        final float value;
+                        if (sourceX >= 0 && sourceY >= 0 && sourceX < width && sourceY < height) {
+                            value = cells[sourceY][sourceX];
+                        } else if (edgeMode == EdgeMode.CLAMP) {
+                            value = cells[clamp(sourceY, height)][clamp(sourceX, width)];
+                        } else if (edgeMode == EdgeMode.WRAP) {
+                            value = cells[wrap(sourceY, height)][wrap(sourceX, width)];
+                        } else {
+                            value = edgeValue;
+                        }
+                        sum += (double) kernel.get(kernelX, kernelY) * value;
+                    }
+                }
+                result[y][x] = (float) sum;
+            }
+        }
+        return result;
+    }
+
+    /** @param cells values of the grid, indexed with [y][x].
+     * @param interpolation its kernel function will be evaluated for each pair of target and source cells.
+     * @param targetWidth amount of columns of the resized grid.
+     * @param targetHeight amount of rows of the resized grid.
+     * @return resized values. */
+    public static float[][] resample(final float[][] cells, final Interpolation interpolation, final int targetWidth,
+            final int targetHeight) {
+        final int height = cells.length;
+        final int width = cells[0].length;
+        final float[][] result = new float[targetHeight][targetWidth];
+        for (int y = 0; y < targetHeight; y++) {
+            // Cells are samples placed in the centers of unit squares:
+            final double sourceY = (y + 0.5d) * height / targetHeight - 0.5d;
+            for (int x = 0; x < targetWidth; x++) {
+                final double sourceX = (x + 0.5d) * width / targetWidth - 0.5d;
+                double sum = 0d;
+                for (int cellY = (int) Math.floor(sourceY) - 2; cellY <= (int) Math.floor(sourceY) + 2; cellY++) {
+                    final double weightY = weight(interpolation, sourceY, cellY);
+                    for (int cellX = (int) Math.floor(sourceX) - 2; cellX <= (int) Math.floor(sourceX) + 2; cellX++) {
+                        sum += weightY * weight(interpolation, sourceX, cellX) * cells[clamp(cellY, height)][clamp(
+                                cellX, width)];
+                    }
+                }
+                result[y][x] = (float) sum;
+            }
+        }
+        return result;
+    }
+
+    /** @param interpolation decides which kernel function is used.
+     * @param position sampled position in source coordinates.
+     * @param cell index of a source cell.
+     * @return weight of the cell. */
+    private static double weight(final Interpolation interpolation, final double position, final int cell) {
+        final double distance = Math.abs(position - cell);
+        switch (interpolation) {
+            case NEAREST:
+                return cell == (int) Math.floor(position + 0.5d) ? 1d : 0d;
+            case BILINEAR:
+                return Math.max(0d, 1d - distance);
+            default: // Catmull-Rom spline.
+                if (distance < 1d) {
+                    return 1.5d * distance * distance * distance - 2.5d * distance * distance + 1d;
+                } else if (distance < 2d) {
+                    return -0.5d * distance * distance * distance + 2.5d * distance * distance - 4d * distance + 2d;
+                }
+                return 0d;
+        }
+    }
+
+    /** @param cells current state of the automaton, indexed with [y][x]. Cells outside of the grid are dead.
+     * @param radius distance between the cell and its farthest counted neighbors.
+     * @param birthLimit dead cells with more living neighbors become alive.
+     * @param deathLimit living cells with less living neighbors die.
+     * @return next state of the automaton. */
+    public static boolean[][] iterate(final boolean[][] cells, final int radius, final int birthLimit,
+            final int deathLimit) {
+        final int height = cells.length;
+        final int width = cells[0].length;
+        final boolean[][] result = new boolean[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int livingNeighbors = 0;
+                for (int neighborY = y - radius; neighborY <= y + radius; neighborY++) {
+                    for (int neighborX = x - radius; neighborX <= x + radius; neighborX++) {
+                        if ((neighborX != x || neighborY != y) && neighborX >= 0 && neighborY >= 0
+                                && neighborX < width && neighborY < height && cells[neighborY][neighborX]) {
+                            livingNeighbors++;
+                        }
+                    }
+                }
+                result[y][x] = cells[y][x] ? livingNeighbors >= deathLimit : livingNeighbors > birthLimit;
+            }
+        }
+        return result;
+    }
+
+    private static int clamp(final int index, final int size) {
+        return index < 0 ? 0 : index >= size ? size - 1 : index;
+    }
+
+    private static int wrap(final int index, final int size) {
+        final int wrapped = index % size;
+        return wrapped < 0 ? wrapped + size : wrapped;
+    }
+
+    /** @param width amount of columns.
+     * @param height amount of rows.
+     * @return random values in range of [-1, 1), indexed with [y][x]. */
+    private float[][] randomCells(final int width, final int height) {
+        final float[][] cells = new float[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                cells[y][x] = random.nextFloat() * 2f - 1f;
+            }
+        }
+        return cells;
+    }
+
+    /** @param cells states of cells, indexed with [y][x].
+     * @return 1 for living cells, 0 for dead ones. */
+    private static float[][] toFloats(final boolean[][] cells) {
+        final float[][] values = new float[cells.length][cells[0].length];
+        for (int y = 0; y < cells.length; y++) {
+            for (int x = 0; x < cells[y].length; x++) {
+                values[y][x] = cells[y][x] ? 1f : 0f;
+            }
+        }
+        return values;
+    }
+
+    /** @param grid will be copied.
+     * @return values of the grid, indexed with [y][x]. */
+    private static float[][] toFloats(final Grid grid) {
+        final float[][] cells = new float[grid.getHeight()][grid.getWidth()];
+        for (int y = 0; y < cells.length; y++) {
+            for (int x = 0; x < cells[y].length; x++) {
+                cells[y][x] = grid.get(x, y);
+            }
+        }
+        return cells;
+    }
+
+    /** @param cells values of the grids, indexed with [y][x].
+     * @return a sequential grid, grids using each of the executors and a view of a bigger grid, all containing the
+     *         same values. */
+    private Grid[] createGrids(final float[][] cells) {
+        final int height = cells.length;
+        final int width = cells[0].length;
+        final Grid[] grids = new Grid[executors.length + 2];
+        for (int index = 0; index < grids.length; index++) {
+            final Grid grid;
+            if (index == grids.length - 1) {
+                // Parent grid contains values that would change the results if the view did not respect its bounds:
+                grid = new Grid(100f, width + 7, height + 5).view(3, 2, width, height);
+            } else {
+                grid = new Grid(width, height);
+                grid.setExecutor(index == 0 ? null : executors[index - 1]);
+            }
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    grid.set(x, y, cells[y][x]);
+                }
+            }
+            grids[index] = grid;
+        }
+        return grids;
+    }
+
+    /** @param cells states of cells, indexed with [y][x].
+     * @return a sequential bit grid and bit grids using each of the executors, all containing the same cells. */
+    private BitGrid[] createBitGrids(final boolean[][] cells) {
+        final int height = cells.length;
+        final int width = cells[0].length;
+        final BitGrid[] grids = new BitGrid[executors.length + 1];
+        for (int index = 0; index < grids.length; index++) {
+            final BitGrid bits = new BitGrid(width, height);
+            bits.setExecutor(index == 0 ? null : executors[index - 1]);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    bits.set(x, y, cells[y][x]);
+                }
+            }
+            grids[index] = bits;
+        }
+        return grids;
+    }
+
+    private static String describe(final Grid grid) {
+        if (grid.getExecutor() != null) {
+            return " with " + grid.getExecutor().getClass().getSimpleName();
+        }
+        if (grid instanceof GridView) {
+            return " (view)";
+        }
+        return grid.getClass() == Grid.class ? "" : " (" + grid.getClass().getSimpleName() + ")";
+    }
+
+    private static String describe(final BitGrid bits) {
+        return bits.getExecutor() == null ? "" : " with " + bits.getExecutor().getClass().getSimpleName();
+    }
+
+    /** A {@link BufferGrid} with heap buffers storing a chosen amount of rows each, so that segment boundaries can be
+     * tested on small grids.
+     *
+     * @author MJ */
+    private static class SegmentedBufferGrid extends BufferGrid {
+        /** @param width amount of columns.
+         * @param height amount of rows.
+         * @param rowShift binary logarithm of the amount of rows stored in each segment. */
+        SegmentedBufferGrid(final int width, final int height, final int rowShift) {
+            super(null, createSegments(width, height, rowShift), rowShift, width, height);
+        }
+
+        private static FloatBuffer[] createSegments(final int width, final int height, final int rowShift) {
+            final int rows = 1 << rowShift;
+            final FloatBuffer[] segments = new FloatBuffer[(height + rows - 1) / rows];
+            for (int index = 0; index < segments.length; index++) {
+                segments[index] = FloatBuffer.allocate(Math.min(rows, height - index * rows) * width);
+            }
+            return segments;
+        }
+    }
+
+    private static File createTempFile() throws IOException {
+        return File.createTempFile("noise4j-reference", ".grid");
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete()) { // Might fail on systems that do not allow to delete mapped files.
+            file.deleteOnExit();
+        }
+    }
+
+    private void assertTrue(final String name, final boolean condition) {
+        checks++;
+        if (!condition) {
+            fail(name + ": check failed.");
+        }
+    }
+
+    private void assertEquals(final String name, final float[][] expected, final Grid actual) {
+        checks++;
+        for (int y = 0; y < expected.length; y++) {
+            for (int x = 0; x < expected[y].length; x++) {
+                final float difference = Math.abs(expected[y][x] - actual.get(x, y));
+                if (!(difference <= TOLERANCE * Math.max(1f, Math.abs(expected[y][x])))
+                        && !(Float.isNaN(expected[y][x]) && Float.isNaN(actual.get(x, y)))) {
+                    fail(name + ": expected " + expected[y][x] + " at [" + x + "," + y + "], got " + actual.get(x, y));
+                    return;
+                }
+            }
+        }
+    }
+
+    private void assertIdentical(final String name, final float[][] expected, final Grid actual) {
+        checks++;
+        for (int y = 0; y < expected.length; y++) {
+            for (int x = 0; x < expected[y].length; x++) {
+                if (Float.floatToIntBits(expected[y][x]) != Float.floatToIntBits(actual.get(x, y))) {
+                    fail(name + ": expected exactly " + expected[y][x] + " at [" + x + "," + y + "], got "
+                            + actual.get(x, y));
+                    return;
+                }
+            }
+        }
+    }
+
+    private void assertQuantized(final String name, final float[][] values, final QuantizedGrid actual) {
+        checks++;
+        for (int y = 0; y < values.length; y++) {
+            for (int x = 0; x < values[y].length; x++) {
+                final int level = actual.encode(actual.get(x, y));
+                if (!isNearestLevel(actual, values[y][x], level)) {
+                    fail(name + ": " + values[y][x] + " at [" + x + "," + y + "] stored as level " + level + ": "
+                            + actual.get(x, y));
+                    return;
+                }
+            }
+        }
+    }
+
+    private void assertEquals(final String name, final boolean[][] expected, final Grid actual) {
+        checks++;
+        for (int y = 0; y < expected.length; y++) {
+            for (int x = 0; x < expected[y].length; x++) {
+                if (expected[y][x] != actual.get(x, y) >= 1f) {
+                    fail(name + ": cell [" + x + "," + y + "] should be " + (expected[y][x] ? "alive." : "dead."));
+                    return;
+                }
+            }
+        }
+    }
+
+    private void fail(final String message) {
+        failures++;
+        System.out.println(message);
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.czyzby.noise4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.filter.Resampler;
+import com.github.czyzby.noise4j.map.filter.Resampler.Interpolation;
+
+/** Measures {@link Resampler} upscaling a grid 4 times in each dimension. Counted cells are the cells of the resized
+ * grid.
+ *
+ * @author MJ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResamplerBenchmark {
+    @Param({ "64", "256", "1024" })
+    public int size;
+    @Param({ "NEAREST", "BILINEAR", "BICUBIC" })
+    public Interpolation interpolation;
+
+    private Grid source;
+    private Grid target;
+    private Resampler resampler;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(1L);
+        source = new Grid(size);
+        final float[] array = source.getArray();
+        for (int index = 0; index < array.length; index++) {
+            array[index] = random.nextFloat();
+        }
+        target = new Grid(size * 4);
+        resampler = new Resampler(interpolation);
+    }
+
+    @Benchmark
+    public Grid upscale(final CellCounter counter) {
+        counter.count(size * 4);
+        return resampler.resize(source, target);
+    }
+}
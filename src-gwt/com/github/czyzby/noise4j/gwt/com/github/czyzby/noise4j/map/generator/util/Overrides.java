@@ -0,0 +1,20 @@
+package com.github.czyzby.noise4j.map.generator.util;
+
+/** GWT emulation of {@link Overrides}. Reflection is not supported on GWT, so every method of an extension is treated
+ * as overridden.
+ *
+ * @author MJ */
+public class Overrides {
+    private Overrides() {
+    }
+
+    /** @param type class of an object. Has to be equal to or extend the base class.
+     * @param base class declaring the method.
+     * @param name name of the method.
+     * @param parameterTypes types of the method's parameters.
+     * @return true if the type is not the base class. */
+    public static boolean isOverridden(final Class<?> type, final Class<?> base, final String name,
+            final Class<?>... parameterTypes) {
+        return type != base;
+    }
+}
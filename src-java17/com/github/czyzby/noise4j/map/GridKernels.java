@@ -0,0 +1,175 @@
+package com.github.czyzby.noise4j.map;
+
+/** Bulk operations on ranges of float arrays, used by {@link Grid} and {@link GridPipeline} to process rows of cells.
+ * This is the Java 17+ version of the class, stored in the multi-release jar: if the {@code jdk.incubator.vector}
+ * module is available (for example, if the application was started with {@code --add-modules jdk.incubator.vector}),
+ * most of the elements are processed with SIMD instructions through the Vector API, and the remaining tail elements
+ * are processed by plain loops. Otherwise - or if {@code noise4j.disableVectorApi} system property is set to true -
+ * it behaves exactly like the base version. Both implementations produce the same results.
+ *
+ * @author MJ */
+public final class GridKernels {
+    private static final boolean VECTORIZED = isVectorApiAvailable();
+
+    private GridKernels() {
+    }
+
+    private static boolean isVectorApiAvailable() {
+        return !Boolean.getBoolean("noise4j.disableVectorApi")
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /** @return true if the operations use the Vector API. */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param value will be added to the elements. */
+    public static void add(final float[] array, final int from, final int to, final float value) {
+        int index = from;
+        if (VECTORIZED) {
+            index = VectorGridKernels.add(array, from, to, value);
+        }
+        for (; index < to; index++) {
+            array[index] += value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param value will be subtracted from the elements. */
+    public static void subtract(final float[] array, final int from, final int to, final float value) {
+        int index = from;
+        if (VECTORIZED) {
+            index = VectorGridKernels.subtract(array, from, to, value);
+        }
+        for (; index < to; index++) {
+            array[index] -= value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param value will multiply the elements. */
+    public static void multiply(final float[] array, final int from, final int to, final float value) {
+        int index = from;
+        if (VECTORIZED) {
+            index = VectorGridKernels.multiply(array, from, to, value);
+        }
+        for (; index < to; index++) {
+            array[index] *= value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param value will divide the elements. */
+    public static void divide(final float[] array, final int from, final int to, final float value) {
+        int index = from;
+        if (VECTORIZED) {
+            index = VectorGridKernels.divide(array, from, to, value);
+        }
+        for (; index < to; index++) {
+            array[index] /= value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded). */
+    public static void negate(final float[] array, final int from, final int to) {
+        int index = from;
+        if (VECTORIZED) {
+            index = VectorGridKernels.negate(array, from, to);
+        }
+        for (; index < to; index++) {
+            array[index] = -array[index];
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param min elements lower than this value will be converted to this value.
+     * @param max elements higher than this value will be converted to this value. */
+    public static void clamp(final float[] array, final int from, final int to, final float min, final float max) {
+        int index = from;
+        if (VECTORIZED) {
+            index = VectorGridKernels.clamp(array, from, to, min, max);
+        }
+        for (; index < to; index++) {
+            final float value = array[index];
+            array[index] = value > max ? max : value < min ? min : value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param index index of the first modified element.
+     * @param source its elements will be added to the array.
+     * @param sourceIndex index of the first source element.
+     * @param length amount of processed elements. */
+    public static void add(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        int offset = 0;
+        if (VECTORIZED) {
+            offset = VectorGridKernels.add(array, index, source, sourceIndex, length);
+        }
+        for (; offset < length; offset++) {
+            array[index + offset] += source[sourceIndex + offset];
+        }
+    }
+
+    /** @param array will be modified.
+     * @param index index of the first modified element.
+     * @param source its elements will be subtracted from the array.
+     * @param sourceIndex index of the first source element.
+     * @param length amount of processed elements. */
+    public static void subtract(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        int offset = 0;
+        if (VECTORIZED) {
+            offset = VectorGridKernels.subtract(array, index, source, sourceIndex, length);
+        }
+        for (; offset < length; offset++) {
+            array[index + offset] -= source[sourceIndex + offset];
+        }
+    }
+
+    /** @param array will be modified.
+     * @param index index of the first modified element.
+     * @param source its elements will multiply the array.
+     * @param sourceIndex index of the first source element.
+     * @param length amount of processed elements. */
+    public static void multiply(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        int offset = 0;
+        if (VECTORIZED) {
+            offset = VectorGridKernels.multiply(array, index, source, sourceIndex, length);
+        }
+        for (; offset < length; offset++) {
+            array[index + offset] *= source[sourceIndex + offset];
+        }
+    }
+
+    /** @param array will be modified.
+     * @param index index of the first modified element.
+     * @param source its elements will divide the array.
+     * @param sourceIndex index of the first source element.
+     * @param length amount of processed elements. */
+    public static void divide(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        int offset = 0;
+        if (VECTORIZED) {
+            offset = VectorGridKernels.divide(array, index, source, sourceIndex, length);
+        }
+        for (; offset < length; offset++) {
+            array[index + offset] /= source[sourceIndex + offset];
+        }
+    }
+}
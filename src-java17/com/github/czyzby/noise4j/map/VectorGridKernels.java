@@ -0,0 +1,111 @@
+package com.github.czyzby.noise4j.map;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/** Vector API implementations of {@link GridKernels} operations. Each method processes the longest prefix of the range
+ * that is a multiple of the preferred vector length and returns the index of the first unprocessed element; the tail
+ * is processed by {@link GridKernels}. Loaded only if the {@code jdk.incubator.vector} module is available.
+ *
+ * @author MJ */
+final class VectorGridKernels {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LENGTH = SPECIES.length();
+
+    private VectorGridKernels() {
+    }
+
+    static int add(final float[] array, final int from, final int to, final float value) {
+        int index = from;
+        for (final int bound = from + SPECIES.loopBound(to - from); index < bound; index += LENGTH) {
+            FloatVector.fromArray(SPECIES, array, index).add(value).intoArray(array, index);
+        }
+        return index;
+    }
+
+    static int subtract(final float[] array, final int from, final int to, final float value) {
+        int index = from;
+        for (final int bound = from + SPECIES.loopBound(to - from); index < bound; index += LENGTH) {
+            FloatVector.fromArray(SPECIES, array, index).sub(value).intoArray(array, index);
+        }
+        return index;
+    }
+
+    static int multiply(final float[] array, final int from, final int to, final float value) {
+        int index = from;
+        for (final int bound = from + SPECIES.loopBound(to - from); index < bound; index += LENGTH) {
+            FloatVector.fromArray(SPECIES, array, index).mul(value).intoArray(array, index);
+        }
+        return index;
+    }
+
+    static int divide(final float[] array, final int from, final int to, final float value) {
+        int index = from;
+        for (final int bound = from + SPECIES.loopBound(to - from); index < bound; index += LENGTH) {
+            FloatVector.fromArray(SPECIES, array, index).div(value).intoArray(array, index);
+        }
+        return index;
+    }
+
+    static int negate(final float[] array, final int from, final int to) {
+        int index = from;
+        for (final int bound = from + SPECIES.loopBound(to - from); index < bound; index += LENGTH) {
+            FloatVector.fromArray(SPECIES, array, index).neg().intoArray(array, index);
+        }
+        return index;
+    }
+
+    static int clamp(final float[] array, final int from, final int to, final float min, final float max) {
+        int index = from;
+        for (final int bound = from + SPECIES.loopBound(to - from); index < bound; index += LENGTH) {
+            final FloatVector values = FloatVector.fromArray(SPECIES, array, index);
+            // Masks instead of min/max operations to keep the exact semantics of the scalar loop (signed zeros):
+            final VectorMask<Float> aboveMax = values.compare(VectorOperators.GT, max);
+            final VectorMask<Float> belowMin = values.compare(VectorOperators.LT, min).andNot(aboveMax);
+            values.blend(max, aboveMax).blend(min, belowMin).intoArray(array, index);
+        }
+        return index;
+    }
+
+    static int add(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        int offset = 0;
+        for (final int bound = SPECIES.loopBound(length); offset < bound; offset += LENGTH) {
+            FloatVector.fromArray(SPECIES, array, index + offset)
+                    .add(FloatVector.fromArray(SPECIES, source, sourceIndex + offset)).intoArray(array, index + offset);
+        }
+        return offset;
+    }
+
+    static int subtract(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        int offset = 0;
+        for (final int bound = SPECIES.loopBound(length); offset < bound; offset += LENGTH) {
+            FloatVector.fromArray(SPECIES, array, index + offset)
+                    .sub(FloatVector.fromArray(SPECIES, source, sourceIndex + offset)).intoArray(array, index + offset);
+        }
+        return offset;
+    }
+
+    static int multiply(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        int offset = 0;
+        for (final int bound = SPECIES.loopBound(length); offset < bound; offset += LENGTH) {
+            FloatVector.fromArray(SPECIES, array, index + offset)
+                    .mul(FloatVector.fromArray(SPECIES, source, sourceIndex + offset)).intoArray(array, index + offset);
+        }
+        return offset;
+    }
+
+    static int divide(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        int offset = 0;
+        for (final int bound = SPECIES.loopBound(length); offset < bound; offset += LENGTH) {
+            FloatVector.fromArray(SPECIES, array, index + offset)
+                    .div(FloatVector.fromArray(SPECIES, source, sourceIndex + offset)).intoArray(array, index + offset);
+        }
+        return offset;
+    }
+}
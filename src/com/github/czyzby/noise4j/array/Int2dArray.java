@@ -15,6 +15,24 @@ public class Int2dArray extends Array2D {
         array = new int[width * height];
     }
 
+    /** @param array will be wrapped. Its size has to be equal width multiplied by height.
+     * @param width amount of columns.
+     * @param height amount of rows. */
+    public Int2dArray(final int[] array, final int width, final int height) {
+        super(width, height);
+        if (array.length != width * height) {
+            throw new IllegalArgumentException("Array with length: " + array.length
+                    + " is too small or too big to store " + width + " columns and " + height + " rows.");
+        }
+        this.array = array;
+    }
+
+    /** @return direct reference to the stored array.
+     * @see #toIndex(int, int) */
+    public int[] getArray() {
+        return array;
+    }
+
     /** @param x column index.
      * @param y row index.
      * @return cell value with the selected index. */
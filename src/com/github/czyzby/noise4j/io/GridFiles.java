@@ -0,0 +1,447 @@
+package com.github.czyzby.noise4j.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.zip.CRC32;
+
+import com.github.czyzby.noise4j.array.Int2dArray;
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.VirtualGrid;
+import com.github.czyzby.noise4j.map.buffer.BufferGrid;
+
+/** Saves and loads {@link Grid} and {@link Int2dArray} instances in a compact binary format. Each file starts with a
+ * {@link #HEADER_SIZE}-byte header, followed by raw little-endian values in row-major order:
+ *
+ * <pre>
+ * offset  type   content
+ *  0      int    magic number: {@link #MAGIC}
+ *  4      int    format version: {@link #VERSION}
+ *  8      int    element type ID: see {@link ElementType}
+ * 12      int    width (amount of columns)
+ * 16      int    height (amount of rows)
+ * 20      int    reserved, 0
+ * 24      long   CRC32 checksum of the data section
+ * 32      ...    data: width * height values
+ * </pre>
+ *
+ * All values - including header fields - are little-endian. Files are written through {@link FileChannel} with bulk
+ * buffer transfers. Grids can be either read into the heap ({@link #readGrid(File)}) or mapped directly from the file
+ * without reading it ({@link #mapGrid(File, MapMode)}), which allows to open huge maps instantly. Checksum is verified
+ * when the file is fully read; mapped files can be verified manually with {@link #verify(File)}.
+ *
+ * <p>
+ * Not available on GWT.
+ *
+ * @author MJ */
+public class GridFiles {
+    /** Magic number starting each file: "N4JG" in ASCII. */
+    public static final int MAGIC = 0x47344A4E;
+    /** Current version of the format. */
+    public static final int VERSION = 1;
+    /** Size of the file header in bytes. Data section starts at this position. */
+    public static final int HEADER_SIZE = 32;
+    /** Size of the buffer used to transfer data. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** Maximum amount of values mapped at once when reading into the heap. A single mapping cannot exceed 2GB. */
+    private static final int SEGMENT_LENGTH = 1 << 28;
+
+    private GridFiles() {
+    }
+
+    /** @param grid will be saved. Can be any type of grid, including views and virtual grids.
+     * @param file will contain the grid. Overridden if exists.
+     * @throws IOException if unable to write the file. */
+    public static void write(final Grid grid, final File file) throws IOException {
+        final RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            output.setLength(0L);
+            write(grid, output.getChannel());
+        } finally {
+            output.close();
+        }
+    }
+
+    /** @param grid will be saved. Can be any type of grid, including views and virtual grids.
+     * @param channel grid will be written at its current position. The position will point to the end of the grid's
+     *            data after this method returns.
+     * @throws IOException if unable to write the grid. */
+    public static void write(final Grid grid, final FileChannel channel) throws IOException {
+        final long start = channel.position();
+        channel.position(start + HEADER_SIZE);
+        final ByteBuffer buffer = newBuffer();
+        final FloatBuffer values = buffer.asFloatBuffer();
+        final CRC32 checksum = new CRC32();
+        final float[] array = grid instanceof VirtualGrid ? null : grid.getArray();
+        for (int y = 0, width = grid.getWidth(), height = grid.getHeight(); y < height; y++) {
+            for (int x = 0; x < width;) {
+                final int length = Math.min(values.remaining(), width - x);
+                if (array == null) {
+                    for (int index = 0; index < length; index++) {
+                        values.put(grid.get(x + index, y));
+                    }
+                } else {
+                    values.put(array, grid.toIndex(x, y), length);
+                }
+                x += length;
+                if (!values.hasRemaining()) {
+                    flush(channel, buffer, values.position() * 4, checksum);
+                    values.clear();
+                }
+            }
+        }
+        flush(channel, buffer, values.position() * 4, checksum);
+        writeHeader(channel, start, ElementType.FLOAT, grid.getWidth(), grid.getHeight(), checksum.getValue());
+    }
+
+    /** @param array will be saved.
+     * @param file will contain the array. Overridden if exists.
+     * @throws IOException if unable to write the file. */
+    public static void write(final Int2dArray array, final File file) throws IOException {
+        final RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            output.setLength(0L);
+            write(array, output.getChannel());
+        } finally {
+            output.close();
+        }
+    }
+
+    /** @param array will be saved.
+     * @param channel array will be written at its current position. The position will point to the end of the
+     *            array's data after this method returns.
+     * @throws IOException if unable to write the array. */
+    public static void write(final Int2dArray array, final FileChannel channel) throws IOException {
+        final long start = channel.position();
+        channel.position(start + HEADER_SIZE);
+        final ByteBuffer buffer = newBuffer();
+        final IntBuffer values = buffer.asIntBuffer();
+        final CRC32 checksum = new CRC32();
+        final int[] data = array.getArray();
+        for (int index = 0, length = data.length; index < length;) {
+            final int transferred = Math.min(values.remaining(), length - index);
+            values.put(data, index, transferred);
+            index += transferred;
+            flush(channel, buffer, values.position() * 4, checksum);
+            values.clear();
+        }
+        writeHeader(channel, start, ElementType.INT, array.getWidth(), array.getHeight(), checksum.getValue());
+    }
+
+    /** @param file contains a saved grid.
+     * @return a new array-backed grid with values read from the file.
+     * @throws IOException if unable to read the file, if it does not contain a grid, if the grid is too large to be
+     *             stored in a heap array or if the checksum is invalid. */
+    public static Grid readGrid(final File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = input.getChannel();
+            final Header header = readHeader(channel, 0L);
+            header.validateType(ElementType.FLOAT);
+            final float[] array = new float[header.getArrayLength()];
+            header.validateChecksum(readData(channel, array, null));
+            return new Grid(array, header.getWidth(), header.getHeight());
+        } finally {
+            input.close();
+        }
+    }
+
+    /** @param file contains a saved array.
+     * @return a new array with values read from the file.
+     * @throws IOException if unable to read the file, if it does not contain an int array, if the array is too large
+     *             to be stored in a heap array or if the checksum is invalid. */
+    public static Int2dArray readInt2dArray(final File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = input.getChannel();
+            final Header header = readHeader(channel, 0L);
+            header.validateType(ElementType.INT);
+            final int[] array = new int[header.getArrayLength()];
+            header.validateChecksum(readData(channel, null, array));
+            return new Int2dArray(array, header.getWidth(), header.getHeight());
+        } finally {
+            input.close();
+        }
+    }
+
+    /** Maps the grid directly from the file. The file is not read: its pages are loaded by the operating system when
+     * accessed. Checksum is not verified - see {@link #verify(File)}.
+     *
+     * @param file contains a saved grid.
+     * @param mode {@link MapMode#READ_ONLY} for read-only access, {@link MapMode#READ_WRITE} to save all grid changes
+     *            directly in the file, {@link MapMode#PRIVATE} to modify the values in memory only. Note that changing
+     *            values of the grid mapped in {@link MapMode#READ_WRITE} mode invalidates the checksum. Both modes
+     *            other than {@link MapMode#READ_ONLY} require write access to the file.
+     * @return a new grid with values mapped from the file. The mapping remains valid after the file is closed. The
+     *         file should not be truncated or overridden while the grid is in use.
+     * @throws IOException if unable to map the file or if it does not contain a grid. */
+    public static BufferGrid mapGrid(final File file, final MapMode mode) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, mode == MapMode.READ_ONLY ? "r" : "rw");
+        try {
+            final FileChannel channel = input.getChannel();
+            final Header header = readHeader(channel, 0L);
+            header.validateType(ElementType.FLOAT);
+            return BufferGrid.map(channel, mode, HEADER_SIZE, header.getWidth(), header.getHeight());
+        } finally {
+            input.close();
+        }
+    }
+
+    /** @param file contains a saved grid or array.
+     * @return header of the file.
+     * @throws IOException if unable to read the file or if it is not in the expected format. */
+    public static Header readHeader(final File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            return readHeader(input.getChannel(), 0L);
+        } finally {
+            input.close();
+        }
+    }
+
+    /** @param channel contains a saved grid or array.
+     * @param position position of the header in the channel.
+     * @return header read from the channel.
+     * @throws IOException if unable to read the header or if it is not in the expected format. */
+    public static Header readHeader(final FileChannel channel, final long position) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file: unable to read the header.");
+            }
+        }
+        buffer.flip();
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a grid file: invalid magic number.");
+        }
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported grid file version: " + version);
+        }
+        final ElementType type = ElementType.getById(buffer.getInt());
+        final int width = buffer.getInt();
+        final int height = buffer.getInt();
+        buffer.getInt(); // Reserved.
+        final long checksum = buffer.getLong();
+        final Header header = new Header(type, width, height, checksum);
+        if (width < 0 || height < 0 || channel.size() < position + HEADER_SIZE + header.getDataSize()) {
+            throw new IOException("Grid file is corrupted: data section does not match grid size.");
+        }
+        return header;
+    }
+
+    /** Reads the whole data section of the file and validates its checksum.
+     *
+     * @param file contains a saved grid or array.
+     * @return true if the checksum stored in the header matches the data.
+     * @throws IOException if unable to read the file or if it is not in the expected format. */
+    public static boolean verify(final File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = input.getChannel();
+            final Header header = readHeader(channel, 0L);
+            final CRC32 checksum = new CRC32();
+            final ByteBuffer buffer = newBuffer();
+            for (long position = HEADER_SIZE, end = HEADER_SIZE + header.getDataSize(); position < end;) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                final int read = channel.read(buffer, position);
+                if (read < 0) {
+                    return false;
+                }
+                checksum.update(buffer.array(), 0, read);
+                position += read;
+            }
+            return checksum.getValue() == header.getChecksum();
+        } finally {
+            input.close();
+        }
+    }
+
+    private static ByteBuffer newBuffer() {
+        return ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** @param channel will receive the data.
+     * @param buffer heap buffer with the data.
+     * @param length amount of bytes to write.
+     * @param checksum will be updated with the data. */
+    private static void flush(final FileChannel channel, final ByteBuffer buffer, final int length,
+            final CRC32 checksum) throws IOException {
+        checksum.update(buffer.array(), 0, length);
+        buffer.position(0).limit(length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void writeHeader(final FileChannel channel, final long position, final ElementType type,
+            final int width, final int height, final long checksum) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(type.getId()).putInt(width).putInt(height).putInt(0)
+                .putLong(checksum);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, position + header.position());
+        }
+    }
+
+    /** @param data will be fully read.
+     * @return CRC32 checksum of the data. */
+    /** Maps the data section in segments and transfers its values to the array with bulk operations.
+     *
+     * @param channel contains a saved grid or array.
+     * @param floats will contain the float values. If null, int values are read.
+     * @param ints will contain the int values if floats are null.
+     * @return checksum of the data section.
+     * @throws IOException if unable to map the file. */
+    private static long readData(final FileChannel channel, final float[] floats, final int[] ints)
+            throws IOException {
+        final CRC32 checksum = new CRC32();
+        final byte[] chunk = new byte[BUFFER_SIZE];
+        for (int offset = 0, length = floats == null ? ints.length : floats.length; offset < length;
+                offset += SEGMENT_LENGTH) {
+            final int values = Math.min(SEGMENT_LENGTH, length - offset);
+            final MappedByteBuffer data = channel.map(MapMode.READ_ONLY, HEADER_SIZE + offset * 4L, values * 4L);
+            final ByteBuffer source = data.duplicate();
+            while (source.hasRemaining()) {
+                final int chunkLength = Math.min(chunk.length, source.remaining());
+                source.get(chunk, 0, chunkLength);
+                checksum.update(chunk, 0, chunkLength);
+            }
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            if (floats == null) {
+                data.asIntBuffer().get(ints, offset, values); // Bulk transfer.
+            } else {
+                data.asFloatBuffer().get(floats, offset, values);
+            }
+        }
+        return checksum.getValue();
+    }
+
+    /** Types of values stored in the files.
+     *
+     * @author MJ */
+    public static enum ElementType {
+        /** 32-bit floats. Used by {@link Grid}. */
+        FLOAT(1, 4),
+        /** 32-bit ints. Used by {@link Int2dArray}. */
+        INT(2, 4);
+
+        private final int id;
+        private final int size;
+
+        private ElementType(final int id, final int size) {
+            this.id = id;
+            this.size = size;
+        }
+
+        /** @return ID of the type stored in the header. */
+        public int getId() {
+            return id;
+        }
+
+        /** @return size of a single value in bytes. */
+        public int getSize() {
+            return size;
+        }
+
+        /** @param id ID of the type stored in the header.
+         * @return type with the selected ID.
+         * @throws IOException if the ID is unknown. */
+        public static ElementType getById(final int id) throws IOException {
+            for (final ElementType type : values()) {
+                if (type.id == id) {
+                    return type;
+                }
+            }
+            throw new IOException("Unknown element type: " + id);
+        }
+    }
+
+    /** Contains data stored in the header of a file.
+     *
+     * @author MJ */
+    public static class Header {
+        private final ElementType type;
+        private final int width, height;
+        private final long checksum;
+
+        /** @param type type of stored values.
+         * @param width amount of columns.
+         * @param height amount of rows.
+         * @param checksum CRC32 checksum of the data section. */
+        public Header(final ElementType type, final int width, final int height, final long checksum) {
+            this.type = type;
+            this.width = width;
+            this.height = height;
+            this.checksum = checksum;
+        }
+
+        /** @return type of stored values. */
+        public ElementType getType() {
+            return type;
+        }
+
+        /** @return amount of columns. */
+        public int getWidth() {
+            return width;
+        }
+
+        /** @return amount of rows. */
+        public int getHeight() {
+            return height;
+        }
+
+        /** @return CRC32 checksum of the data section. */
+        public long getChecksum() {
+            return checksum;
+        }
+
+        /** @return amount of stored values: width multiplied by height. Might exceed {@link Integer#MAX_VALUE}. */
+        public long getLength() {
+            return (long) width * height;
+        }
+
+        /** @return size of the data section in bytes. */
+        public long getDataSize() {
+            return getLength() * type.getSize();
+        }
+
+        /** @return {@link #getLength()} as an int.
+         * @throws IOException if the values cannot be stored in a single heap array. */
+        private int getArrayLength() throws IOException {
+            final long length = getLength();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Grid of " + width + "x" + height
+                        + " cells is too large for a heap array; use mapGrid.");
+            }
+            return (int) length;
+        }
+
+        private void validateType(final ElementType expected) throws IOException {
+            if (type != expected) {
+                throw new IOException("Expected a file with " + expected + " values, found: " + type);
+            }
+        }
+
+        private void validateChecksum(final long actual) throws IOException {
+            if (actual != checksum) {
+                throw new IOException("Grid file is corrupted: invalid checksum.");
+            }
+        }
+
+        @Override // Auto-generated.
+        public String toString() {
+            return "Header [type=" + type + ", width=" + width + ", height=" + height + ", checksum=" + checksum + "]";
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.github.czyzby.noise4j.map;
+
+import java.util.Arrays;
+
+import com.github.czyzby.noise4j.array.Array2D;
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+
+/** A 2D map of boolean values, packed into 64-bit words: each cell uses a single bit instead of a 32-bit float. Ideal
+ * for maps that are really boolean - like caves produced by cellular automata (alive or dead cells) or dungeon wall
+ * masks - which would otherwise be compared against a marker or threshold value each time they are accessed.
+ *
+ * <p>
+ * Each row starts at a new word, so rows can be processed independently: cell (x, y) is stored in the bit
+ * {@code x % 64} (starting with the least significant bit) of the word with
+ * {@code y * getWordsPerRow() + x / 64} index. Unused bits of the last word in each row are always cleared, so
+ * word-level operations (like {@link #count()} or {@link #not()}) can safely process whole words. Since row bands never
+ * share words, rows can also be processed by multiple threads - see {@link #setExecutor(GridExecutor)}.
+ *
+ * @author MJ
+ * @see #threshold(Grid, float) */
+public class BitGrid extends Array2D {
+    private static final int WORD_BITS = 64;
+    private static final int WORD_SHIFT = 6;
+    private static final int BIT_MASK = WORD_BITS - 1;
+
+    private final int wordsPerRow;
+    private final long lastWordMask;
+    private final long[] words;
+    private GridExecutor executor;
+
+    /** @param size amount of columns and rows. */
+    public BitGrid(final int size) {
+        this(size, size);
+    }
+
+    /** @param width amount of columns.
+     * @param height amount of rows. */
+    public BitGrid(final int width, final int height) {
+        this(new long[getWordsPerRow(width) * height], width, height);
+    }
+
+    /** @param words will be wrapped. Its length has to be equal {@link #getWordsPerRow(int)} multiplied by height.
+     *            Unused bits of the last word in each row have to be cleared.
+     * @param width amount of columns.
+     * @param height amount of rows. */
+    public BitGrid(final long[] words, final int width, final int height) {
+        super(width, height);
+        wordsPerRow = getWordsPerRow(width);
+        if (words.length != wordsPerRow * height) {
+            throw new IllegalArgumentException("Array with length: " + words.length
+                    + " is too small or too big to store " + width + " columns and " + height + " rows.");
+        }
+        final int usedBits = width & BIT_MASK;
+        lastWordMask = usedBits == 0 ? -1L : (1L << usedBits) - 1L;
+        this.words = words;
+    }
+
+    /** @param width amount of columns.
+     * @return amount of words used to store a single row. */
+    public static int getWordsPerRow(final int width) {
+        return (width + BIT_MASK) >>> WORD_SHIFT;
+    }
+
+    /** @param grid will be converted.
+     * @param threshold cells equal to or greater than this value will be set to true.
+     * @return a new bit grid with the same size as the passed grid. */
+    public static BitGrid threshold(final Grid grid, final float threshold) {
+        final BitGrid bits = new BitGrid(grid.getWidth(), grid.getHeight());
+        bits.setExecutor(grid.getExecutor());
+        bits.set(grid, threshold);
+        return bits;
+    }
+
+    /** @return used to execute row-based operations - like grid conversions or cellular automata iterations. If null,
+     *         rows are processed on the current thread. */
+    public GridExecutor getExecutor() {
+        return executor;
+    }
+
+    /** @param executor will be used to execute row-based operations - like grid conversions or cellular automata
+     *            iterations. If null, rows are processed on the current thread. Results of the operations do not
+     *            depend on the executor.
+     * @see Grid#setExecutor(GridExecutor) */
+    public void setExecutor(final GridExecutor executor) {
+        this.executor = executor;
+    }
+
+    /** @param task will process all rows of the grid, using the current {@link #getExecutor()} if set. Returns after
+     *            all rows are processed. */
+    public void execute(final RowTask task) {
+        if (executor == null) {
+            task.process(0, height);
+        } else {
+            executor.execute(width, height, task);
+        }
+    }
+
+    /** @return direct reference to the stored words.
+     * @see #toWordIndex(int, int) */
+    public long[] getWords() {
+        return words;
+    }
+
+    /** @return amount of words used to store a single row. */
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /** @return mask of the used bits of the last word in each row. */
+    public long getLastWordMask() {
+        return lastWordMask;
+    }
+
+    /** @param x column index.
+     * @param y row index.
+     * @return index of the word storing the selected cell. */
+    public int toWordIndex(final int x, final int y) {
+        return y * wordsPerRow + (x >>> WORD_SHIFT);
+    }
+
+    /** @param x column index.
+     * @param y row index.
+     * @return value of the selected cell. */
+    public boolean get(final int x, final int y) {
+        return (words[toWordIndex(x, y)] & 1L << x) != 0L;
+    }
+
+    /** @param x column index.
+     * @param y row index.
+     * @param value will become the value of the selected cell. */
+    public void set(final int x, final int y, final boolean value) {
+        if (value) {
+            words[toWordIndex(x, y)] |= 1L << x;
+        } else {
+            words[toWordIndex(x, y)] &= ~(1L << x);
+        }
+    }
+
+    /** @param x column index.
+     * @param y row index.
+     * @return new value of the selected cell. */
+    public boolean flip(final int x, final int y) {
+        final int index = toWordIndex(x, y);
+        words[index] ^= 1L << x;
+        return (words[index] & 1L << x) != 0L;
+    }
+
+    /** @param value will become the value of all cells.
+     * @return this, for chaining. */
+    public BitGrid set(final boolean value) {
+        if (value) {
+            Arrays.fill(words, -1L);
+            clearUnusedBits();
+        } else {
+            Arrays.fill(words, 0L);
+        }
+        return this;
+    }
+
+    /** @param bits its values will be copied. Has to have the same size.
+     * @return this, for chaining. */
+    public BitGrid set(final BitGrid bits) {
+        validateSize(bits);
+        System.arraycopy(bits.words, 0, words, 0, words.length);
+        return this;
+    }
+
+    /** @param grid will be converted. Has to have the same size.
+     * @param threshold cells equal to or greater than this value will be set to true; the others are set to false.
+     * @return this, for chaining. */
+    public BitGrid set(final Grid grid, final float threshold) {
+        validateSize(grid);
+        if (grid instanceof VirtualGrid) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    set(x, y, grid.get(x, y) >= threshold);
+                }
+            }
+            return this;
+        }
+        final float[] array = grid.getArray();
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY, wordIndex = fromY * wordsPerRow; y < toY; y++) {
+                    for (int fromX = 0, index = grid.toIndex(0, y); fromX < width; fromX += WORD_BITS, wordIndex++) {
+                        long word = 0L;
+                        for (int bit = 0, bits = Math.min(WORD_BITS, width - fromX); bit < bits; bit++, index++) {
+                            if (array[index] >= threshold) {
+                                word |= 1L << bit;
+                            }
+                        }
+                        words[wordIndex] = word;
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    /** @param grid will contain converted values. Has to have the same size.
+     * @param falseValue value of cells set to false.
+     * @param trueValue value of cells set to true.
+     * @return passed grid, for chaining. */
+    public Grid toGrid(final Grid grid, final float falseValue, final float trueValue) {
+        validateSize(grid);
+        if (grid instanceof VirtualGrid) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    grid.set(x, y, get(x, y) ? trueValue : falseValue);
+                }
+            }
+            return grid;
+        }
+        final float[] array = grid.getArray();
+        grid.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY, wordIndex = fromY * wordsPerRow; y < toY; y++) {
+                    for (int fromX = 0, index = grid.toIndex(0, y); fromX < width; fromX += WORD_BITS, wordIndex++) {
+                        final long word = words[wordIndex];
+                        for (int bit = 0, bits = Math.min(WORD_BITS, width - fromX); bit < bits; bit++, index++) {
+                            array[index] = (word & 1L << bit) == 0L ? falseValue : trueValue;
+                        }
+                    }
+                }
+            }
+        });
+        return grid;
+    }
+
+    /** @return a new grid with the same size and executor. Cells set to true have value of 1, the others are 0. */
+    public Grid toGrid() {
+        final Grid grid = new Grid(width, height);
+        grid.setExecutor(executor);
+        return toGrid(grid, 0f, 1f);
+    }
+
+    /** @param bits will be combined with this grid with a logical AND. Has to have the same size.
+     * @return this, for chaining. */
+    public BitGrid and(final BitGrid bits) {
+        validateSize(bits);
+        final long[] source = bits.words;
+        for (int index = 0, length = words.length; index < length; index++) {
+            words[index] &= source[index];
+        }
+        return this;
+    }
+
+    /** @param bits will be combined with this grid with a logical OR. Has to have the same size.
+     * @return this, for chaining. */
+    public BitGrid or(final BitGrid bits) {
+        validateSize(bits);
+        final long[] source = bits.words;
+        for (int index = 0, length = words.length; index < length; index++) {
+            words[index] |= source[index];
+        }
+        return this;
+    }
+
+    /** @param bits will be combined with this grid with a logical XOR. Has to have the same size.
+     * @return this, for chaining. */
+    public BitGrid xor(final BitGrid bits) {
+        validateSize(bits);
+        final long[] source = bits.words;
+        for (int index = 0, length = words.length; index < length; index++) {
+            words[index] ^= source[index];
+        }
+        return this;
+    }
+
+    /** @param bits cells set to true in this grid will be cleared in this grid. Has to have the same size.
+     * @return this, for chaining. */
+    public BitGrid andNot(final BitGrid bits) {
+        validateSize(bits);
+        final long[] source = bits.words;
+        for (int index = 0, length = words.length; index < length; index++) {
+            words[index] &= ~source[index];
+        }
+        return this;
+    }
+
+    /** Negates all cells.
+     *
+     * @return this, for chaining. */
+    public BitGrid not() {
+        for (int index = 0, length = words.length; index < length; index++) {
+            words[index] = ~words[index];
+        }
+        clearUnusedBits();
+        return this;
+    }
+
+    /** @return amount of cells set to true. */
+    public int count() {
+        int count = 0;
+        for (final long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /** @param bits will be compared with this grid. Has to have the same size.
+     * @return amount of cells with different values in both grids. */
+    public int countDifferences(final BitGrid bits) {
+        validateSize(bits);
+        final long[] source = bits.words;
+        int count = 0;
+        for (int index = 0, length = words.length; index < length; index++) {
+            count += Long.bitCount(words[index] ^ source[index]);
+        }
+        return count;
+    }
+
+    /** @return a new bit grid with the same size, values and executor. */
+    public BitGrid copy() {
+        final BitGrid copy = new BitGrid(words.clone(), width, height);
+        copy.setExecutor(executor);
+        return copy;
+    }
+
+    /** Clears unused bits of the last word in each row. Should be called after modifying the words directly, if the
+     * modification might have set the unused bits. */
+    public void clearUnusedBits() {
+        if (lastWordMask != -1L) {
+            for (int index = wordsPerRow - 1, length = words.length; index < length; index += wordsPerRow) {
+                words[index] &= lastWordMask;
+            }
+        }
+    }
+
+    private void validateSize(final Array2D array) {
+        if (array.getWidth() != width || array.getHeight() != height) {
+            throw new IllegalArgumentException("Expected a " + width + "x" + height + " array, received: "
+                    + array.getWidth() + "x" + array.getHeight());
+        }
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (object == this) {
+            return true;
+        } else if (!(object instanceof BitGrid)) {
+            return false;
+        }
+        final BitGrid bits = (BitGrid) object;
+        return bits.width == width && bits.height == height && Arrays.equals(bits.words, words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words) * 31 + width;
+    }
+}
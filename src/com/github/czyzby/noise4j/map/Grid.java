@@ -3,12 +3,25 @@ package com.github.czyzby.noise4j.map;
 import java.util.Arrays;
 
 import com.github.czyzby.noise4j.array.Array2D;
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+import com.github.czyzby.noise4j.map.generator.Generator.GenerationMode;
 
 /** A float array wrapper. Allows to use a single 1D float array as a 2D array.
+ *
+ * <p>
+ * Rows do not have to be stored next to each other: the first cell is stored at {@link #getOffset()} index of the
+ * array and each row starts {@link #getStride()} cells after the previous one. By default, offset is 0 and stride is
+ * equal to the width of the grid; {@link GridView} uses these values to represent a part of another grid without
+ * copying it. Always use {@link #toIndex(int, int)} to convert cell coordinates to array indexes.
  *
  * @author MJ */
 public class Grid extends Array2D {
     private final float[] grid;
+    /** Array index of the first cell. */
+    protected final int offset;
+    /** Distance between array indexes of the first cells of two consecutive rows. */
+    protected final int stride;
+    private GridExecutor executor;
 
     /** @param size amount of columns and rows. */
     public Grid(final int size) {
@@ -35,13 +48,102 @@ public class Grid extends Array2D {
     public Grid(final float[] grid, final int width, final int height) {
         super(width, height);
         this.grid = grid;
+        offset = 0;
+        stride = width;
         if (grid.length != width * height) {
             throw new IllegalArgumentException("Array with length: " + grid.length
                     + " is too small or too big to store a grid with " + width + " columns and " + height + " rows.");
         }
     }
 
-    /** @return direct reference to the stored array. Use in extreme cases, try to use getters instead. */
+    /** @param grid array that will internally used by the grid. Has to be able to store all rows.
+     * @param offset index of the first cell in the array.
+     * @param stride distance between indexes of the first cells of two consecutive rows. Cannot be lower than width.
+     * @param width amount of columns.
+     * @param height amount of rows.
+     * @see GridView */
+    protected Grid(final float[] grid, final int offset, final int stride, final int width, final int height) {
+        super(width, height);
+        this.grid = grid;
+        this.offset = offset;
+        this.stride = stride;
+        if (offset < 0 || stride < width || height > 0 && offset + (long) (height - 1) * stride + width > grid.length) {
+            throw new IllegalArgumentException("Array with length: " + grid.length + " cannot store a grid with "
+                    + width + " columns and " + height + " rows at offset: " + offset + " with stride: " + stride);
+        }
+    }
+
+    /** @param width amount of columns.
+     * @param height amount of rows.
+     * @param arrayBacked if false, the grid will not allocate the internal array. Used by {@link VirtualGrid}, which
+     *            overrides all methods that depend on the array. */
+    Grid(final int width, final int height, final boolean arrayBacked) {
+        super(width, height);
+        grid = arrayBacked ? new float[width * height] : null;
+        offset = 0;
+        stride = width;
+    }
+
+    /** @return array index of the first cell. */
+    public int getOffset() {
+        return offset;
+    }
+
+    /** @return distance between array indexes of the first cells of two consecutive rows. */
+    public int getStride() {
+        return stride;
+    }
+
+    @Override
+    public int toIndex(final int x, final int y) {
+        return offset + x + y * stride;
+    }
+
+    @Override
+    public int toX(final int index) {
+        return (index - offset) % stride;
+    }
+
+    @Override
+    public int toY(final int index) {
+        return (index - offset) / stride;
+    }
+
+    /** @param x column index of the first cell of the view.
+     * @param y row index of the first cell of the view.
+     * @param width amount of columns of the view.
+     * @param height amount of rows of the view.
+     * @return a new {@link GridView} representing a rectangle of this grid. Does not copy any values. */
+    public GridView view(final int x, final int y, final int width, final int height) {
+        return new GridView(this, x, y, width, height);
+    }
+
+    /** @return executes whole-grid operations. Null if operations are processed sequentially on the current thread. */
+    public GridExecutor getExecutor() {
+        return executor;
+    }
+
+    /** @param executor will be used to execute whole-grid operations, like {@link #add(float)} or
+     *            {@link #multiply(Grid)}. Null by default, which makes the grid process all cells sequentially on the
+     *            current thread. Results of the operations do not depend on the executor.
+     * @see com.github.czyzby.noise4j.map.concurrent.ForkJoinGridExecutor */
+    public void setExecutor(final GridExecutor executor) {
+        this.executor = executor;
+    }
+
+    /** @param task will process all rows of the grid, using the current {@link #getExecutor()} if set. Returns after
+     *            all rows are processed. */
+    public void execute(final RowTask task) {
+        if (executor == null) {
+            task.process(0, height);
+        } else {
+            executor.execute(width, height, task);
+        }
+    }
+
+    /** @return direct reference to the stored array. Use in extreme cases, try to use getters instead. Note that the
+     *         array might store values of other grids (see {@link GridView}): use {@link #toIndex(int, int)} to find
+     *         cells. */
     public float[] getArray() {
         return grid;
     }
@@ -105,7 +207,7 @@ public class Grid extends Array2D {
      *
      * @param cellConsumer will consume each cell. If returns true, further iteration will be cancelled. */
     public void forEach(final CellConsumer cellConsumer) {
-        iterate(cellConsumer, 0, grid.length);
+        iterate(cellConsumer, offset, toIndex(0, height));
     }
 
     /** Iterates over the grid from a starting point.
@@ -114,10 +216,10 @@ public class Grid extends Array2D {
      * @param fromX first cell column index. Min is 0.
      * @param fromY first cell row index. Min is 0. */
     public void forEach(final CellConsumer cellConsumer, final int fromX, final int fromY) {
-        iterate(cellConsumer, toIndex(fromX, fromY), grid.length);
+        iterate(cellConsumer, toIndex(fromX, fromY), toIndex(0, height));
     }
 
-    /** Iterates over chosen cells range in the grid.
+    /** Iterates over chosen cells rectangle in the grid, row by row.
      *
      * @param cellConsumer will consume each cell. If returns true, further iteration will be cancelled.
      * @param fromX first cell column index. Min is 0.
@@ -126,15 +228,53 @@ public class Grid extends Array2D {
      * @param toY last cell row index (excluded). Max is {@link #getHeight()}. */
     public void forEach(final CellConsumer cellConsumer, final int fromX, final int fromY, final int toX,
             final int toY) {
-        iterate(cellConsumer, toIndex(fromX, fromY), toIndex(toX, toY));
+        for (int y = fromY; y < toY; y++) {
+            for (int x = fromX, index = toIndex(fromX, y); x < toX; x++, index++) {
+                if (cellConsumer.consume(this, x, y, grid[index])) {
+                    return;
+                }
+            }
+        }
     }
 
     /** @param cellConsumer will consume each cell. If returns true, further iteration will be cancelled.
-     * @param fromIndex actual array index, begins the iteration. Min i 0.
-     * @param toIndex actual array index (excluded); iterations ends with this value -1. Max is length of array. */
+     * @param fromIndex actual array index, begins the iteration. Min is {@link #getOffset()}.
+     * @param toIndex actual array index (excluded); iterations ends with the last cell before this index. Max is
+     *            index of the first cell of the row after the last one: {@code toIndex(0, getHeight())}. */
     protected void iterate(final CellConsumer cellConsumer, final int fromIndex, final int toIndex) {
+        // Coordinates are tracked rather than computed for each cell to avoid division:
+        int x = toX(fromIndex);
+        int y = toY(fromIndex);
         for (int index = fromIndex; index < toIndex; index++) {
-            if (cellConsumer.consume(this, toX(index), toY(index), grid[index])) {
+            if (cellConsumer.consume(this, x, y, grid[index])) {
+                break;
+            }
+            if (++x == width) {
+                x = 0;
+                y++;
+                index += stride - width; // Skipping cells that do not belong to the grid.
+            }
+        }
+    }
+
+    /** Iterates over the whole grid, row by row.
+     *
+     * @param rowConsumer will consume each row. If returns true, further iteration will be cancelled. */
+    public void forEachRow(final RowConsumer rowConsumer) {
+        forEachRow(rowConsumer, 0, 0, width, height);
+    }
+
+    /** Iterates over a rectangle of the grid, row by row.
+     *
+     * @param rowConsumer will consume each row of the rectangle. If returns true, further iteration will be cancelled.
+     * @param fromX first cell column index. Min is 0.
+     * @param fromY first cell row index. Min is 0.
+     * @param toX last cell column index (excluded). Max is {@link #getWidth()}.
+     * @param toY last cell row index (excluded). Max is {@link #getHeight()}. */
+    public void forEachRow(final RowConsumer rowConsumer, final int fromX, final int fromY, final int toX,
+            final int toY) {
+        for (int y = fromY; y < toY; y++) {
+            if (rowConsumer.consume(this, y, fromX, toX, toIndex(fromX, y))) {
                 break;
             }
         }
@@ -143,39 +283,113 @@ public class Grid extends Array2D {
     /** @param grid its values will replace this grid's values. */
     public void set(final Grid grid) {
         validateGrid(grid);
-        System.arraycopy(grid.grid, 0, this.grid, 0, this.grid.length);
+        if (grid.grid == null) {
+            combine(grid, GenerationMode.REPLACE);
+            return;
+        }
+        final float[] source = grid.grid;
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    System.arraycopy(source, grid.toIndex(0, y), Grid.this.grid, toIndex(0, y), width);
+                }
+            }
+        });
     }
 
     /** @param grid its values will be added to this grid's values. */
     public void add(final Grid grid) {
         validateGrid(grid);
-        for (int index = 0, length = this.grid.length; index < length; index++) {
-            this.grid[index] += grid.grid[index];
+        if (grid.grid == null) {
+            combine(grid, GenerationMode.ADD);
+            return;
         }
+        final float[] source = grid.grid;
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final float[] array = Grid.this.grid;
+                for (int y = fromY; y < toY; y++) {
+                    GridKernels.add(array, toIndex(0, y), source, grid.toIndex(0, y), width);
+                }
+            }
+        });
     }
 
     /** @param grid its values will be subtracted from this grid's values. */
     public void subtract(final Grid grid) {
         validateGrid(grid);
-        for (int index = 0, length = this.grid.length; index < length; index++) {
-            this.grid[index] -= grid.grid[index];
+        if (grid.grid == null) {
+            combine(grid, GenerationMode.SUBTRACT);
+            return;
         }
+        final float[] source = grid.grid;
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final float[] array = Grid.this.grid;
+                for (int y = fromY; y < toY; y++) {
+                    GridKernels.subtract(array, toIndex(0, y), source, grid.toIndex(0, y), width);
+                }
+            }
+        });
     }
 
     /** @param grid its values will multiply this grid's values. */
     public void multiply(final Grid grid) {
         validateGrid(grid);
-        for (int index = 0, length = this.grid.length; index < length; index++) {
-            this.grid[index] *= grid.grid[index];
+        if (grid.grid == null) {
+            combine(grid, GenerationMode.MULTIPLY);
+            return;
         }
+        final float[] source = grid.grid;
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final float[] array = Grid.this.grid;
+                for (int y = fromY; y < toY; y++) {
+                    GridKernels.multiply(array, toIndex(0, y), source, grid.toIndex(0, y), width);
+                }
+            }
+        });
     }
 
     /** @param grid its values will be used to divide this grid's values. */
     public void divide(final Grid grid) {
         validateGrid(grid);
-        for (int index = 0, length = this.grid.length; index < length; index++) {
-            this.grid[index] /= grid.grid[index];
+        if (grid.grid == null) {
+            combine(grid, GenerationMode.DIVIDE);
+            return;
         }
+        final float[] source = grid.grid;
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final float[] array = Grid.this.grid;
+                for (int y = fromY; y < toY; y++) {
+                    GridKernels.divide(array, toIndex(0, y), source, grid.toIndex(0, y), width);
+                }
+            }
+        });
+    }
+
+    /** Generic implementation of operations on two grids. Does not depend on the internal arrays, so it works with any
+     * grid implementation.
+     *
+     * @param grid its values will modify this grid's values. Has to have the same size.
+     * @param mode decides how the values modify this grid's cells. */
+    protected void combine(final Grid grid, final GenerationMode mode) {
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int x = 0; x < width; x++) {
+                        mode.modify(Grid.this, x, y, grid.get(x, y));
+                    }
+                }
+            }
+        });
     }
 
     /** @param grid will be validated.
@@ -191,9 +405,16 @@ public class Grid extends Array2D {
      * @param value will be set.
      * @return this, for chaining. */
     public Grid set(final float value) {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            grid[index] = value;
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int index = toIndex(0, y), length = index + width; index < length; index++) {
+                        grid[index] = value;
+                    }
+                }
+            }
+        });
         return this;
     }
 
@@ -235,9 +456,15 @@ public class Grid extends Array2D {
      * @param value will be added.
      * @return this, for chaining. */
     public Grid add(final float value) {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            grid[index] += value;
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    final int index = toIndex(0, y);
+                    GridKernels.add(grid, index, index + width, value);
+                }
+            }
+        });
         return this;
     }
 
@@ -246,9 +473,15 @@ public class Grid extends Array2D {
      * @param value will be subtracted.
      * @return this, for chaining. */
     public Grid subtract(final float value) {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            grid[index] -= value;
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    final int index = toIndex(0, y);
+                    GridKernels.subtract(grid, index, index + width, value);
+                }
+            }
+        });
         return this;
     }
 
@@ -257,9 +490,15 @@ public class Grid extends Array2D {
      * @param value will be used.
      * @return this, for chaining. */
     public Grid multiply(final float value) {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            grid[index] *= value;
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    final int index = toIndex(0, y);
+                    GridKernels.multiply(grid, index, index + width, value);
+                }
+            }
+        });
         return this;
     }
 
@@ -268,9 +507,15 @@ public class Grid extends Array2D {
      * @param value will be used.
      * @return this, for chaining. */
     public Grid divide(final float value) {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            grid[index] /= value;
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    final int index = toIndex(0, y);
+                    GridKernels.divide(grid, index, index + width, value);
+                }
+            }
+        });
         return this;
     }
 
@@ -279,9 +524,16 @@ public class Grid extends Array2D {
      * @param modulo will be used.
      * @return this, for chaining. */
     public Grid modulo(final float modulo) {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            grid[index] %= modulo;
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int index = toIndex(0, y), length = index + width; index < length; index++) {
+                        grid[index] %= modulo;
+                    }
+                }
+            }
+        });
         return this;
     }
 
@@ -289,9 +541,15 @@ public class Grid extends Array2D {
      *
      * @return this, for chaining. */
     public Grid negate() {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            grid[index] = -grid[index];
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    final int index = toIndex(0, y);
+                    GridKernels.negate(grid, index, index + width);
+                }
+            }
+        });
         return this;
     }
 
@@ -299,10 +557,15 @@ public class Grid extends Array2D {
      * @param max all values higher than this value will be converted to this value.
      * @return this, for chaining. */
     public Grid clamp(final float min, final float max) {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            final float value = grid[index];
-            grid[index] = value > max ? max : value < min ? min : value;
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    final int index = toIndex(0, y);
+                    GridKernels.clamp(grid, index, index + width, min, max);
+                }
+            }
+        });
         return this;
     }
 
@@ -310,11 +573,18 @@ public class Grid extends Array2D {
      * @param withValue this value will replace the affected cells.
      * @return this, for chaining. */
     public Grid replace(final float value, final float withValue) {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            if (Float.compare(grid[index], value) == 0) {
-                grid[index] = withValue;
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int index = toIndex(0, y), length = index + width; index < length; index++) {
+                        if (Float.compare(grid[index], value) == 0) {
+                            grid[index] = withValue;
+                        }
+                    }
+                }
             }
-        }
+        });
         return this;
     }
 
@@ -322,9 +592,16 @@ public class Grid extends Array2D {
      *
      * @return this, for chaining. */
     public Grid increment() {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            grid[index]++;
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int index = toIndex(0, y), length = index + width; index < length; index++) {
+                        grid[index]++;
+                    }
+                }
+            }
+        });
         return this;
     }
 
@@ -332,30 +609,82 @@ public class Grid extends Array2D {
      *
      * @return this, for chaining. */
     public Grid decrement() {
-        for (int index = 0, length = grid.length; index < length; index++) {
-            grid[index]--;
-        }
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int index = toIndex(0, y), length = index + width; index < length; index++) {
+                        grid[index]--;
+                    }
+                }
+            }
+        });
         return this;
     }
 
     @Override
     public boolean equals(final Object object) {
-        return object == this || object instanceof Grid && ((Grid) object).width == width // If width is equal
-                && Arrays.equals(((Grid) object).grid, grid); // and arrays are the same size, height is equal.
+        if (object instanceof VirtualGrid) {
+            return object.equals(this); // Virtual grids compare values cell by cell.
+        }
+        if (object == this) {
+            return true;
+        } else if (!(object instanceof Grid)) {
+            return false;
+        }
+        final Grid grid = (Grid) object;
+        if (grid.width != width || grid.height != height) {
+            return false;
+        } else if (isContiguous() && grid.isContiguous()) {
+            return Arrays.equals(grid.grid, this.grid);
+        }
+        for (int y = 0; y < height; y++) {
+            // Same comparison as in Arrays.equals(float[], float[]):
+            for (int index = toIndex(0, y), otherIndex = grid.toIndex(0, y), length = index + width; index < length;
+                    index++, otherIndex++) {
+                if (Float.floatToIntBits(this.grid[index]) != Float.floatToIntBits(grid.grid[otherIndex])) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(grid);
+        if (isContiguous()) {
+            return Arrays.hashCode(grid);
+        }
+        int hashCode = 1; // Same algorithm as in Arrays.hashCode(float[]).
+        for (int y = 0; y < height; y++) {
+            for (int index = toIndex(0, y), length = index + width; index < length; index++) {
+                hashCode = 31 * hashCode + Float.floatToIntBits(grid[index]);
+            }
+        }
+        return hashCode;
+    }
+
+    /** @return true if the array stores only this grid's cells, with no gaps between rows. */
+    private boolean isContiguous() {
+        return offset == 0 && stride == width && grid.length == width * height;
     }
 
     /** {@link #clone()} alternative with casted result. Cloning is not supported on GWT.
      *
-     * @return a new instance of the grid with same size and values. */
+     * @return a new instance of the grid with same size, values and executor. Note that the copy is never a view:
+     *         it stores its values in a new array. */
     public Grid copy() {
-        final float[] copy = new float[grid.length];
-        System.arraycopy(grid, 0, copy, 0, copy.length);
-        return new Grid(copy, width, height);
+        final float[] copy = new float[width * height];
+        if (isContiguous()) {
+            System.arraycopy(grid, 0, copy, 0, copy.length);
+        } else {
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(grid, toIndex(0, y), copy, y * width, width);
+            }
+        }
+        final Grid grid = new Grid(copy, width, height);
+        grid.setExecutor(executor);
+        return grid;
     }
 
     @Override
@@ -376,6 +705,25 @@ public class Grid extends Array2D {
         return logger.toString();
     }
 
+    /** Allows to perform an action on a {@link Grid}'s row span. Unlike {@link CellConsumer}, it is invoked once per
+     * row, which allows to process the cells directly in the array, without computing cell coordinates or indexes.
+     *
+     * @author MJ */
+    public static interface RowConsumer {
+        /** @param grid contains the row.
+         * @param y row index.
+         * @param fromX column index of the first consumed cell in the row.
+         * @param toX column index of the last consumed cell (excluded).
+         * @param offset index of the first consumed cell in {@link Grid#getArray()}; the following cells of the span
+         *            have consecutive indexes. -1 if the grid is not backed by an array (see {@link VirtualGrid}), in
+         *            which case cell getters and setters have to be used.
+         * @return if true and {@link RowConsumer} is used to iterate over the {@link Grid} using an iteration method
+         *         like {@link Grid#forEachRow(RowConsumer)}, further iteration will be cancelled.
+         * @see CellConsumer#BREAK
+         * @see CellConsumer#CONTINUE */
+        public boolean consume(Grid grid, int y, int fromX, int toX, int offset);
+    }
+
     /** Allows to perform an action on {@link Grid}'s cells.
      *
      * @author MJ */
@@ -0,0 +1,29 @@
+package com.github.czyzby.noise4j.map;
+
+/** Allows to execute whole-grid operations in row bands. By default, {@link Grid} processes all rows on the current
+ * thread; setting an executor with {@link Grid#setExecutor(GridExecutor)} allows to split the work - for example,
+ * across multiple threads. Since each row band is processed by the same code as in the sequential mode, results do not
+ * depend on the executor.
+ *
+ * <p>
+ * Implementations should be thread-safe, as a single executor can be shared by multiple grids.
+ *
+ * @author MJ
+ * @see com.github.czyzby.noise4j.map.concurrent.ForkJoinGridExecutor */
+public interface GridExecutor {
+    /** @param width amount of columns. Helps to estimate the cost of processing a single row.
+     * @param height amount of rows.
+     * @param task should process all rows in [0, height) range before this method returns. Each row has to be passed
+     *            to the task exactly once. Rows bands passed to the task must not overlap, but they can be processed in
+     *            any order and concurrently. */
+    void execute(int width, int height, RowTask task);
+
+    /** Processes a band of rows. Can be invoked concurrently with different, non-overlapping row ranges.
+     *
+     * @author MJ */
+    public static interface RowTask {
+        /** @param fromY first processed row index.
+         * @param toY last processed row index (excluded). */
+        void process(int fromY, int toY);
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.czyzby.noise4j.map;
+
+/** Bulk operations on ranges of float arrays, used by {@link Grid} and {@link GridPipeline} to process rows of cells.
+ * The library jar is multi-release: on Java 17+ runtimes this class is replaced with a version using SIMD
+ * instructions through the Vector API, if the {@code jdk.incubator.vector} module is available (for example, if the
+ * application was started with {@code --add-modules jdk.incubator.vector}). This implementation - used on older
+ * runtimes, GWT and when the module is not loaded - relies on plain loops. Both implementations produce the same
+ * results.
+ *
+ * @author MJ */
+public final class GridKernels {
+    private GridKernels() {
+    }
+
+    /** @return true if the operations use the Vector API. */
+    public static boolean isVectorized() {
+        return false;
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param value will be added to the elements. */
+    public static void add(final float[] array, final int from, final int to, final float value) {
+        for (int index = from; index < to; index++) {
+            array[index] += value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param value will be subtracted from the elements. */
+    public static void subtract(final float[] array, final int from, final int to, final float value) {
+        for (int index = from; index < to; index++) {
+            array[index] -= value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param value will multiply the elements. */
+    public static void multiply(final float[] array, final int from, final int to, final float value) {
+        for (int index = from; index < to; index++) {
+            array[index] *= value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param value will divide the elements. */
+    public static void divide(final float[] array, final int from, final int to, final float value) {
+        for (int index = from; index < to; index++) {
+            array[index] /= value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded). */
+    public static void negate(final float[] array, final int from, final int to) {
+        for (int index = from; index < to; index++) {
+            array[index] = -array[index];
+        }
+    }
+
+    /** @param array will be modified.
+     * @param from index of the first element.
+     * @param to index of the last element (excluded).
+     * @param min elements lower than this value will be converted to this value.
+     * @param max elements higher than this value will be converted to this value. */
+    public static void clamp(final float[] array, final int from, final int to, final float min, final float max) {
+        for (int index = from; index < to; index++) {
+            final float value = array[index];
+            array[index] = value > max ? max : value < min ? min : value;
+        }
+    }
+
+    /** @param array will be modified.
+     * @param index index of the first modified element.
+     * @param source its elements will be added to the array.
+     * @param sourceIndex index of the first source element.
+     * @param length amount of processed elements. */
+    public static void add(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        for (int offset = 0; offset < length; offset++) {
+            array[index + offset] += source[sourceIndex + offset];
+        }
+    }
+
+    /** @param array will be modified.
+     * @param index index of the first modified element.
+     * @param source its elements will be subtracted from the array.
+     * @param sourceIndex index of the first source element.
+     * @param length amount of processed elements. */
+    public static void subtract(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        for (int offset = 0; offset < length; offset++) {
+            array[index + offset] -= source[sourceIndex + offset];
+        }
+    }
+
+    /** @param array will be modified.
+     * @param index index of the first modified element.
+     * @param source its elements will multiply the array.
+     * @param sourceIndex index of the first source element.
+     * @param length amount of processed elements. */
+    public static void multiply(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        for (int offset = 0; offset < length; offset++) {
+            array[index + offset] *= source[sourceIndex + offset];
+        }
+    }
+
+    /** @param array will be modified.
+     * @param index index of the first modified element.
+     * @param source its elements will divide the array.
+     * @param sourceIndex index of the first source element.
+     * @param length amount of processed elements. */
+    public static void divide(final float[] array, final int index, final float[] source, final int sourceIndex,
+            final int length) {
+        for (int offset = 0; offset < length; offset++) {
+            array[index + offset] /= source[sourceIndex + offset];
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.github.czyzby.noise4j.map;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+
+/** Records a chain of whole-grid operations and executes them in a single pass over the grid. Chaining regular
+ * {@link Grid} methods - like {@code grid.multiply(mask); grid.add(0.2f).clamp(0f, 1f)} - iterates over the whole
+ * array once per operation; a pipeline loads a small block of cells, applies all operations to the block while it is
+ * still in the processor cache and writes it back, so the grid's memory is processed only once:
+ *
+ * <pre>
+ * new GridPipeline().multiply(mask).add(0.2f).clamp(0f, 1f).modulo(0.5f).apply(grid);
+ * </pre>
+ *
+ * <p>
+ * Results are the same as if the operations were invoked one by one on the grid. Pipelines honor the grid's
+ * {@link Grid#getExecutor()}, so they can be processed in parallel. A pipeline can be reused to process multiple
+ * grids, but it is not thread-safe while being built.
+ *
+ * @author MJ */
+public class GridPipeline {
+    /** Amount of cells loaded and processed at once. */
+    protected static final int BLOCK_SIZE = 512;
+
+    private final List<Operation> operations = new ArrayList<Operation>();
+
+    /** @param operation will be applied after the currently recorded operations.
+     * @return this, for chaining. */
+    public GridPipeline then(final Operation operation) {
+        operations.add(operation);
+        return this;
+    }
+
+    /** @return amount of recorded operations. */
+    public int size() {
+        return operations.size();
+    }
+
+    /** Removes all recorded operations. */
+    public void clear() {
+        operations.clear();
+    }
+
+    /** @param grid all recorded operations will be applied to its cells in a single pass.
+     * @return passed grid, for chaining.
+     * @throws IllegalStateException if sizes of grids used by the operations do not match. */
+    public Grid apply(final Grid grid) {
+        final Operation[] operations = this.operations.toArray(new Operation[this.operations.size()]);
+        for (final Operation operation : operations) {
+            if (operation instanceof GridOperation) {
+                grid.validateGrid(((GridOperation) operation).grid);
+            }
+        }
+        if (operations.length == 0) {
+            return grid;
+        }
+        grid.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final float[] values = new float[BLOCK_SIZE];
+                final float[] buffer = new float[BLOCK_SIZE];
+                final float[] array = grid instanceof VirtualGrid ? null : grid.getArray();
+                final int width = grid.getWidth();
+                for (int y = fromY; y < toY; y++) {
+                    for (int x = 0; x < width; x += BLOCK_SIZE) {
+                        final int length = Math.min(BLOCK_SIZE, width - x);
+                        // Loading cells:
+                        if (array == null) {
+                            for (int index = 0; index < length; index++) {
+                                values[index] = grid.get(x + index, y);
+                            }
+                        } else {
+                            System.arraycopy(array, grid.toIndex(x, y), values, 0, length);
+                        }
+                        for (final Operation operation : operations) {
+                            operation.apply(grid, values, length, x, y, buffer);
+                        }
+                        // Storing cells:
+                        if (array == null) {
+                            for (int index = 0; index < length; index++) {
+                                grid.set(x + index, y, values[index]);
+                            }
+                        } else {
+                            System.arraycopy(values, 0, array, grid.toIndex(x, y), length);
+                        }
+                    }
+                }
+            }
+        });
+        return grid;
+    }
+
+    /** @param value will be added to all cells.
+     * @return this, for chaining.
+     * @see Grid#add(float) */
+    public GridPipeline add(final float value) {
+        return then(new Operation() {
+            @Override
+            public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                    final float[] buffer) {
+                GridKernels.add(values, 0, length, value);
+            }
+        });
+    }
+
+    /** @param value will be subtracted from all cells.
+     * @return this, for chaining.
+     * @see Grid#subtract(float) */
+    public GridPipeline subtract(final float value) {
+        return then(new Operation() {
+            @Override
+            public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                    final float[] buffer) {
+                GridKernels.subtract(values, 0, length, value);
+            }
+        });
+    }
+
+    /** @param value will multiply all cells.
+     * @return this, for chaining.
+     * @see Grid#multiply(float) */
+    public GridPipeline multiply(final float value) {
+        return then(new Operation() {
+            @Override
+            public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                    final float[] buffer) {
+                GridKernels.multiply(values, 0, length, value);
+            }
+        });
+    }
+
+    /** @param value will divide all cells.
+     * @return this, for chaining.
+     * @see Grid#divide(float) */
+    public GridPipeline divide(final float value) {
+        return then(new Operation() {
+            @Override
+            public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                    final float[] buffer) {
+                GridKernels.divide(values, 0, length, value);
+            }
+        });
+    }
+
+    /** @param modulo will be used to perform modulo operation on all cells.
+     * @return this, for chaining.
+     * @see Grid#modulo(float) */
+    public GridPipeline modulo(final float modulo) {
+        return then(new Operation() {
+            @Override
+            public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                    final float[] buffer) {
+                for (int index = 0; index < length; index++) {
+                    values[index] %= modulo;
+                }
+            }
+        });
+    }
+
+    /** @return this, for chaining.
+     * @see Grid#negate() */
+    public GridPipeline negate() {
+        return then(new Operation() {
+            @Override
+            public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                    final float[] buffer) {
+                GridKernels.negate(values, 0, length);
+            }
+        });
+    }
+
+    /** @param min all values lower than this value will be converted to this value.
+     * @param max all values higher than this value will be converted to this value.
+     * @return this, for chaining.
+     * @see Grid#clamp(float, float) */
+    public GridPipeline clamp(final float min, final float max) {
+        return then(new Operation() {
+            @Override
+            public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                    final float[] buffer) {
+                GridKernels.clamp(values, 0, length, min, max);
+            }
+        });
+    }
+
+    /** @param value cells storing this value will be replaced.
+     * @param withValue this value will replace the affected cells.
+     * @return this, for chaining.
+     * @see Grid#replace(float, float) */
+    public GridPipeline replace(final float value, final float withValue) {
+        return then(new Operation() {
+            @Override
+            public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                    final float[] buffer) {
+                for (int index = 0; index < length; index++) {
+                    if (Float.compare(values[index], value) == 0) {
+                        values[index] = withValue;
+                    }
+                }
+            }
+        });
+    }
+
+    /** @param function will be applied to all cells.
+     * @return this, for chaining. */
+    public GridPipeline map(final CellFunction function) {
+        return then(new Operation() {
+            @Override
+            public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                    final float[] buffer) {
+                for (int index = 0; index < length; index++) {
+                    values[index] = function.apply(values[index]);
+                }
+            }
+        });
+    }
+
+    /** @param grid its values will replace the processed grid's values. Has to have the same size.
+     * @return this, for chaining.
+     * @see Grid#set(Grid) */
+    public GridPipeline set(final Grid grid) {
+        return then(new GridOperation(grid) {
+            @Override
+            protected void apply(final float[] values, final float[] operand, final int length) {
+                System.arraycopy(operand, 0, values, 0, length);
+            }
+        });
+    }
+
+    /** @param grid its values will be added to the processed grid's values. Has to have the same size.
+     * @return this, for chaining.
+     * @see Grid#add(Grid) */
+    public GridPipeline add(final Grid grid) {
+        return then(new GridOperation(grid) {
+            @Override
+            protected void apply(final float[] values, final float[] operand, final int length) {
+                GridKernels.add(values, 0, operand, 0, length);
+            }
+        });
+    }
+
+    /** @param grid its values will be subtracted from the processed grid's values. Has to have the same size.
+     * @return this, for chaining.
+     * @see Grid#subtract(Grid) */
+    public GridPipeline subtract(final Grid grid) {
+        return then(new GridOperation(grid) {
+            @Override
+            protected void apply(final float[] values, final float[] operand, final int length) {
+                GridKernels.subtract(values, 0, operand, 0, length);
+            }
+        });
+    }
+
+    /** @param grid its values will multiply the processed grid's values. Has to have the same size.
+     * @return this, for chaining.
+     * @see Grid#multiply(Grid) */
+    public GridPipeline multiply(final Grid grid) {
+        return then(new GridOperation(grid) {
+            @Override
+            protected void apply(final float[] values, final float[] operand, final int length) {
+                GridKernels.multiply(values, 0, operand, 0, length);
+            }
+        });
+    }
+
+    /** @param grid its values will divide the processed grid's values. Has to have the same size.
+     * @return this, for chaining.
+     * @see Grid#divide(Grid) */
+    public GridPipeline divide(final Grid grid) {
+        return then(new GridOperation(grid) {
+            @Override
+            protected void apply(final float[] values, final float[] operand, final int length) {
+                GridKernels.divide(values, 0, operand, 0, length);
+            }
+        });
+    }
+
+    /** A single operation recorded by the {@link GridPipeline}. Processes a block of cells from a single row. Can be
+     * invoked concurrently with different blocks.
+     *
+     * @author MJ */
+    public static interface Operation {
+        /** @param grid processed grid. Its values in the block's range are not up-to-date: use the passed values array.
+         * @param values values of the processed block of cells. Should be modified in place.
+         * @param length amount of cells in the block.
+         * @param x column index of the first cell in the block.
+         * @param y row index of the cells in the block.
+         * @param buffer helper array with the same length as values. Its content is undefined. */
+        void apply(Grid grid, float[] values, int length, int x, int y, float[] buffer);
+    }
+
+    /** Transforms a single cell value.
+     *
+     * @author MJ */
+    public static interface CellFunction {
+        /** @param value current cell value.
+         * @return new cell value. */
+        float apply(float value);
+    }
+
+    /** Base for operations that use values of another grid.
+     *
+     * @author MJ */
+    protected abstract static class GridOperation implements Operation {
+        private final Grid grid;
+
+        /** @param grid its values will be passed to the operation. */
+        public GridOperation(final Grid grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public void apply(final Grid grid, final float[] values, final int length, final int x, final int y,
+                final float[] buffer) {
+            if (this.grid == grid) { // Operating on itself: using current values, as the grid is not updated yet.
+                System.arraycopy(values, 0, buffer, 0, length);
+            } else if (this.grid instanceof VirtualGrid) {
+                for (int index = 0; index < length; index++) {
+                    buffer[index] = this.grid.get(x + index, y);
+                }
+            } else {
+                System.arraycopy(this.grid.getArray(), this.grid.toIndex(x, y), buffer, 0, length);
+            }
+            apply(values, buffer, length);
+        }
+
+        /** @param values values of the processed block of cells. Should be modified in place.
+         * @param operand values of the same cells in the operation's grid.
+         * @param length amount of cells in the block. */
+        protected abstract void apply(float[] values, float[] operand, int length);
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.czyzby.noise4j.map;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.czyzby.noise4j.array.Array2D;
+import com.github.czyzby.noise4j.array.Int2dArray;
+
+/** Stores unused {@link Grid}, {@link BitGrid} and {@link Int2dArray} instances, so they can be reused instead of
+ * allocating new arrays. Used by generators that need temporary storage - for example, cellular automata generator
+ * borrows a grid or a bit grid to keep the previous state of the cells during iterations, while dungeon generator
+ * borrows an int array to store regions.
+ * When generating a lot of maps with the same size, this ensures that generators do not fill the heap with large
+ * short-lived arrays.
+ *
+ * <p>
+ * Instances are grouped by their size and type. Retention is bounded: the pool keeps at most
+ * {@link #getMaxRetainedPerSize()} instances of each size and no more than {@link #getMaxRetainedCells()} cells in
+ * total - bit grids count as the amount of 32-bit values their words occupy. Instances exceeding these limits are
+ * simply left for the garbage collector. Pool is thread-safe.
+ *
+ * @author MJ
+ * @see com.github.czyzby.noise4j.map.generator.util.Generators#getGridPool() */
+public class GridPool {
+    /** Default value of {@link #getMaxRetainedPerSize()}. */
+    public static final int DEFAULT_MAX_RETAINED_PER_SIZE = 4;
+    /** Default value of {@link #getMaxRetainedCells()}: 256MB of floats or ints. Admits a few buffers of 4097x4097
+     * cells - for example, a temporary grid along with an int array of dungeon regions or a summed-area table - so that
+     * even generators of the biggest maps reuse their storage. */
+    public static final long DEFAULT_MAX_RETAINED_CELLS = 64L * 1024L * 1024L;
+
+    // Pool stores only a few instances, so linear search is cheap - and, unlike map keys, does not allocate.
+    private final List<Grid> grids = new ArrayList<Grid>();
+    private final List<Int2dArray> intArrays = new ArrayList<Int2dArray>();
+    private final List<BitGrid> bitGrids = new ArrayList<BitGrid>();
+    private final int maxRetainedPerSize;
+    private final long maxRetainedCells;
+    private long retainedCells;
+
+    /** Creates a pool with default limits. */
+    public GridPool() {
+        this(DEFAULT_MAX_RETAINED_PER_SIZE, DEFAULT_MAX_RETAINED_CELLS);
+    }
+
+    /** @param maxRetainedPerSize maximum amount of stored instances with the same size and type. If 0, pool does not
+     *            store any instances and always creates new ones.
+     * @param maxRetainedCells maximum total amount of cells in all stored instances. */
+    public GridPool(final int maxRetainedPerSize, final long maxRetainedCells) {
+        if (maxRetainedPerSize < 0 || maxRetainedCells < 0L) {
+            throw new IllegalArgumentException("Pool limits cannot be negative.");
+        }
+        this.maxRetainedPerSize = maxRetainedPerSize;
+        this.maxRetainedCells = maxRetainedCells;
+    }
+
+    /** @return maximum amount of stored instances with the same size and type. */
+    public int getMaxRetainedPerSize() {
+        return maxRetainedPerSize;
+    }
+
+    /** @return maximum total amount of cells in all stored instances. */
+    public long getMaxRetainedCells() {
+        return maxRetainedCells;
+    }
+
+    /** @return total amount of cells in currently stored instances. */
+    public synchronized long getRetainedCells() {
+        return retainedCells;
+    }
+
+    /** @param width amount of columns.
+     * @param height amount of rows.
+     * @return a stored grid with the selected size or a new grid, if there are no stored grids. Values of a reused grid
+     *         are not cleared: they should be treated as undefined. Grid does not have an executor. */
+    public Grid obtainGrid(final int width, final int height) {
+        final Grid grid = obtain(grids, width, height);
+        return grid == null ? new Grid(width, height) : grid;
+    }
+
+    /** @param grid no longer used. Will be stored if the limits allow it. Only regular, array-backed {@link Grid}
+     *            instances are stored: other grid types - like views and virtual grids - are ignored. Grid should not
+     *            be used after this call. */
+    public void free(final Grid grid) {
+        if (grid != null && grid.getClass() == Grid.class && grid.getOffset() == 0
+                && grid.getStride() == grid.getWidth()) {
+            grid.setExecutor(null);
+            store(grids, grid);
+        }
+    }
+
+    /** @param width amount of columns.
+     * @param height amount of rows.
+     * @return a stored bit grid with the selected size or a new bit grid, if there are no stored bit grids. Values of
+     *         a reused bit grid are not cleared: they should be treated as undefined. Bit grid does not have an
+     *         executor. */
+    public BitGrid obtainBitGrid(final int width, final int height) {
+        final BitGrid bitGrid = obtain(bitGrids, width, height);
+        return bitGrid == null ? new BitGrid(width, height) : bitGrid;
+    }
+
+    /** @param bitGrid no longer used. Will be stored if the limits allow it. Bit grid should not be used after this
+     *            call. */
+    public void free(final BitGrid bitGrid) {
+        if (bitGrid != null && bitGrid.getClass() == BitGrid.class) {
+            bitGrid.setExecutor(null);
+            store(bitGrids, bitGrid);
+        }
+    }
+
+    /** @param width amount of columns.
+     * @param height amount of rows.
+     * @return a stored array with the selected size or a new array, if there are no stored arrays. Values of a reused
+     *         array are not cleared: they should be treated as undefined. */
+    public Int2dArray obtainInt2dArray(final int width, final int height) {
+        final Int2dArray array = obtain(intArrays, width, height);
+        return array == null ? new Int2dArray(width, height) : array;
+    }
+
+    /** @param array no longer used. Will be stored if the limits allow it. Array should not be used after this call. */
+    public void free(final Int2dArray array) {
+        if (array != null && array.getClass() == Int2dArray.class) {
+            store(intArrays, array);
+        }
+    }
+
+    /** Removes all stored instances. */
+    public synchronized void clear() {
+        grids.clear();
+        intArrays.clear();
+        bitGrids.clear();
+        retainedCells = 0L;
+    }
+
+    private synchronized <Type extends Array2D> Type obtain(final List<Type> pool, final int width, final int height) {
+        for (int index = pool.size() - 1; index >= 0; index--) {
+            final Type instance = pool.get(index);
+            if (instance.getWidth() == width && instance.getHeight() == height) {
+                retainedCells -= getCells(instance);
+                return pool.remove(index);
+            }
+        }
+        return null;
+    }
+
+    private synchronized <Type extends Array2D> void store(final List<Type> pool, final Type instance) {
+        final int width = instance.getWidth();
+        final int height = instance.getHeight();
+        final long cells = getCells(instance);
+        if (retainedCells + cells > maxRetainedCells) {
+            return;
+        }
+        int sameSize = 0;
+        for (int index = 0, size = pool.size(); index < size; index++) {
+            final Type stored = pool.get(index);
+            if (stored == instance) { // Already freed.
+                return;
+            } else if (stored.getWidth() == width && stored.getHeight() == height) {
+                sameSize++;
+            }
+        }
+        if (sameSize < maxRetainedPerSize) {
+            pool.add(instance);
+            retainedCells += cells;
+        }
+    }
+
+    /** @param instance stored in the pool.
+     * @return amount of cells counted towards {@link #getMaxRetainedCells()}. */
+    private static long getCells(final Array2D instance) {
+        if (instance instanceof BitGrid) { // Each 64-bit word takes as much memory as two 32-bit cells.
+            return 2L * ((BitGrid) instance).getWords().length;
+        }
+        return (long) instance.getWidth() * instance.getHeight();
+    }
+}
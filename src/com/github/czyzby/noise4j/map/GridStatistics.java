@@ -0,0 +1,364 @@
+package com.github.czyzby.noise4j.map;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+
+/** Contains statistics of {@link Grid} values: minimum, maximum, mean, variance and - optionally - a histogram. All of
+ * them are computed in a single pass over the grid, which is processed in parallel if the grid has an
+ * {@link Grid#getExecutor() executor}. NaN values are ignored. Results do not depend on the amount of threads.
+ *
+ * <p>
+ * Statistics can be used to post-process the grid with fused operations, each requiring a single pass:
+ *
+ * <pre>
+ * // Stretching noise values to [0, 1]:
+ * GridStatistics.compute(grid).normalize(grid, 0f, 1f);
+ * // Turning 45% of the cells (with the lowest values) into walls:
+ * GridStatistics.compute(grid, GridStatistics.DEFAULT_BINS_AMOUNT).thresholdByPercentile(grid, 0.45f, 1f, 0f);
+ * </pre>
+ *
+ * @author MJ */
+public class GridStatistics {
+    /** Default amount of histogram bins. Percentiles computed with this amount of bins spanning from the minimum to the
+     * maximum value have an error smaller than 0.1% of the value range. */
+    public static final int DEFAULT_BINS_AMOUNT = 1024;
+
+    private long count;
+    private float min = Float.POSITIVE_INFINITY;
+    private float max = Float.NEGATIVE_INFINITY;
+    private double mean;
+    private double squaredDeviations;
+    private long[] histogram;
+    private float histogramMin;
+    private float histogramMax;
+
+    private GridStatistics() {
+    }
+
+    /** @param grid its values will be analyzed in a single pass.
+     * @return minimum, maximum, mean and variance of the grid's values. Does not contain a histogram. */
+    public static GridStatistics compute(final Grid grid) {
+        return compute(grid, 0, 0f, 0f);
+    }
+
+    /** Computes a histogram with bins spanning from the minimum to the maximum grid value. Since these values are not
+     * known in advance, this method requires two passes over the grid; use {@link #compute(Grid, int, float, float)}
+     * if the range of values is known - for example, noise generators produce values from 0 to their modifier.
+     *
+     * @param grid its values will be analyzed.
+     * @param binsAmount amount of histogram bins.
+     * @return minimum, maximum, mean, variance and histogram of the grid's values. */
+    public static GridStatistics compute(final Grid grid, final int binsAmount) {
+        final GridStatistics statistics = compute(grid);
+        if (statistics.count == 0L) {
+            return compute(grid, binsAmount, 0f, 0f);
+        }
+        return compute(grid, binsAmount, statistics.min, statistics.max);
+    }
+
+    /** @param grid its values will be analyzed in a single pass.
+     * @param binsAmount amount of histogram bins. If 0, histogram is not computed.
+     * @param histogramMin lower bound of the first bin. Lower values are counted in the first bin.
+     * @param histogramMax upper bound of the last bin. Higher values are counted in the last bin.
+     * @return minimum, maximum, mean, variance and histogram of the grid's values. */
+    public static GridStatistics compute(final Grid grid, final int binsAmount, final float histogramMin,
+            final float histogramMax) {
+        if (binsAmount < 0 || binsAmount > 0 && !(histogramMax >= histogramMin)) {
+            throw new IllegalArgumentException("Invalid histogram: " + binsAmount + " bins spanning from "
+                    + histogramMin + " to " + histogramMax + ".");
+        }
+        final int height = grid.getHeight();
+        final Rows rows = new Rows(height);
+        final List<long[]> histograms = new ArrayList<long[]>();
+        grid.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final long[] histogram = binsAmount == 0 ? null : new long[binsAmount];
+                rows.process(grid, fromY, toY, histogram, histogramMin, histogramMax);
+                if (histogram != null) {
+                    synchronized (histograms) {
+                        histograms.add(histogram);
+                    }
+                }
+            }
+        });
+        final GridStatistics statistics = new GridStatistics();
+        statistics.histogramMin = histogramMin;
+        statistics.histogramMax = histogramMax;
+        // Merging rows in order, so the rounding errors do not depend on the way the grid was divided among threads:
+        for (int y = 0; y < height; y++) {
+            statistics.merge(rows, y);
+        }
+        if (binsAmount > 0) {
+            statistics.histogram = new long[binsAmount];
+            for (final long[] histogram : histograms) {
+                for (int index = 0; index < binsAmount; index++) {
+                    statistics.histogram[index] += histogram[index];
+                }
+            }
+        }
+        return statistics;
+    }
+
+    private void merge(final Rows rows, final int y) {
+        final long rowCount = rows.counts[y];
+        if (rowCount == 0L) {
+            return;
+        }
+        // Parallel variance algorithm by Chan et al.
+        final long total = count + rowCount;
+        final double delta = rows.means[y] - mean;
+        mean += delta * rowCount / total;
+        squaredDeviations += rows.squaredDeviations[y] + delta * delta * count * rowCount / total;
+        count = total;
+        min = Math.min(min, rows.min[y]);
+        max = Math.max(max, rows.max[y]);
+    }
+
+    /** @return amount of analyzed cells. Does not include NaN values. */
+    public long getCount() {
+        return count;
+    }
+
+    /** @return lowest value. {@link Float#POSITIVE_INFINITY} if there were no values. */
+    public float getMin() {
+        return min;
+    }
+
+    /** @return highest value. {@link Float#NEGATIVE_INFINITY} if there were no values. */
+    public float getMax() {
+        return max;
+    }
+
+    /** @return arithmetic mean of the values. */
+    public double getMean() {
+        return mean;
+    }
+
+    /** @return sum of the values. */
+    public double getSum() {
+        return mean * count;
+    }
+
+    /** @return population variance of the values. */
+    public double getVariance() {
+        return count == 0L ? 0.0 : squaredDeviations / count;
+    }
+
+    /** @return population standard deviation of the values. */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /** @return true if the histogram was computed. */
+    public boolean hasHistogram() {
+        return histogram != null;
+    }
+
+    /** @return direct reference to the histogram: amounts of values in each bin. Null if the histogram was not
+     *         computed. */
+    public long[] getHistogram() {
+        return histogram;
+    }
+
+    /** @return lower bound of the first histogram bin. */
+    public float getHistogramMin() {
+        return histogramMin;
+    }
+
+    /** @return upper bound of the last histogram bin. */
+    public float getHistogramMax() {
+        return histogramMax;
+    }
+
+    /** @param percentile from 0 to 1. For example, 0.5 returns the median.
+     * @return approximate value below which the chosen fraction of values lies. Estimated with the histogram by linear
+     *         interpolation within a bin, so its error is not bigger than the width of a single bin.
+     * @throws IllegalStateException if the histogram was not computed. */
+    public float getPercentile(final float percentile) {
+        if (histogram == null) {
+            throw new IllegalStateException("Histogram was not computed.");
+        } else if (count == 0L || percentile <= 0f) {
+            return min;
+        } else if (percentile >= 1f) {
+            return max;
+        }
+        final double target = (double) percentile * count;
+        final double binWidth = ((double) histogramMax - histogramMin) / histogram.length;
+        long cumulative = 0L;
+        for (int index = 0; index < histogram.length; index++) {
+            final long bin = histogram[index];
+            if (bin > 0L && cumulative + bin >= target) {
+                final float value = (float) (histogramMin + (index + (target - cumulative) / bin) * binWidth);
+                return Math.max(min, Math.min(max, value));
+            }
+            cumulative += bin;
+        }
+        return max;
+    }
+
+    /** Linearly maps grid values from the range between {@link #getMin()} and {@link #getMax()} onto the chosen range
+     * in a single pass. If all values are equal, they are replaced with the new minimum.
+     *
+     * @param grid its values will be modified. Should be the analyzed grid.
+     * @param newMin current minimum will be converted to this value.
+     * @param newMax current maximum will be converted to this value.
+     * @return passed grid, for chaining. */
+    public Grid normalize(final Grid grid, final float newMin, final float newMax) {
+        final float oldMin = min;
+        final float scale = max > min ? (float) (((double) newMax - newMin) / ((double) max - min)) : 0f;
+        final float lower = Math.min(newMin, newMax);
+        final float upper = Math.max(newMin, newMax);
+        final float[] array = grid instanceof VirtualGrid ? null : grid.getArray();
+        final int width = grid.getWidth();
+        grid.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    if (array == null) {
+                        for (int x = 0; x < width; x++) {
+                            grid.set(x, y, normalize(grid.get(x, y), oldMin, scale, newMin, lower, upper));
+                        }
+                    } else {
+                        for (int index = grid.toIndex(0, y), length = index + width; index < length; index++) {
+                            array[index] = normalize(array[index], oldMin, scale, newMin, lower, upper);
+                        }
+                    }
+                }
+            }
+        });
+        return grid;
+    }
+
+    private static float normalize(final float value, final float oldMin, final float scale, final float newMin,
+            final float lower, final float upper) {
+        final float result = (value - oldMin) * scale + newMin;
+        // Clamping to correct rounding errors, so the bounds are never exceeded:
+        return result > upper ? upper : result < lower ? lower : result;
+    }
+
+    /** Replaces all values with one of two values in a single pass.
+     *
+     * @param grid its values will be modified.
+     * @param threshold values lower than threshold will be replaced with the first value, the rest - with the second.
+     * @param below will replace values lower than threshold.
+     * @param aboveOrEqual will replace values higher or equal to threshold.
+     * @return passed grid, for chaining. */
+    public static Grid threshold(final Grid grid, final float threshold, final float below,
+            final float aboveOrEqual) {
+        final float[] array = grid instanceof VirtualGrid ? null : grid.getArray();
+        final int width = grid.getWidth();
+        grid.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    if (array == null) {
+                        for (int x = 0; x < width; x++) {
+                            grid.set(x, y, grid.get(x, y) < threshold ? below : aboveOrEqual);
+                        }
+                    } else {
+                        for (int index = grid.toIndex(0, y), length = index + width; index < length; index++) {
+                            array[index] = array[index] < threshold ? below : aboveOrEqual;
+                        }
+                    }
+                }
+            }
+        });
+        return grid;
+    }
+
+    /** Replaces all values with one of two values, so that the chosen fraction of cells with the lowest values
+     * receives the first value. Useful for choosing cave or water levels.
+     *
+     * @param grid its values will be modified. Should be the analyzed grid.
+     * @param percentile from 0 to 1. Approximate fraction of the cells that will receive the first value.
+     * @param below will replace values lower than the percentile.
+     * @param aboveOrEqual will replace the rest of values.
+     * @return value of the percentile used as threshold.
+     * @throws IllegalStateException if the histogram was not computed.
+     * @see #getPercentile(float) */
+    public float thresholdByPercentile(final Grid grid, final float percentile, final float below,
+            final float aboveOrEqual) {
+        final float threshold = getPercentile(percentile);
+        threshold(grid, threshold, below, aboveOrEqual);
+        return threshold;
+    }
+
+    @Override // Auto-generated.
+    public String toString() {
+        return "GridStatistics [count=" + count + ", min=" + min + ", max=" + max + ", mean=" + mean + ", variance="
+                + getVariance() + "]";
+    }
+
+    /** Statistics of each row.
+     *
+     * @author MJ */
+    private static class Rows {
+        private final long[] counts;
+        private final float[] min;
+        private final float[] max;
+        private final double[] means;
+        private final double[] squaredDeviations;
+
+        public Rows(final int height) {
+            counts = new long[height];
+            min = new float[height];
+            max = new float[height];
+            means = new double[height];
+            squaredDeviations = new double[height];
+        }
+
+        /** @param grid will be analyzed.
+         * @param fromY first row index.
+         * @param toY last row index (excluded).
+         * @param histogram optional. Will be filled with amounts of values in each bin.
+         * @param histogramMin lower bound of the first bin.
+         * @param histogramMax upper bound of the last bin. */
+        public void process(final Grid grid, final int fromY, final int toY, final long[] histogram,
+                final float histogramMin, final float histogramMax) {
+            final float[] array = grid instanceof VirtualGrid ? null : grid.getArray();
+            final int width = grid.getWidth();
+            final float binScale = histogram != null && histogramMax > histogramMin
+                    ? (float) (histogram.length / ((double) histogramMax - histogramMin)) : 0f;
+            for (int y = fromY; y < toY; y++) {
+                long count = 0L;
+                float min = Float.POSITIVE_INFINITY;
+                float max = Float.NEGATIVE_INFINITY;
+                // Sums are computed relative to the first value to avoid catastrophic cancellation in variance:
+                double shift = 0.0;
+                double sum = 0.0;
+                double squaredSum = 0.0;
+                for (int x = 0, index = array == null ? 0 : grid.toIndex(0, y); x < width; x++, index++) {
+                    final float value = array == null ? grid.get(x, y) : array[index];
+                    if (value != value) { // NaN.
+                        continue;
+                    } else if (count++ == 0L) {
+                        shift = value;
+                    }
+                    if (value < min) {
+                        min = value;
+                    }
+                    if (value > max) {
+                        max = value;
+                    }
+                    final double deviation = value - shift;
+                    sum += deviation;
+                    squaredSum += deviation * deviation;
+                    if (histogram != null) {
+                        final int bin = (int) ((value - histogramMin) * binScale);
+                        histogram[bin < 0 ? 0 : bin >= histogram.length ? histogram.length - 1 : bin]++;
+                    }
+                }
+                counts[y] = count;
+                this.min[y] = min;
+                this.max[y] = max;
+                if (count > 0L) {
+                    means[y] = shift + sum / count;
+                    squaredDeviations[y] = squaredSum - sum * sum / count;
+                }
+            }
+        }
+    }
+}
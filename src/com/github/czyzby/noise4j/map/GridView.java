@@ -0,0 +1,50 @@
+package com.github.czyzby.noise4j.map;
+
+/** Represents a rectangle of another {@link Grid}. Shares the array of the parent grid - no values are copied when
+ * the view is created, and all changes of the view's cells are immediately visible in the parent (and vice versa).
+ * Since views are regular grids, they can be processed by all generators: this allows to generate only a part of the
+ * map.
+ *
+ * <p>
+ * Parent grid has to be backed by an array - see {@link VirtualGrid}. Views of views are supported.
+ *
+ * @author MJ
+ * @see Grid#view(int, int, int, int) */
+public class GridView extends Grid {
+    private final Grid parent;
+    private final int offsetX, offsetY;
+
+    /** @param parent its array will be shared by the view. Parent's executor is used by the view.
+     * @param x column index of the first cell of the view in the parent grid.
+     * @param y row index of the first cell of the view in the parent grid.
+     * @param width amount of columns. View cannot exceed parent's bounds.
+     * @param height amount of rows. View cannot exceed parent's bounds. */
+    public GridView(final Grid parent, final int x, final int y, final int width, final int height) {
+        super(parent.getArray(), parent.toIndex(x, y), parent.getStride(), width, height);
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > parent.getWidth()
+                || y + height > parent.getHeight()) {
+            throw new IllegalArgumentException("View [x=" + x + ", y=" + y + ", width=" + width + ", height=" + height
+                    + "] exceeds bounds of the parent grid with " + parent.getWidth() + " columns and "
+                    + parent.getHeight() + " rows.");
+        }
+        this.parent = parent;
+        offsetX = x;
+        offsetY = y;
+        setExecutor(parent.getExecutor());
+    }
+
+    /** @return grid that shares its array with this view. */
+    public Grid getParent() {
+        return parent;
+    }
+
+    /** @return column index of the first cell of the view in the parent grid. */
+    public int getOffsetX() {
+        return offsetX;
+    }
+
+    /** @return row index of the first cell of the view in the parent grid. */
+    public int getOffsetY() {
+        return offsetY;
+    }
+}
@@ -0,0 +1,337 @@
+package com.github.czyzby.noise4j.map;
+
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+import com.github.czyzby.noise4j.map.generator.Generator.GenerationMode;
+
+/** Base class for {@link Grid} implementations that do not store their values in a heap float array - for example,
+ * off-heap buffers or quantized storages. Since it extends {@link Grid}, it can be processed by all generators. All
+ * operations are implemented with {@link #get(int, int)} and {@link #set(int, int, float)} methods; extending classes
+ * are encouraged to override the operations for which a more efficient implementation is possible.
+ *
+ * <p>
+ * {@link #getArray()} is not supported and throws {@link UnsupportedOperationException}. Virtual grids can contain
+ * more than {@link Integer#MAX_VALUE} cells, in which case {@link #toIndex(int, int)} and {@link #toX(int)} /
+ * {@link #toY(int)} methods should not be used; see {@link #toLongIndex(int, int)}.
+ *
+ * @author MJ */
+public abstract class VirtualGrid extends Grid {
+    /** @param size amount of columns and rows. */
+    public VirtualGrid(final int size) {
+        this(size, size);
+    }
+
+    /** @param width amount of columns.
+     * @param height amount of rows. */
+    public VirtualGrid(final int width, final int height) {
+        super(width, height, false);
+    }
+
+    /** @return total amount of cells. Might exceed {@link Integer#MAX_VALUE}. */
+    public long getCellsAmount() {
+        return (long) width * height;
+    }
+
+    /** @param x column index.
+     * @param y row index.
+     * @return index of the cell in row-major order. Unlike {@link #toIndex(int, int)}, does not overflow. */
+    public long toLongIndex(final int x, final int y) {
+        return x + (long) y * width;
+    }
+
+    /** @throws UnsupportedOperationException values are not stored in a heap array. */
+    @Override
+    public float[] getArray() {
+        throw new UnsupportedOperationException("Grid of type " + getClass().getName() + " is not backed by an array.");
+    }
+
+    @Override
+    public abstract float get(int x, int y);
+
+    @Override
+    public abstract float set(int x, int y, float value);
+
+    @Override
+    public float add(final int x, final int y, final float value) {
+        return set(x, y, get(x, y) + value);
+    }
+
+    @Override
+    public float subtract(final int x, final int y, final float value) {
+        return set(x, y, get(x, y) - value);
+    }
+
+    @Override
+    public float multiply(final int x, final int y, final float value) {
+        return set(x, y, get(x, y) * value);
+    }
+
+    @Override
+    public float divide(final int x, final int y, final float value) {
+        return set(x, y, get(x, y) / value);
+    }
+
+    @Override
+    public float modulo(final int x, final int y, final float mod) {
+        return set(x, y, get(x, y) % mod);
+    }
+
+    @Override
+    public void forEach(final CellConsumer cellConsumer) {
+        iterate(cellConsumer, 0L, getCellsAmount());
+    }
+
+    @Override
+    public void forEach(final CellConsumer cellConsumer, final int fromX, final int fromY) {
+        iterate(cellConsumer, toLongIndex(fromX, fromY), getCellsAmount());
+    }
+
+    @Override
+    public void forEach(final CellConsumer cellConsumer, final int fromX, final int fromY, final int toX,
+            final int toY) {
+        for (int y = fromY; y < toY; y++) {
+            for (int x = fromX; x < toX; x++) {
+                if (cellConsumer.consume(this, x, y, get(x, y))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void iterate(final CellConsumer cellConsumer, final int fromIndex, final int toIndex) {
+        iterate(cellConsumer, (long) fromIndex, (long) toIndex);
+    }
+
+    /** @param cellConsumer will consume each cell. If returns true, further iteration will be cancelled.
+     * @param fromIndex row-major index of the first cell.
+     * @param toIndex row-major index of the last cell (excluded).
+     * @see #toLongIndex(int, int) */
+    protected void iterate(final CellConsumer cellConsumer, final long fromIndex, final long toIndex) {
+        int x = (int) (fromIndex % width);
+        int y = (int) (fromIndex / width);
+        for (long index = fromIndex; index < toIndex; index++) {
+            if (cellConsumer.consume(this, x, y, get(x, y))) {
+                break;
+            }
+            if (++x == width) {
+                x = 0;
+                y++;
+            }
+        }
+    }
+
+    @Override
+    public void forEachRow(final RowConsumer rowConsumer, final int fromX, final int fromY, final int toX,
+            final int toY) {
+        for (int y = fromY; y < toY; y++) {
+            if (rowConsumer.consume(this, y, fromX, toX, -1)) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void set(final Grid grid) {
+        validateGrid(grid);
+        combine(grid, GenerationMode.REPLACE);
+    }
+
+    @Override
+    public void add(final Grid grid) {
+        validateGrid(grid);
+        combine(grid, GenerationMode.ADD);
+    }
+
+    @Override
+    public void subtract(final Grid grid) {
+        validateGrid(grid);
+        combine(grid, GenerationMode.SUBTRACT);
+    }
+
+    @Override
+    public void multiply(final Grid grid) {
+        validateGrid(grid);
+        combine(grid, GenerationMode.MULTIPLY);
+    }
+
+    @Override
+    public void divide(final Grid grid) {
+        validateGrid(grid);
+        combine(grid, GenerationMode.DIVIDE);
+    }
+
+    /** @param value will modify each cell.
+     * @param mode decides how the value modifies the cells. */
+    protected void modifyAll(final float value, final GenerationMode mode) {
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int x = 0; x < width; x++) {
+                        mode.modify(VirtualGrid.this, x, y, value);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public Grid set(final float value) {
+        modifyAll(value, GenerationMode.REPLACE);
+        return this;
+    }
+
+    @Override
+    public Grid fillColumn(final int x, final float value) {
+        for (int y = 0; y < height; y++) {
+            set(x, y, value);
+        }
+        return this;
+    }
+
+    @Override
+    public Grid fillRow(final int y, final float value) {
+        for (int x = 0; x < width; x++) {
+            set(x, y, value);
+        }
+        return this;
+    }
+
+    @Override
+    public Grid add(final float value) {
+        modifyAll(value, GenerationMode.ADD);
+        return this;
+    }
+
+    @Override
+    public Grid subtract(final float value) {
+        modifyAll(value, GenerationMode.SUBTRACT);
+        return this;
+    }
+
+    @Override
+    public Grid multiply(final float value) {
+        modifyAll(value, GenerationMode.MULTIPLY);
+        return this;
+    }
+
+    @Override
+    public Grid divide(final float value) {
+        modifyAll(value, GenerationMode.DIVIDE);
+        return this;
+    }
+
+    @Override
+    public Grid modulo(final float modulo) {
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int x = 0; x < width; x++) {
+                        modulo(x, y, modulo);
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public Grid negate() {
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int x = 0; x < width; x++) {
+                        set(x, y, -get(x, y));
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public Grid clamp(final float min, final float max) {
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int x = 0; x < width; x++) {
+                        final float value = get(x, y);
+                        if (value > max) {
+                            set(x, y, max);
+                        } else if (value < min) {
+                            set(x, y, min);
+                        }
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public Grid replace(final float value, final float withValue) {
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (Float.compare(get(x, y), value) == 0) {
+                            set(x, y, withValue);
+                        }
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public Grid increment() {
+        return add(1f);
+    }
+
+    @Override
+    public Grid decrement() {
+        return subtract(1f);
+    }
+
+    /** @return a new grid with the same size and values. Should use the same storage type. */
+    @Override
+    public abstract Grid copy();
+
+    @Override
+    public boolean equals(final Object object) {
+        if (object == this) {
+            return true;
+        } else if (!(object instanceof Grid)) {
+            return false;
+        }
+        final Grid grid = (Grid) object;
+        if (grid.getWidth() != width || grid.getHeight() != height) {
+            return false;
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Same comparison as in Arrays.equals(float[], float[]):
+                if (Float.floatToIntBits(get(x, y)) != Float.floatToIntBits(grid.get(x, y))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() { // Matches Arrays.hashCode(float[]) of an array-backed grid with the same values.
+        int hashCode = 1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                hashCode = 31 * hashCode + Float.floatToIntBits(get(x, y));
+            }
+        }
+        return hashCode;
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.czyzby.noise4j.map.buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+import com.github.czyzby.noise4j.map.VirtualGrid;
+
+/** A {@link Grid} storing its values in {@link FloatBuffer}s rather than a heap array. Allows to keep huge maps outside
+ * of the garbage-collected heap (with {@link #allocate(int, int)}) or directly in a memory-mapped file (with
+ * {@link #map(FileChannel, MapMode, long, int, int)}). Since a single buffer can store at most
+ * {@link Integer#MAX_VALUE} elements (and a single file mapping is limited to 2GB), the values are divided into
+ * segments of full rows, which allows to create grids with more than 2^31 cells. Use {@link #get(long)} and
+ * {@link #set(long, float)} to access cells with row-major indexes exceeding int range.
+ *
+ * <p>
+ * Not available on GWT.
+ *
+ * @author MJ */
+public class BufferGrid extends VirtualGrid {
+    /** Maximum amount of cells stored in a single buffer segment: 1GB of float values. */
+    public static final int MAX_SEGMENT_SIZE = 1 << 28;
+
+    private final ByteBuffer[] buffers;
+    private final FloatBuffer[] segments;
+    private final int rowShift;
+    private final int rowMask;
+
+    /** @param buffer will store grid values in row-major order. Its capacity has to be equal width multiplied by
+     *            height.
+     * @param width amount of columns.
+     * @param height amount of rows. */
+    public BufferGrid(final FloatBuffer buffer, final int width, final int height) {
+        this(null, new FloatBuffer[] { buffer }, 31, width, height);
+        if (buffer.capacity() != (long) width * height) {
+            throw new IllegalArgumentException("Buffer with capacity: " + buffer.capacity()
+                    + " is too small or too big to store a grid with " + width + " columns and " + height + " rows.");
+        }
+    }
+
+    /** @param buffers byte buffers viewed by the segments. Optional, can be null. Allows to force changes in mapped
+     *            files.
+     * @param segments store grid values in row-major order. Each segment stores 2^rowShift full rows; the last
+     *            segment might store less rows.
+     * @param rowShift binary logarithm of the amount of rows stored in each segment.
+     * @param width amount of columns.
+     * @param height amount of rows. */
+    protected BufferGrid(final ByteBuffer[] buffers, final FloatBuffer[] segments, final int rowShift,
+            final int width, final int height) {
+        super(width, height);
+        this.buffers = buffers;
+        this.segments = segments;
+        this.rowShift = rowShift;
+        rowMask = rowShift >= 31 ? Integer.MAX_VALUE : (1 << rowShift) - 1;
+    }
+
+    /** @param width amount of columns.
+     * @param height amount of rows.
+     * @return a new grid storing its values in direct buffers, using native byte order. */
+    public static BufferGrid allocate(final int width, final int height) {
+        final int rowShift = getRowShift(width);
+        final ByteBuffer[] buffers = new ByteBuffer[getSegmentsAmount(height, rowShift)];
+        final FloatBuffer[] segments = new FloatBuffer[buffers.length];
+        for (int index = 0; index < segments.length; index++) {
+            final int rows = getSegmentRows(index, height, rowShift);
+            buffers[index] = ByteBuffer.allocateDirect(rows * width * 4).order(ByteOrder.nativeOrder());
+            segments[index] = buffers[index].asFloatBuffer();
+        }
+        return new BufferGrid(buffers, segments, rowShift, width, height);
+    }
+
+    /** @param channel file channel. Grid values will be mapped directly from the file, without copying.
+     * @param mode file mapping mode. Use {@link MapMode#READ_WRITE} to persist grid changes in the file (file will grow
+     *            if it is too small to store the grid) or {@link MapMode#PRIVATE} to modify the values in memory only.
+     *            Note that modifying a grid mapped with {@link MapMode#READ_ONLY} results in an exception.
+     * @param position position of the first value in the file.
+     * @param width amount of columns.
+     * @param height amount of rows.
+     * @return a new grid mapped to the file. Values are stored as little-endian floats in row-major order.
+     * @throws IOException if unable to map the file. */
+    public static BufferGrid map(final FileChannel channel, final MapMode mode, final long position, final int width,
+            final int height) throws IOException {
+        final int rowShift = getRowShift(width);
+        final ByteBuffer[] buffers = new ByteBuffer[getSegmentsAmount(height, rowShift)];
+        final FloatBuffer[] segments = new FloatBuffer[buffers.length];
+        long segmentPosition = position;
+        for (int index = 0; index < segments.length; index++) {
+            final long segmentSize = (long) getSegmentRows(index, height, rowShift) * width * 4L;
+            buffers[index] = channel.map(mode, segmentPosition, segmentSize).order(ByteOrder.LITTLE_ENDIAN);
+            segments[index] = buffers[index].asFloatBuffer();
+            segmentPosition += segmentSize;
+        }
+        return new BufferGrid(buffers, segments, rowShift, width, height);
+    }
+
+    /** @param width amount of columns.
+     * @return binary logarithm of the amount of rows stored in a single segment. */
+    private static int getRowShift(final int width) {
+        if (width <= 0 || width > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Invalid grid width: " + width);
+        }
+        int rowShift = 0;
+        while ((long) width << rowShift + 1 <= MAX_SEGMENT_SIZE) {
+            rowShift++;
+        }
+        return rowShift;
+    }
+
+    private static int getSegmentsAmount(final int height, final int rowShift) {
+        return (int) (((long) height + (1L << rowShift) - 1L) >> rowShift);
+    }
+
+    private static int getSegmentRows(final int segmentIndex, final int height, final int rowShift) {
+        return (int) Math.min(1L << rowShift, height - ((long) segmentIndex << rowShift));
+    }
+
+    /** @return direct reference to the buffers storing grid values. Each buffer stores a fixed amount of full rows. */
+    public FloatBuffer[] getSegments() {
+        return segments;
+    }
+
+    /** @return amount of rows stored in each segment (except for the last one, which might store less). */
+    public int getSegmentRows() {
+        return segments.length == 1 ? height : rowMask + 1;
+    }
+
+    @Override
+    public float get(final int x, final int y) {
+        return segments[y >>> rowShift].get((y & rowMask) * width + x);
+    }
+
+    @Override
+    public float set(final int x, final int y, final float value) {
+        segments[y >>> rowShift].put((y & rowMask) * width + x, value);
+        return value;
+    }
+
+    /** @param index row-major index of the cell.
+     * @return value stored in the cell.
+     * @see #toLongIndex(int, int) */
+    public float get(final long index) {
+        return get((int) (index % width), (int) (index / width));
+    }
+
+    /** @param index row-major index of the cell.
+     * @param value will be set as the value in the chosen cell.
+     * @return value (parameter), for chaining.
+     * @see #toLongIndex(int, int) */
+    public float set(final long index, final float value) {
+        return set((int) (index % width), (int) (index / width), value);
+    }
+
+    @Override
+    public void set(final Grid grid) {
+        if (grid instanceof BufferGrid && ((BufferGrid) grid).rowShift == rowShift) {
+            validateGrid(grid);
+            final FloatBuffer[] source = ((BufferGrid) grid).segments;
+            for (int index = 0; index < segments.length; index++) {
+                final FloatBuffer segment = segments[index].duplicate();
+                segment.clear();
+                final FloatBuffer values = source[index].duplicate();
+                values.clear();
+                segment.put(values); // Bulk transfer.
+            }
+        } else {
+            super.set(grid);
+        }
+    }
+
+    @Override
+    public Grid set(final float value) {
+        execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    final FloatBuffer segment = segments[y >>> rowShift];
+                    for (int index = (y & rowMask) * width, length = index + width; index < length; index++) {
+                        segment.put(index, value);
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    /** Forces changes of memory-mapped segments to be written to the storage device. Does nothing if the grid is not
+     * mapped to a file. */
+    public void force() {
+        if (buffers == null) {
+            return;
+        }
+        for (final ByteBuffer buffer : buffers) {
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).force();
+            }
+        }
+    }
+
+    /** @return a new grid with the same size and values, stored in direct buffers. */
+    @Override
+    public BufferGrid copy() {
+        final BufferGrid grid = allocate(width, height);
+        grid.set(this);
+        grid.setExecutor(getExecutor());
+        return grid;
+    }
+}
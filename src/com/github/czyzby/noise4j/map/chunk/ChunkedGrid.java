@@ -0,0 +1,365 @@
+package com.github.czyzby.noise4j.map.chunk;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+import com.github.czyzby.noise4j.map.VirtualGrid;
+
+/** An unbounded float map divided into square chunks. Chunks are allocated only when a cell is modified - reading
+ * cells of a missing chunk returns {@link #getDefaultValue()}. This allows to address cells with any int coordinates,
+ * including negative ones, while the memory usage grows with the amount of modified regions instead of the world
+ * bounds.
+ *
+ * <p>
+ * Regions filled with a single value - for example, with {@link #fill(int, int, int, int, float)} - can share one
+ * immutable chunk per value. Shared chunks are copied only when one of their cells is modified. Use
+ * {@link #compact()} to find uniform chunks and replace them with shared instances.
+ *
+ * <p>
+ * Since generators work on bounded grids, use {@link #window(int, int, int, int)} to obtain a {@link Grid} that
+ * represents a rectangular region of the map. Windows do not copy values; they access the chunks directly.
+ *
+ * <p>
+ * Not thread-safe.
+ *
+ * @author MJ */
+public class ChunkedGrid {
+    /** Amount of columns and rows in a single chunk used by default. */
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+
+    private final int chunkShift;
+    private final int chunkMask;
+    private final float defaultValue;
+    private final Map<Long, float[]> chunks = new HashMap<Long, float[]>();
+    private final Map<Float, float[]> sharedChunks = new HashMap<Float, float[]>();
+    // Last accessed chunk. Most operations process neighbor cells, so this saves a lot of map look-ups.
+    private long cachedKey;
+    private float[] cachedChunk;
+    private boolean cachedShared;
+
+    /** Creates a map with {@link #DEFAULT_CHUNK_SIZE} and 0 as the default cell value. */
+    public ChunkedGrid() {
+        this(DEFAULT_CHUNK_SIZE, 0f);
+    }
+
+    /** @param chunkSize amount of columns and rows in a single chunk. Has to be a power of two.
+     * @param defaultValue value of cells that were never modified. */
+    public ChunkedGrid(final int chunkSize, final float defaultValue) {
+        if (chunkSize <= 0 || (chunkSize & chunkSize - 1) != 0 || chunkSize > 1 << 15) {
+            throw new IllegalArgumentException("Chunk size has to be a power of two. Received: " + chunkSize);
+        }
+        chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        chunkMask = chunkSize - 1;
+        this.defaultValue = defaultValue;
+    }
+
+    /** @return amount of columns and rows in a single chunk. */
+    public int getChunkSize() {
+        return chunkMask + 1;
+    }
+
+    /** @return value of cells that were never modified. */
+    public float getDefaultValue() {
+        return defaultValue;
+    }
+
+    /** @return amount of chunks stored in the map, including shared chunks. */
+    public int getChunksAmount() {
+        return chunks.size();
+    }
+
+    /** @return amount of chunks with their own (not shared) array. */
+    public int getAllocatedChunksAmount() {
+        int amount = 0;
+        for (final float[] chunk : chunks.values()) {
+            if (!isShared(chunk)) {
+                amount++;
+            }
+        }
+        return amount;
+    }
+
+    /** @param x column index. Can be negative.
+     * @return column index of the chunk containing the cell. */
+    public int toChunkX(final int x) {
+        return x >> chunkShift;
+    }
+
+    /** @param y row index. Can be negative.
+     * @return row index of the chunk containing the cell. */
+    public int toChunkY(final int y) {
+        return y >> chunkShift;
+    }
+
+    /** @param chunkX column index of the chunk.
+     * @param chunkY row index of the chunk.
+     * @return true if the chunk is stored in the map. Cells of missing chunks have the default value. */
+    public boolean hasChunk(final int chunkX, final int chunkY) {
+        return chunks.containsKey(toKey(chunkX, chunkY));
+    }
+
+    /** @param x column index. Can be negative.
+     * @param y row index. Can be negative.
+     * @return value stored in the chosen cell. */
+    public float get(final int x, final int y) {
+        final float[] chunk = getChunk(x >> chunkShift, y >> chunkShift);
+        return chunk == null ? defaultValue : chunk[toLocalIndex(x, y)];
+    }
+
+    /** @param x column index. Can be negative.
+     * @param y row index. Can be negative.
+     * @param value will be set as the value in the chosen cell. Might allocate a new chunk, unless the cell already
+     *            stores this value.
+     * @return value (parameter), for chaining. */
+    public float set(final int x, final int y, final float value) {
+        final int chunkX = x >> chunkShift;
+        final int chunkY = y >> chunkShift;
+        float[] chunk = getChunk(chunkX, chunkY);
+        final int index = toLocalIndex(x, y);
+        if (chunk == null || cachedShared) {
+            if (Float.floatToIntBits(chunk == null ? defaultValue : chunk[index]) == Float.floatToIntBits(value)) {
+                return value; // Value would not change. No need to allocate anything.
+            }
+            chunk = allocateChunk(chunkX, chunkY, chunk);
+        }
+        return chunk[index] = value;
+    }
+
+    /** @param x column index. Can be negative.
+     * @param y row index. Can be negative.
+     * @param value will be added to the current value stored in the chosen cell.
+     * @return current cell value after adding the passed parameter. */
+    public float add(final int x, final int y, final float value) {
+        return set(x, y, get(x, y) + value);
+    }
+
+    /** Sets all values in the chosen rectangle. Chunks fully covered by the rectangle will share a single immutable
+     * chunk (or will be removed, if the value is equal to {@link #getDefaultValue()}).
+     *
+     * @param fromX first column index.
+     * @param fromY first row index.
+     * @param toX last column index (excluded).
+     * @param toY last row index (excluded).
+     * @param value will be set. */
+    public void fill(final int fromX, final int fromY, final int toX, final int toY, final float value) {
+        if (fromX >= toX || fromY >= toY) {
+            return;
+        }
+        final int chunkSize = getChunkSize();
+        for (int chunkY = toChunkY(fromY), lastChunkY = toChunkY(toY - 1); chunkY <= lastChunkY; chunkY++) {
+            final int chunkStartY = chunkY << chunkShift;
+            final int startY = Math.max(fromY, chunkStartY);
+            final int endY = (int) Math.min(toY, (long) chunkStartY + chunkSize);
+            for (int chunkX = toChunkX(fromX), lastChunkX = toChunkX(toX - 1); chunkX <= lastChunkX; chunkX++) {
+                final int chunkStartX = chunkX << chunkShift;
+                final int startX = Math.max(fromX, chunkStartX);
+                final int endX = (int) Math.min(toX, (long) chunkStartX + chunkSize);
+                if (endX - startX == chunkSize && endY - startY == chunkSize) { // Whole chunk covered:
+                    setUniformChunk(toKey(chunkX, chunkY), value);
+                } else {
+                    for (int y = startY; y < endY; y++) {
+                        for (int x = startX; x < endX; x++) {
+                            set(x, y, value);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Finds chunks that store a single value in all of their cells. Such chunks are removed (if the value is equal to
+     * {@link #getDefaultValue()}) or replaced with a shared instance.
+     *
+     * @return amount of chunks arrays that were released. */
+    public int compact() {
+        int released = 0;
+        for (final Iterator<Entry<Long, float[]>> iterator = chunks.entrySet().iterator(); iterator.hasNext();) {
+            final Entry<Long, float[]> entry = iterator.next();
+            final float[] chunk = entry.getValue();
+            if (isShared(chunk) || !isUniform(chunk)) {
+                continue;
+            }
+            released++;
+            if (Float.floatToIntBits(chunk[0]) == Float.floatToIntBits(defaultValue)) {
+                iterator.remove();
+            } else {
+                entry.setValue(getSharedChunk(chunk[0]));
+            }
+        }
+        cachedChunk = null;
+        return released;
+    }
+
+    /** Removes all chunks. All cells will have the default value. */
+    public void clear() {
+        chunks.clear();
+        sharedChunks.clear();
+        cachedChunk = null;
+    }
+
+    /** @param x column index of the first cell of the window. Can be negative.
+     * @param y row index of the first cell of the window. Can be negative.
+     * @param width amount of columns.
+     * @param height amount of rows.
+     * @return a new {@link Grid} representing the chosen rectangle of this map. Accesses the chunks directly: changes
+     *         in the window are visible in the map and vice versa. */
+    public Window window(final int x, final int y, final int width, final int height) {
+        return new Window(x, y, width, height);
+    }
+
+    private static long toKey(final int chunkX, final int chunkY) {
+        return (long) chunkX << 32 | chunkY & 0xFFFFFFFFL;
+    }
+
+    private int toLocalIndex(final int x, final int y) {
+        return (x & chunkMask) + ((y & chunkMask) << chunkShift);
+    }
+
+    /** @param chunkX column index of the chunk.
+     * @param chunkY row index of the chunk.
+     * @return chunk array or null if not stored. Caches the chunk. */
+    private float[] getChunk(final int chunkX, final int chunkY) {
+        final long key = toKey(chunkX, chunkY);
+        if (cachedChunk != null && cachedKey == key) {
+            return cachedChunk;
+        }
+        final float[] chunk = chunks.get(key);
+        if (chunk != null) {
+            cachedKey = key;
+            cachedChunk = chunk;
+            cachedShared = isShared(chunk);
+        }
+        return chunk;
+    }
+
+    /** @param chunkX column index of the chunk.
+     * @param chunkY row index of the chunk.
+     * @param source current chunk. Its values will be copied. If null, chunk is filled with default value.
+     * @return a new chunk array, stored in the map. */
+    private float[] allocateChunk(final int chunkX, final int chunkY, final float[] source) {
+        final int size = getChunkSize();
+        final float[] chunk = new float[size * size];
+        if (source == null) {
+            if (defaultValue != 0f) {
+                fillArray(chunk, defaultValue);
+            }
+        } else {
+            System.arraycopy(source, 0, chunk, 0, chunk.length);
+        }
+        final long key = toKey(chunkX, chunkY);
+        chunks.put(key, chunk);
+        cachedKey = key;
+        cachedChunk = chunk;
+        cachedShared = false;
+        return chunk;
+    }
+
+    private void setUniformChunk(final long key, final float value) {
+        if (Float.floatToIntBits(value) == Float.floatToIntBits(defaultValue)) {
+            chunks.remove(key);
+        } else {
+            chunks.put(key, getSharedChunk(value));
+        }
+        cachedChunk = null;
+    }
+
+    /** @param value value of all cells.
+     * @return immutable chunk shared by all uniform regions with the selected value. */
+    private float[] getSharedChunk(final float value) {
+        float[] chunk = sharedChunks.get(value);
+        if (chunk == null) {
+            final int size = getChunkSize();
+            chunk = new float[size * size];
+            fillArray(chunk, value);
+            sharedChunks.put(value, chunk);
+        }
+        return chunk;
+    }
+
+    private boolean isShared(final float[] chunk) {
+        return sharedChunks.get(chunk[0]) == chunk;
+    }
+
+    private static boolean isUniform(final float[] chunk) {
+        final int value = Float.floatToIntBits(chunk[0]);
+        for (int index = 1, length = chunk.length; index < length; index++) {
+            if (Float.floatToIntBits(chunk[index]) != value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void fillArray(final float[] array, final float value) {
+        for (int index = 0, length = array.length; index < length; index++) {
+            array[index] = value;
+        }
+    }
+
+    /** A bounded {@link Grid} representing a rectangle of the {@link ChunkedGrid}. Can be processed by all
+     * generators. Since the chunked map is not thread-safe, windows ignore {@link #getExecutor()} and always process
+     * the cells on the current thread.
+     *
+     * @author MJ */
+    public class Window extends VirtualGrid {
+        private final int offsetX, offsetY;
+
+        /** @param offsetX column index of the first cell of the window in the map.
+         * @param offsetY row index of the first cell of the window in the map.
+         * @param width amount of columns.
+         * @param height amount of rows. */
+        public Window(final int offsetX, final int offsetY, final int width, final int height) {
+            super(width, height);
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+        }
+
+        /** @return map containing the window. */
+        public ChunkedGrid getChunkedGrid() {
+            return ChunkedGrid.this;
+        }
+
+        /** @return column index of the first cell of the window in the map. */
+        public int getOffsetX() {
+            return offsetX;
+        }
+
+        /** @return row index of the first cell of the window in the map. */
+        public int getOffsetY() {
+            return offsetY;
+        }
+
+        @Override
+        public float get(final int x, final int y) {
+            return ChunkedGrid.this.get(offsetX + x, offsetY + y);
+        }
+
+        @Override
+        public float set(final int x, final int y, final float value) {
+            return ChunkedGrid.this.set(offsetX + x, offsetY + y, value);
+        }
+
+        @Override
+        public void execute(final RowTask task) {
+            task.process(0, height); // Chunk map is not thread-safe.
+        }
+
+        @Override
+        public Grid set(final float value) {
+            ChunkedGrid.this.fill(offsetX, offsetY, offsetX + width, offsetY + height, value);
+            return this;
+        }
+
+        /** @return a new array-backed grid with the window's size and values. Does not allocate any chunks. */
+        @Override
+        public Grid copy() {
+            final Grid grid = new Grid(width, height);
+            grid.set(this);
+            return grid;
+        }
+    }
+}
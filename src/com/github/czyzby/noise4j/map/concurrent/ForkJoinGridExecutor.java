@@ -0,0 +1,111 @@
+package com.github.czyzby.noise4j.map.concurrent;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.github.czyzby.noise4j.map.GridExecutor;
+
+/** Splits grid rows into bands processed by a {@link ForkJoinPool}. Grids with less cells than the chosen threshold
+ * are processed sequentially on the current thread, as the cost of scheduling the tasks would outweigh the gains.
+ *
+ * <p>
+ * Requires Java 7. Not available on GWT.
+ *
+ * @author MJ */
+public class ForkJoinGridExecutor implements GridExecutor {
+    /** Default minimum amount of cells of a processed grid (and a single row band) before the work is split. */
+    public static final int DEFAULT_THRESHOLD = 64 * 1024;
+    private static ForkJoinPool SHARED_POOL;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /** Uses a shared pool with one thread per available processor and {@link #DEFAULT_THRESHOLD}. */
+    public ForkJoinGridExecutor() {
+        this(getSharedPool());
+    }
+
+    /** @param pool will process row bands. Uses {@link #DEFAULT_THRESHOLD}. */
+    public ForkJoinGridExecutor(final ForkJoinPool pool) {
+        this(pool, DEFAULT_THRESHOLD);
+    }
+
+    /** @param pool will process row bands.
+     * @param threshold grids with less cells are processed sequentially. Row bands are not split further once they
+     *            contain less cells than this value. Has to be positive. */
+    public ForkJoinGridExecutor(final ForkJoinPool pool, final int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold has to be positive. Received: " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /** @return lazily created pool shared by the executors constructed without a pool. */
+    private static synchronized ForkJoinPool getSharedPool() {
+        if (SHARED_POOL == null) {
+            SHARED_POOL = new ForkJoinPool();
+        }
+        return SHARED_POOL;
+    }
+
+    /** @return processes row bands. */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /** @return grids with less cells are processed sequentially. */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public void execute(final int width, final int height, final RowTask task) {
+        if ((long) width * height < threshold || height < 2) {
+            task.process(0, height);
+        } else {
+            pool.invoke(new RowBandAction(task, width, 0, height));
+        }
+    }
+
+    /** Recursively splits row ranges in halves until they are small enough.
+     *
+     * @author MJ */
+    private class RowBandAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final RowTask task;
+        private final int width;
+        private final int fromY, toY;
+
+        public RowBandAction(final RowTask task, final int width, final int fromY, final int toY) {
+            this.task = task;
+            this.width = width;
+            this.fromY = fromY;
+            this.toY = toY;
+        }
+
+        @Override
+        protected void compute() {
+            final int rows = toY - fromY;
+            if (rows < 2 || (long) rows * width <= threshold) {
+                task.process(fromY, toY);
+            } else {
+                final int middle = fromY + rows / 2;
+                final RowBandAction bottomBand = new RowBandAction(task, width, middle, toY);
+                bottomBand.fork();
+                boolean completed = false;
+                try {
+                    new RowBandAction(task, width, fromY, middle).compute();
+                    completed = true;
+                } finally {
+                    // Unlike invokeAll, always waits for the other band - even if this one fails:
+                    if (completed) {
+                        bottomBand.join();
+                    } else {
+                        bottomBand.quietlyJoin();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.czyzby.noise4j.map.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import com.github.czyzby.noise4j.map.GridExecutor;
+
+/** Splits grid rows into a fixed amount of stripes processed by a {@link Executor} - for example, an existing thread
+ * pool of the application. One of the stripes is processed by the current thread, which then waits until all other
+ * stripes are processed. Grids with less cells than the chosen threshold are processed sequentially on the current
+ * thread.
+ *
+ * <p>
+ * The method always waits for all submitted stripes, even if the stripe of the current thread throws an exception, the
+ * executor rejects a stripe or the thread is interrupted - so no rows are modified after it returns or throws.
+ *
+ * <p>
+ * Since the current thread is blocked until the stripes are processed, the executor should not run its tasks on the
+ * thread that uses this grid executor: for example, a single-threaded executor must not process grids with this class
+ * from within its own tasks. Not available on GWT.
+ *
+ * @author MJ
+ * @see ForkJoinGridExecutor */
+public class StripedGridExecutor implements GridExecutor {
+    private final Executor executor;
+    private final int stripes;
+    private final int threshold;
+
+    /** @param executor will process row stripes.
+     * @param stripes amount of row stripes. Usually should match the amount of executor's threads. Has to be
+     *            positive. */
+    public StripedGridExecutor(final Executor executor, final int stripes) {
+        this(executor, stripes, ForkJoinGridExecutor.DEFAULT_THRESHOLD);
+    }
+
+    /** @param executor will process row stripes.
+     * @param stripes amount of row stripes. Usually should match the amount of executor's threads. Has to be
+     *            positive.
+     * @param threshold grids with less cells are processed sequentially. Has to be positive. */
+    public StripedGridExecutor(final Executor executor, final int stripes, final int threshold) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null.");
+        } else if (stripes <= 0 || threshold <= 0) {
+            throw new IllegalArgumentException("Stripes amount and threshold have to be positive. Received: "
+                    + stripes + ", " + threshold);
+        }
+        this.executor = executor;
+        this.stripes = stripes;
+        this.threshold = threshold;
+    }
+
+    /** @return processes row stripes. */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /** @return amount of row stripes. */
+    public int getStripes() {
+        return stripes;
+    }
+
+    /** @return grids with less cells are processed sequentially. */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public void execute(final int width, final int height, final RowTask task) {
+        final int stripesAmount = Math.min(stripes, height);
+        if ((long) width * height < threshold || stripesAmount < 2) {
+            task.process(0, height);
+            return;
+        }
+        final CountDownLatch latch = new CountDownLatch(stripesAmount - 1);
+        final Throwable[] error = new Throwable[1];
+        RuntimeException rejection = null;
+        for (int stripe = 1; stripe < stripesAmount; stripe++) {
+            final int fromY = getStripeStart(stripe, stripesAmount, height);
+            final int toY = getStripeStart(stripe + 1, stripesAmount, height);
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            task.process(fromY, toY);
+                        } catch (final Throwable exception) {
+                            synchronized (error) {
+                                error[0] = exception;
+                            }
+                        } finally {
+                            latch.countDown();
+                        }
+                    }
+                });
+            } catch (final RuntimeException exception) { // Usually RejectedExecutionException.
+                // Stripes that were not submitted will never count down:
+                for (int skipped = stripe; skipped < stripesAmount; skipped++) {
+                    latch.countDown();
+                }
+                rejection = exception;
+                break;
+            }
+        }
+        RuntimeException callerException = null;
+        Error callerError = null;
+        if (rejection == null) {
+            try {
+                task.process(0, getStripeStart(1, stripesAmount, height));
+            } catch (final RuntimeException exception) {
+                callerException = exception;
+            } catch (final Error exception) {
+                callerError = exception;
+            }
+        }
+        // The executor is a barrier: submitted stripes might still modify the grid, so they are always awaited.
+        awaitStripes(latch);
+        if (callerError != null) {
+            throw callerError;
+        } else if (callerException != null) {
+            throw callerException;
+        } else if (rejection != null) {
+            throw rejection;
+        }
+        synchronized (error) {
+            if (error[0] != null) {
+                throw new IllegalStateException("Unable to process row stripe.", error[0]);
+            }
+        }
+    }
+
+    /** @param latch will be awaited even if the thread is interrupted. Interrupted status is restored afterwards. */
+    private static void awaitStripes(final CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (final InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return index of the first row of the stripe. Stripes have equal sizes, give or take a row. */
+    private static int getStripeStart(final int stripe, final int stripesAmount, final int height) {
+        return (int) ((long) stripe * height / stripesAmount);
+    }
+}
@@ -0,0 +1,328 @@
+package com.github.czyzby.noise4j.map.filter;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+import com.github.czyzby.noise4j.map.GridPool;
+import com.github.czyzby.noise4j.map.VirtualGrid;
+import com.github.czyzby.noise4j.map.generator.util.Generators;
+
+/** Applies convolution {@link Kernel kernels} to grids: each cell is replaced with a weighted sum of its neighbors'
+ * values. Can be used to blur noise, soften cave walls or detect edges. Cells outside of the grid are handled
+ * according to the current {@link EdgeMode}.
+ *
+ * <p>
+ * Separable kernels are applied in two one-dimensional passes; kernels with uniform weights (see
+ * {@link Kernel#box(int)}) are applied with running sums, so box blur cost does not depend on its radius. Grids are
+ * processed in bands of rows, in parallel if the grid has an {@link Grid#getExecutor() executor}. Temporary grids are
+ * obtained from {@link Generators#getGridPool()}. Convolution instances can be shared by multiple threads, as long as
+ * their settings are not modified.
+ *
+ * @author MJ */
+public class Convolution {
+    private EdgeMode edgeMode = EdgeMode.CLAMP;
+    private float edgeValue;
+
+    /** Creates a convolution with {@link EdgeMode#CLAMP}. */
+    public Convolution() {
+    }
+
+    /** @param edgeMode decides how cells outside of the grid are handled. */
+    public Convolution(final EdgeMode edgeMode) {
+        setEdgeMode(edgeMode);
+    }
+
+    /** @return decides how cells outside of the grid are handled. */
+    public EdgeMode getEdgeMode() {
+        return edgeMode;
+    }
+
+    /** @param edgeMode decides how cells outside of the grid are handled. */
+    public void setEdgeMode(final EdgeMode edgeMode) {
+        if (edgeMode == null) {
+            throw new IllegalArgumentException("Edge mode cannot be null.");
+        }
+        this.edgeMode = edgeMode;
+    }
+
+    /** @return value of cells outside of the grid in {@link EdgeMode#CONSTANT} mode. */
+    public float getEdgeValue() {
+        return edgeValue;
+    }
+
+    /** @param edgeValue value of cells outside of the grid in {@link EdgeMode#CONSTANT} mode. Defaults to 0. */
+    public void setEdgeValue(final float edgeValue) {
+        this.edgeValue = edgeValue;
+    }
+
+    /** @param grid will be blurred.
+     * @param radius distance between the cell and its farthest neighbors included in the average.
+     * @return passed grid, for chaining.
+     * @see Kernel#box(int) */
+    public Grid boxBlur(final Grid grid, final int radius) {
+        return apply(grid, Kernel.box(radius));
+    }
+
+    /** @param grid will be blurred.
+     * @param sigma standard deviation of the Gaussian function.
+     * @return passed grid, for chaining.
+     * @see Kernel#gaussian(float) */
+    public Grid gaussianBlur(final Grid grid, final float sigma) {
+        return apply(grid, Kernel.gaussian(sigma));
+    }
+
+    /** @param grid each of its cells will be replaced with a weighted sum of its neighbors.
+     * @param kernel contains weights of the neighbors.
+     * @return passed grid, for chaining. */
+    public Grid apply(final Grid grid, final Kernel kernel) {
+        final GridPool pool = Generators.getGridPool();
+        final Grid buffer = pool.obtainGrid(grid.getWidth(), grid.getHeight());
+        if (kernel.isSeparable()) {
+            final float[] horizontal = kernel.getHorizontalArray();
+            final float[] vertical = kernel.getVerticalArray();
+            float horizontalSum = 0f;
+            for (final float weight : horizontal) {
+                horizontalSum += weight;
+            }
+            applyHorizontal(grid, buffer, horizontal);
+            // Rows outside of the grid were not processed by the horizontal pass:
+            applyVertical(buffer, grid, vertical, edgeValue * horizontalSum);
+        } else {
+            buffer.setExecutor(grid.getExecutor());
+            buffer.set(grid);
+            apply(buffer, grid, kernel);
+        }
+        pool.free(buffer);
+        return grid;
+    }
+
+    /** @param source its rows will be read.
+     * @param target will contain rows convolved with the horizontal weights. */
+    private void applyHorizontal(final Grid source, final Grid target, final float[] weights) {
+        final int width = source.getWidth();
+        final int radius = weights.length / 2;
+        final boolean uniform = Kernel.isUniform(weights);
+        source.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final float[] padded = new float[width + radius * 2];
+                final float[] row = new float[width];
+                for (int y = fromY; y < toY; y++) {
+                    loadPaddedRow(source, y, padded, radius);
+                    if (uniform) {
+                        convolveUniform(padded, row, width, weights.length, weights[0]);
+                    } else {
+                        convolve(padded, row, width, weights, 0, false);
+                    }
+                    writeRow(target, y, row);
+                }
+            }
+        });
+    }
+
+    /** @param source its rows will be read. Has to be backed by an array.
+     * @param target will contain rows convolved with the vertical weights.
+     * @param constant value of rows outside of the grid in {@link EdgeMode#CONSTANT} mode. */
+    private void applyVertical(final Grid source, final Grid target, final float[] weights, final float constant) {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final int radius = weights.length / 2;
+        final boolean uniform = Kernel.isUniform(weights);
+        final float[] array = source.getArray();
+        target.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final float[] row = new float[width];
+                if (uniform) {
+                    // Running sums of columns: adding the entering row and subtracting the leaving one.
+                    final double[] sums = new double[width];
+                    for (int y = fromY - radius; y <= fromY + radius; y++) {
+                        addRow(sums, array, source, edgeMode.resolve(y, height), constant, 1.0);
+                    }
+                    final double weight = weights[0];
+                    for (int y = fromY; y < toY; y++) {
+                        for (int x = 0; x < width; x++) {
+                            row[x] = (float) (sums[x] * weight);
+                        }
+                        writeRow(target, y, row);
+                        if (y + 1 < toY) {
+                            addRow(sums, array, source, edgeMode.resolve(y - radius, height), constant, -1.0);
+                            addRow(sums, array, source, edgeMode.resolve(y + radius + 1, height), constant, 1.0);
+                        }
+                    }
+                    return;
+                }
+                for (int y = fromY; y < toY; y++) {
+                    for (int x = 0; x < width; x++) {
+                        row[x] = 0f;
+                    }
+                    for (int index = 0; index < weights.length; index++) {
+                        final float weight = weights[index];
+                        final int sourceY = edgeMode.resolve(y + index - radius, height);
+                        if (sourceY < 0) {
+                            final float value = weight * constant;
+                            for (int x = 0; x < width; x++) {
+                                row[x] += value;
+                            }
+                        } else {
+                            for (int x = 0, sourceIndex = source.toIndex(0, sourceY); x < width; x++, sourceIndex++) {
+                                row[x] += weight * array[sourceIndex];
+                            }
+                        }
+                    }
+                    writeRow(target, y, row);
+                }
+            }
+        });
+    }
+
+    private static void addRow(final double[] sums, final float[] array, final Grid source, final int y,
+            final float constant, final double sign) {
+        if (y < 0) {
+            for (int x = 0; x < sums.length; x++) {
+                sums[x] += sign * constant;
+            }
+        } else {
+            for (int x = 0, index = source.toIndex(0, y); x < sums.length; x++, index++) {
+                sums[x] += sign * array[index];
+            }
+        }
+    }
+
+    /** @param source copy of the processed grid. Its rows will be read.
+     * @param target will contain convolved rows. */
+    private void apply(final Grid source, final Grid target, final Kernel kernel) {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final int radiusX = kernel.getRadiusX();
+        final int radiusY = kernel.getRadiusY();
+        final float[] weights = kernel.getWeightsArray();
+        target.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final float[] padded = new float[width + radiusX * 2];
+                final float[] row = new float[width];
+                for (int y = fromY; y < toY; y++) {
+                    for (int x = 0; x < width; x++) {
+                        row[x] = 0f;
+                    }
+                    for (int kernelY = 0; kernelY < kernel.getHeight(); kernelY++) {
+                        final int sourceY = edgeMode.resolve(y + kernelY - radiusY, height);
+                        if (sourceY < 0) {
+                            for (int index = 0; index < padded.length; index++) {
+                                padded[index] = edgeValue;
+                            }
+                        } else {
+                            loadPaddedRow(source, sourceY, padded, radiusX);
+                        }
+                        convolve(padded, row, width, weights, kernelY * kernel.getWidth(), true);
+                    }
+                    writeRow(target, y, row);
+                }
+            }
+        });
+    }
+
+    /** @param padded contains a row of cells with additional cells on both sides.
+     * @param row will contain the results.
+     * @param width amount of cells in the row.
+     * @param weights weights of the neighbors.
+     * @param offset index of the first used weight. Amount of used weights is equal to the padding size plus one.
+     * @param accumulate if true, results will be added to the current row values. */
+    private static void convolve(final float[] padded, final float[] row, final int width, final float[] weights,
+            final int offset, final boolean accumulate) {
+        final int length = padded.length - width + 1;
+        for (int x = 0; x < width; x++) {
+            float sum = accumulate ? row[x] : 0f;
+            for (int index = 0; index < length; index++) {
+                sum += weights[offset + index] * padded[x + index];
+            }
+            row[x] = sum;
+        }
+    }
+
+    /** @param padded contains a row of cells with additional cells on both sides.
+     * @param row will contain the results.
+     * @param width amount of cells in the row.
+     * @param length amount of weights.
+     * @param weight value of all weights. */
+    private static void convolveUniform(final float[] padded, final float[] row, final int width, final int length,
+            final float weight) {
+        double sum = 0.0;
+        for (int index = 0; index < length; index++) {
+            sum += padded[index];
+        }
+        row[0] = (float) (sum * weight);
+        for (int x = 1; x < width; x++) {
+            sum += padded[x + length - 1] - padded[x - 1];
+            row[x] = (float) (sum * weight);
+        }
+    }
+
+    /** @param grid its row will be copied.
+     * @param y row index.
+     * @param padded will contain the row values and additional edge cells on both sides.
+     * @param padding amount of edge cells on each side. */
+    private void loadPaddedRow(final Grid grid, final int y, final float[] padded, final int padding) {
+        final int width = grid.getWidth();
+        if (grid instanceof VirtualGrid) {
+            for (int x = 0; x < width; x++) {
+                padded[padding + x] = grid.get(x, y);
+            }
+        } else {
+            System.arraycopy(grid.getArray(), grid.toIndex(0, y), padded, padding, width);
+        }
+        for (int index = 0; index < padding; index++) {
+            final int left = edgeMode.resolve(index - padding, width);
+            padded[index] = left < 0 ? edgeValue : padded[padding + left];
+            final int right = edgeMode.resolve(width + index, width);
+            padded[padding + width + index] = right < 0 ? edgeValue : padded[padding + right];
+        }
+    }
+
+    /** @param grid its row will be modified.
+     * @param y row index.
+     * @param row will be copied to the grid. */
+    static void writeRow(final Grid grid, final int y, final float[] row) {
+        if (grid instanceof VirtualGrid) {
+            for (int x = 0; x < row.length; x++) {
+                grid.set(x, y, row[x]);
+            }
+        } else {
+            System.arraycopy(row, 0, grid.getArray(), grid.toIndex(0, y), row.length);
+        }
+    }
+
+    /** Decides how cells outside of the grid are handled.
+     *
+     * @author MJ */
+    public static enum EdgeMode {
+        /** Cells outside of the grid have the value of the nearest edge cell. */
+        CLAMP {
+            @Override
+            public int resolve(final int index, final int size) {
+                return index < 0 ? 0 : index >= size ? size - 1 : index;
+            }
+        },
+        /** Grid is treated as if it was repeated infinitely: cells on the opposite edge are used. Makes the results
+         * tileable. */
+        WRAP {
+            @Override
+            public int resolve(final int index, final int size) {
+                final int wrapped = index % size;
+                return wrapped < 0 ? wrapped + size : wrapped;
+            }
+        },
+        /** Cells outside of the grid have a constant value. See {@link Convolution#setEdgeValue(float)}. */
+        CONSTANT {
+            @Override
+            public int resolve(final int index, final int size) {
+                return index < 0 || index >= size ? -1 : index;
+            }
+        };
+
+        /** @param index column or row index. Might be outside of the grid.
+         * @param size amount of columns or rows.
+         * @return index of the cell within the grid that should be used or -1 if a constant value should be used. */
+        public abstract int resolve(int index, int size);
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.czyzby.noise4j.map.filter;
+
+/** Immutable convolution kernel: a rectangular matrix of weights with odd width and height, centered on the processed
+ * cell. Separable kernels - defined as an outer product of a horizontal and a vertical vector, like box and Gaussian
+ * kernels - can be applied in two one-dimensional passes, which is much faster for bigger kernels; kernels with
+ * uniform weights (box blur) are applied with running sums, so their cost does not depend on the kernel size.
+ *
+ * @author MJ
+ * @see Convolution */
+public class Kernel {
+    private final int width;
+    private final int height;
+    private final float[] weights;
+    private final float[] horizontal;
+    private final float[] vertical;
+
+    /** @param width amount of columns. Has to be odd.
+     * @param height amount of rows. Has to be odd.
+     * @param weights weights in row-major order. Its length has to be equal width multiplied by height. Will be
+     *            copied. */
+    public Kernel(final int width, final int height, final float... weights) {
+        validateSize(width);
+        validateSize(height);
+        if (weights.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " weights, received: " + weights.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.weights = weights.clone();
+        horizontal = null;
+        vertical = null;
+    }
+
+    /** Creates a separable kernel.
+     *
+     * @param horizontal weights of a single row. Length has to be odd. Will be copied.
+     * @param vertical weights of a single column. Length has to be odd. Will be copied. */
+    public Kernel(final float[] horizontal, final float[] vertical) {
+        validateSize(horizontal.length);
+        validateSize(vertical.length);
+        width = horizontal.length;
+        height = vertical.length;
+        this.horizontal = horizontal.clone();
+        this.vertical = vertical.clone();
+        weights = new float[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                weights[x + y * width] = horizontal[x] * vertical[y];
+            }
+        }
+    }
+
+    private static void validateSize(final int size) {
+        if (size <= 0 || size % 2 == 0) {
+            throw new IllegalArgumentException("Kernel sizes have to be positive and odd, received: " + size);
+        }
+    }
+
+    /** @param radius distance from the center cell. Kernel will have 2*radius+1 columns and rows.
+     * @return a separable kernel computing an average value of all cells in the square. */
+    public static Kernel box(final int radius) {
+        final float[] weights = new float[radius * 2 + 1];
+        for (int index = 0; index < weights.length; index++) {
+            weights[index] = 1f / weights.length;
+        }
+        return new Kernel(weights, weights);
+    }
+
+    /** @param sigma standard deviation of the Gaussian function.
+     * @return a separable, normalized Gaussian kernel with radius of 3 standard deviations (rounded up).
+     * @see #gaussian(int, float) */
+    public static Kernel gaussian(final float sigma) {
+        return gaussian(Math.max(1, (int) Math.ceil(sigma * 3f)), sigma);
+    }
+
+    /** @param radius distance from the center cell. Kernel will have 2*radius+1 columns and rows.
+     * @param sigma standard deviation of the Gaussian function.
+     * @return a separable, normalized Gaussian kernel. */
+    public static Kernel gaussian(final int radius, final float sigma) {
+        if (!(sigma > 0f)) {
+            throw new IllegalArgumentException("Sigma has to be positive, received: " + sigma);
+        }
+        final float[] weights = new float[radius * 2 + 1];
+        double sum = 0.0;
+        for (int index = 0; index < weights.length; index++) {
+            final int distance = index - radius;
+            weights[index] = (float) Math.exp(-distance * distance / (2.0 * sigma * sigma));
+            sum += weights[index];
+        }
+        for (int index = 0; index < weights.length; index++) {
+            weights[index] /= sum;
+        }
+        return new Kernel(weights, weights);
+    }
+
+    /** @return amount of columns. */
+    public int getWidth() {
+        return width;
+    }
+
+    /** @return amount of rows. */
+    public int getHeight() {
+        return height;
+    }
+
+    /** @return horizontal distance between the center and the edge of the kernel. */
+    public int getRadiusX() {
+        return width / 2;
+    }
+
+    /** @return vertical distance between the center and the edge of the kernel. */
+    public int getRadiusY() {
+        return height / 2;
+    }
+
+    /** @param x column index.
+     * @param y row index.
+     * @return weight of the selected cell. */
+    public float get(final int x, final int y) {
+        return weights[x + y * width];
+    }
+
+    /** @return true if the kernel can be applied with two one-dimensional passes. */
+    public boolean isSeparable() {
+        return horizontal != null;
+    }
+
+    /** @return a copy of weights in row-major order. */
+    public float[] getWeights() {
+        return weights.clone();
+    }
+
+    /** @return a copy of weights of a single row of a separable kernel. Null if the kernel is not separable. */
+    public float[] getHorizontal() {
+        return horizontal == null ? null : horizontal.clone();
+    }
+
+    /** @return a copy of weights of a single column of a separable kernel. Null if the kernel is not separable. */
+    public float[] getVertical() {
+        return vertical == null ? null : vertical.clone();
+    }
+
+    /** @return direct reference to the row-major weights. Should not be modified. */
+    float[] getWeightsArray() {
+        return weights;
+    }
+
+    /** @return direct reference to the horizontal weights. Should not be modified. */
+    float[] getHorizontalArray() {
+        return horizontal;
+    }
+
+    /** @return direct reference to the vertical weights. Should not be modified. */
+    float[] getVerticalArray() {
+        return vertical;
+    }
+
+    /** @param weights a vector of weights.
+     * @return true if all weights are equal. */
+    static boolean isUniform(final float[] weights) {
+        for (final float weight : weights) {
+            if (Float.compare(weight, weights[0]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
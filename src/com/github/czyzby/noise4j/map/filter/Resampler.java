@@ -0,0 +1,186 @@
+package com.github.czyzby.noise4j.map.filter;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+import com.github.czyzby.noise4j.map.VirtualGrid;
+
+/** Resizes grids using the chosen {@link Interpolation}. Allows to generate a small map and scale it up, which is much
+ * cheaper than generating a big map - especially with noise generators, which produce smooth values anyway.
+ *
+ * <p>
+ * Grid cells are treated as samples placed in the centers of unit squares, so corners of the resized grid match the
+ * corners of the original; cells outside of the source grid are clamped to the nearest edge. Source positions and
+ * weights of all columns and rows are computed once per resize operation, so the cost of processing a cell does not
+ * include any interpolation function calls. Target grid is processed in bands of rows, in parallel if it has an
+ * {@link Grid#getExecutor() executor}. Note that downscaling samples the source grid rather than averaging all covered
+ * cells: use {@link Convolution} to blur the grid first if you need to avoid aliasing. Resampler is immutable and
+ * thread-safe.
+ *
+ * @author MJ */
+public class Resampler {
+    private final Interpolation interpolation;
+
+    /** Creates a resampler using {@link Interpolation#BILINEAR}. */
+    public Resampler() {
+        this(Interpolation.BILINEAR);
+    }
+
+    /** @param interpolation decides how values between the cells are computed. */
+    public Resampler(final Interpolation interpolation) {
+        if (interpolation == null) {
+            throw new IllegalArgumentException("Interpolation cannot be null.");
+        }
+        this.interpolation = interpolation;
+    }
+
+    /** @return decides how values between the cells are computed. */
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    /** @param source will be resized. Not modified.
+     * @param width amount of columns of the resized grid.
+     * @param height amount of rows of the resized grid.
+     * @return a new grid with resized values of the source grid. Uses the same executor as the source grid. */
+    public Grid resize(final Grid source, final int width, final int height) {
+        final Grid target = new Grid(width, height);
+        target.setExecutor(source.getExecutor());
+        return resize(source, target);
+    }
+
+    /** @param source will be resized. Not modified. Has to be a different instance than target.
+     * @param target will contain resized values of the source grid. Its previous values are replaced.
+     * @return target grid, for chaining. */
+    public Grid resize(final Grid source, final Grid target) {
+        if (source == target) {
+            throw new IllegalArgumentException("Unable to resize the grid in place.");
+        }
+        final int sourceWidth = source.getWidth();
+        final int targetWidth = target.getWidth();
+        final Axis columns = new Axis(interpolation, sourceWidth, targetWidth);
+        final Axis rows = new Axis(interpolation, source.getHeight(), target.getHeight());
+        final float[] array = source instanceof VirtualGrid ? null : source.getArray();
+        target.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                final float[] blended = new float[sourceWidth];
+                final float[] row = new float[targetWidth];
+                for (int y = fromY; y < toY; y++) {
+                    // Vertical pass: blending source rows into a single row.
+                    for (int x = 0; x < sourceWidth; x++) {
+                        blended[x] = 0f;
+                    }
+                    for (int tap = 0, index = y * rows.taps; tap < rows.taps; tap++, index++) {
+                        final int sourceY = rows.indexes[index];
+                        final float weight = rows.weights[index];
+                        if (array == null) {
+                            for (int x = 0; x < sourceWidth; x++) {
+                                blended[x] += weight * source.get(x, sourceY);
+                            }
+                        } else {
+                            for (int x = 0, sourceIndex = source.toIndex(0, sourceY); x < sourceWidth; x++,
+                                    sourceIndex++) {
+                                blended[x] += weight * array[sourceIndex];
+                            }
+                        }
+                    }
+                    // Horizontal pass: sampling the blended row.
+                    for (int x = 0, index = 0; x < targetWidth; x++) {
+                        float value = 0f;
+                        for (int tap = 0; tap < columns.taps; tap++, index++) {
+                            value += columns.weights[index] * blended[columns.indexes[index]];
+                        }
+                        row[x] = value;
+                    }
+                    Convolution.writeRow(target, y, row);
+                }
+            }
+        });
+        return target;
+    }
+
+    /** Source positions and weights of all target cells along a single axis.
+     *
+     * @author MJ */
+    private static class Axis {
+        private final int taps;
+        private final int[] indexes;
+        private final float[] weights;
+
+        public Axis(final Interpolation interpolation, final int sourceSize, final int targetSize) {
+            taps = interpolation.getTaps();
+            indexes = new int[targetSize * taps];
+            weights = new float[targetSize * taps];
+            final double scale = (double) sourceSize / targetSize;
+            final float[] cellWeights = new float[taps];
+            for (int cell = 0; cell < targetSize; cell++) {
+                // Position of the target cell's center in source coordinates:
+                final double position = (cell + 0.5) * scale - 0.5;
+                final int first = interpolation.getWeights(position, cellWeights);
+                for (int tap = 0; tap < taps; tap++) {
+                    final int index = first + tap;
+                    indexes[cell * taps + tap] = index < 0 ? 0 : index >= sourceSize ? sourceSize - 1 : index;
+                    weights[cell * taps + tap] = cellWeights[tap];
+                }
+            }
+        }
+    }
+
+    /** Decides how values between the cells are computed.
+     *
+     * @author MJ */
+    public static enum Interpolation {
+        /** Uses the value of the nearest cell. Fastest; produces blocky results when upscaling. */
+        NEAREST(1) {
+            @Override
+            protected int getWeights(final double position, final float[] weights) {
+                weights[0] = 1f;
+                return (int) Math.floor(position + 0.5);
+            }
+        },
+        /** Linearly interpolates between the 2 nearest cells on each axis. Values never exceed the range of the
+         * original values. */
+        BILINEAR(2) {
+            @Override
+            protected int getWeights(final double position, final float[] weights) {
+                final int first = (int) Math.floor(position);
+                final float fraction = (float) (position - first);
+                weights[0] = 1f - fraction;
+                weights[1] = fraction;
+                return first;
+            }
+        },
+        /** Uses cubic Catmull-Rom splines through the 4 nearest cells on each axis. Produces the smoothest results,
+         * but values can slightly exceed the range of the original values near sharp edges. */
+        BICUBIC(4) {
+            @Override
+            protected int getWeights(final double position, final float[] weights) {
+                final int first = (int) Math.floor(position);
+                final float t = (float) (position - first);
+                final float t2 = t * t;
+                final float t3 = t2 * t;
+                weights[0] = 0.5f * (-t3 + 2f * t2 - t);
+                weights[1] = 0.5f * (3f * t3 - 5f * t2 + 2f);
+                weights[2] = 0.5f * (-3f * t3 + 4f * t2 + t);
+                weights[3] = 0.5f * (t3 - t2);
+                return first - 1;
+            }
+        };
+
+        private final int taps;
+
+        private Interpolation(final int taps) {
+            this.taps = taps;
+        }
+
+        /** @return amount of source cells used to compute a value along a single axis. */
+        public int getTaps() {
+            return taps;
+        }
+
+        /** @param position position in source coordinates. Might be between the cells.
+         * @param weights will contain weights of {@link #getTaps()} consecutive source cells.
+         * @return index of the first source cell. Might be outside of the grid: indexes are clamped by the caller. */
+        protected abstract int getWeights(double position, float[] weights);
+    }
+}
@@ -28,4 +28,11 @@ public abstract class AbstractGenerator implements Generator {
     protected void modifyCell(final Grid grid, final int x, final int y, final float value) {
         mode.modify(grid, x, y, value);
     }
+
+    /** @param array direct reference to processed grid's array.
+     * @param index array index of a cell.
+     * @param value will modify current cell value. */
+    protected void modifyCell(final float[] array, final int index, final float value) {
+        mode.modify(array, index, value);
+    }
 }
@@ -26,6 +26,11 @@ public interface Generator {
             public void modify(final Grid grid, final int x, final int y, final float value) {
                 grid.add(x, y, value);
             }
+
+            @Override
+            public void modify(final float[] array, final int index, final float value) {
+                array[index] += value;
+            }
         },
         /** Subtracts value from the current cell's value. */
         SUBTRACT {
@@ -33,6 +38,11 @@ public interface Generator {
             public void modify(final Grid grid, final int x, final int y, final float value) {
                 grid.subtract(x, y, value);
             }
+
+            @Override
+            public void modify(final float[] array, final int index, final float value) {
+                array[index] -= value;
+            }
         },
         /** Multiplies current cell's value. */
         MULTIPLY {
@@ -40,6 +50,11 @@ public interface Generator {
             public void modify(final Grid grid, final int x, final int y, final float value) {
                 grid.multiply(x, y, value);
             }
+
+            @Override
+            public void modify(final float[] array, final int index, final float value) {
+                array[index] *= value;
+            }
         },
         /** Divides current cell's value. */
         DIVIDE {
@@ -47,6 +62,11 @@ public interface Generator {
             public void modify(final Grid grid, final int x, final int y, final float value) {
                 grid.divide(x, y, value);
             }
+
+            @Override
+            public void modify(final float[] array, final int index, final float value) {
+                array[index] /= value;
+            }
         },
         /** Replaces current cell's value. */
         REPLACE {
@@ -54,6 +74,11 @@ public interface Generator {
             public void modify(final Grid grid, final int x, final int y, final float value) {
                 grid.set(x, y, value);
             }
+
+            @Override
+            public void modify(final float[] array, final int index, final float value) {
+                array[index] = value;
+            }
         };
 
         /** @param grid contains a cell.
@@ -61,5 +86,11 @@ public interface Generator {
          * @param y cell row index.
          * @param value will modify current cell value. */
         public abstract void modify(Grid grid, int x, int y, float value);
+
+        /** @param array direct reference to a grid's array.
+         * @param index array index of a cell.
+         * @param value will modify current cell value.
+         * @see Grid#getArray() */
+        public abstract void modify(float[] array, int index, float value);
     }
 }
@@ -1,11 +1,19 @@
 package com.github.czyzby.noise4j.map.generator.cellular;
 
+import java.util.Arrays;
 import java.util.Random;
 
+import com.github.czyzby.noise4j.array.Int2dArray;
+import com.github.czyzby.noise4j.map.BitGrid;
 import com.github.czyzby.noise4j.map.Grid;
 import com.github.czyzby.noise4j.map.Grid.CellConsumer;
+import com.github.czyzby.noise4j.map.Grid.RowConsumer;
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+import com.github.czyzby.noise4j.map.VirtualGrid;
 import com.github.czyzby.noise4j.map.generator.AbstractGenerator;
 import com.github.czyzby.noise4j.map.generator.util.Generators;
+import com.github.czyzby.noise4j.map.generator.util.Overrides;
+import com.github.czyzby.noise4j.map.generator.util.RandomStream;
 
 /** Contains a marker - a single float value; every cell below this value is considered dead, the others are alive.
  * During each iteration, if a living cell has too few living neighbors, it will die (marker will be subtracted from its
@@ -17,8 +25,29 @@ import com.github.czyzby.noise4j.map.generator.util.Generators;
  * Since this generator creates pretty much boolean-based maps (sets each cell as dead or alive), this generator is
  * usually used first to create the general layout of the map - like a caverns system or islands.
  *
+ * <p>
+ * Each iteration reads only the state of the cells from the previous iteration, so rows of the grid are processed in
+ * parallel if the grid has an {@link Grid#getExecutor() executor} - for example,
+ * {@link com.github.czyzby.noise4j.map.concurrent.ForkJoinGridExecutor}. The next iteration starts only after all rows
+ * are processed, and the results are always the same as in the sequential mode. Note that extensions of this class
+ * have to be thread-safe in this case: methods like {@link #setAlive(int, int, Context)} or {@link #shouldDie(int)}
+ * might be invoked concurrently for cells in different rows.
+ *
+ * <p>
+ * Generation does not modify the generator: temporary buffers and statistics of each generation are stored in a
+ * separate {@link Context}. Generator instances can be shared by multiple threads, as long as their settings are not
+ * modified. The only exception are extensions of this class that still rely on the deprecated hooks without a
+ * {@link Context} parameter - see {@link #isUsingLegacyHooks()}.
+ *
  * @author MJ */
 public class CellularAutomataGenerator extends AbstractGenerator implements CellConsumer {
+    /** Amount of cells in a single row span tracked by {@link #setTrackingChanges(boolean)} in regular grids. */
+    public static final int GRID_TILE_SIZE = 16;
+    /** Amount of cells in a single row span tracked by {@link #setTrackingChanges(boolean)} in bit grids. Matches the
+     * amount of cells stored in a single {@link BitGrid} word. */
+    public static final int BIT_GRID_TILE_SIZE = 64;
+    /** Default value of {@link #getSummedAreaRadius()}. */
+    public static final int DEFAULT_SUMMED_AREA_RADIUS = 2;
     private static CellularAutomataGenerator INSTANCE;
 
     private boolean initiate = true;
@@ -28,7 +57,17 @@ public class CellularAutomataGenerator extends AbstractGenerator implements Cell
     private int birthLimit = 4;
     private int deathLimit = 3;
     private int radius = 1;
-    private Grid temporaryGrid;
+    /** Null if not set: depends on {@link #isUsingLegacyHooks()}. */
+    private Boolean doubleBuffering;
+    private boolean bitParallel = true;
+    private boolean trackingChanges;
+    /** NaN if not set: depends on {@link #isUsingLegacyHooks()}. */
+    private float convergenceThreshold = Float.NaN;
+    private int summedAreaRadius = DEFAULT_SUMMED_AREA_RADIUS;
+    /** Context of the generation in progress. Set only if {@link #isUsingLegacyHooks()} returns true. */
+    private Context legacyContext;
+    /** Cached result of {@link #isUsingLegacyHooks()}. Null until the first check. */
+    private Boolean usingLegacyHooks;
 
     /** Not thread-safe. Uses static generator instance. Since this method provides only basic settings, creating or
      * obtaining an instance of the generator is generally preferred.
@@ -55,8 +94,9 @@ public class CellularAutomataGenerator extends AbstractGenerator implements Cell
         generator.generate(grid);
     }
 
-    /** @return static instance of the generator. Not thread-safe. */
-    public static CellularAutomataGenerator getInstance() {
+    /** @return static instance of the generator. Can be used by multiple threads, as long as its settings are not
+     *         modified during generation. Note that the static generate methods modify its settings. */
+    public static synchronized CellularAutomataGenerator getInstance() {
         if (INSTANCE == null) {
             INSTANCE = new CellularAutomataGenerator();
         }
@@ -144,93 +184,1075 @@ public class CellularAutomataGenerator extends AbstractGenerator implements Cell
         this.deathLimit = deathLimit;
     }
 
+    /** @return true if iterations alternate between the grid and a temporary buffer. Unless set with
+     *         {@link #setDoubleBuffering(boolean)}, returns true if {@link #isUsingLegacyHooks()} returns false. */
+    public boolean isDoubleBuffering() {
+        return doubleBuffering == null ? !isUsingLegacyHooks() : doubleBuffering.booleanValue();
+    }
+
+    /** @param doubleBuffering if true (the default without deprecated hooks), each iteration reads cells from one
+     *            buffer and writes them to the other - the processed grid and a temporary grid of the same size -
+     *            swapping the buffers between iterations, so the result has to be copied to the processed grid at most
+     *            once. If false, each iteration reads the processed grid, writes changes to a temporary copy and copies
+     *            all cells back to the grid. Both modes produce the same results, but double buffering requires
+     *            {@link #setAlive(int, int, Context)} and {@link #setDead(int, int, Context)} to modify only the chosen
+     *            cell: each row of the temporary grid is overridden right before it is processed. Since the deprecated
+     *            hooks were not written with this requirement in mind, double buffering is disabled by default if
+     *            {@link #isUsingLegacyHooks()} returns true. */
+    public void setDoubleBuffering(final boolean doubleBuffering) {
+        this.doubleBuffering = Boolean.valueOf(doubleBuffering);
+    }
+
+    /** @return true if {@link #generate(BitGrid)} computes neighbor counts of 64 cells at once when possible. */
+    public boolean isBitParallel() {
+        return bitParallel;
+    }
+
+    /** @param bitParallel if true (the default), {@link #generate(BitGrid)} with {@link #getRadius() radius} of 1
+     *            computes neighbor counts of 64 cells at once with bitwise operations on whole words. Both modes
+     *            produce the same results, but the bit-parallel mode does not use
+     *            {@link #countLivingNeighbors(BitGrid, int, int, Context)}: {@link #shouldDie(int)} and
+     *            {@link #shouldBeBorn(int)} are still honored. */
+    public void setBitParallel(final boolean bitParallel) {
+        this.bitParallel = bitParallel;
+    }
+
+    /** @return if {@link #getRadius() radius} is equal to or greater than this value, neighbors are counted with a
+     *         summed-area table.
+     * @see #setSummedAreaRadius(int) */
+    public int getSummedAreaRadius() {
+        return summedAreaRadius;
+    }
+
+    /** @param summedAreaRadius if {@link #getRadius() radius} is equal to or greater than this value, each iteration
+     *            starts with building a summed-area table of living cells: a table storing amounts of living cells in
+     *            rectangles spanning from the first cell to each cell. This allows to count living cells in any
+     *            rectangle with 4 table lookups, so the cost of each iteration no longer depends on the radius. The
+     *            table is obtained from {@link Generators#getGridPool()}. Defaults to
+     *            {@link #DEFAULT_SUMMED_AREA_RADIUS}; use {@link Integer#MAX_VALUE} to always count neighbors one by
+     *            one. Both modes produce the same results, but the table is built with {@link #isAlive(float)} and
+     *            {@link #countLivingNeighbors(Grid, int, int, Context)} reads the table instead of the grid. */
+    public void setSummedAreaRadius(final int summedAreaRadius) {
+        this.summedAreaRadius = summedAreaRadius;
+    }
+
+    /** @return true if cells are re-evaluated only near the cells that changed during the previous iteration. */
+    public boolean isTrackingChanges() {
+        return trackingChanges;
+    }
+
+    /** @param trackingChanges if true, each iteration records tiles - spans of {@link #GRID_TILE_SIZE} or
+     *            {@link #BIT_GRID_TILE_SIZE} cells of a single row - which contained changed cells. The next iteration
+     *            evaluates only the tiles within {@link #getRadius() radius} of the changed ones; the other cells keep
+     *            their state. After the first few iterations most cells usually stop changing, so the later iterations
+     *            cost a fraction of a full pass. Results are the same as in the default mode, as long as the next
+     *            state of each cell depends only on its current state and its neighbors - which is the case unless the
+     *            rules are customized with an extension of this class. Defaults to false. */
+    public void setTrackingChanges(final boolean trackingChanges) {
+        this.trackingChanges = trackingChanges;
+    }
+
+    /** @return iterations stop early if the fraction of cells changed by an iteration is equal to or lower than this
+     *         value. Unless set with {@link #setConvergenceThreshold(float)}, returns 0 - or -1 if
+     *         {@link #isUsingLegacyHooks()} returns true.
+     * @see #setConvergenceThreshold(float) */
+    public float getConvergenceThreshold() {
+        if (Float.isNaN(convergenceThreshold)) {
+            return isUsingLegacyHooks() ? -1f : 0f;
+        }
+        return convergenceThreshold;
+    }
+
+    /** @param convergenceThreshold iterations stop early if the fraction of cells changed by an iteration is equal to
+     *            or lower than this value. Defaults to 0: iterations stop only if no cells were changed, which does not
+     *            affect the results, as the next iterations would not change the cells either (unless the rules are
+     *            randomized by an extension of this class). Higher values - like 0.001 for 0.1% of cells - can save
+     *            some time when {@link #getIterationsAmount()} is high, at the cost of slightly less smooth maps. Use a
+     *            negative value to always perform all iterations. Deprecated hooks might modify cells without changing
+     *            their state, which is not detected - so if {@link #isUsingLegacyHooks()} returns true, all iterations
+     *            are performed by default. NaN restores the default value.
+     * @see Context#getPerformedIterations()
+     * @see Context#getChangedCells() */
+    public void setConvergenceThreshold(final float convergenceThreshold) {
+        this.convergenceThreshold = convergenceThreshold;
+    }
+
     @Override
     public void generate(final Grid grid) {
+        generate(grid, new Context());
+    }
+
+    /** @param grid its cells will be affected.
+     * @param context will store temporary data and statistics of the generation. Cannot be used by multiple
+     *            generations at once. */
+    public void generate(final Grid grid, final Context context) {
+        context.legacyHooks = isUsingLegacyHooks();
+        if (!context.legacyHooks) {
+            generateCells(grid, context);
+            return;
+        }
+        legacyContext = context;
+        try {
+            generateCells(grid, context);
+        } finally {
+            legacyContext = null;
+        }
+    }
+
+    /** @return true if the deprecated hooks without a {@link Context} parameter -
+     *         {@link #consume(Grid, int, int, float)}, {@link #setAlive(int, int)}, {@link #setDead(int, int)} and
+     *         {@link #countLivingNeighbors(Grid, int, int)} - should be invoked during generation of regular grids. By
+     *         default, returns true if the class of the generator overrides any of the deprecated hooks or
+     *         {@link #getTemporaryGrid()}, so that they keep working; the result is cached. In this case, the context
+     *         of the generation in progress is stored in the generator for the deprecated hooks, and the instance
+     *         cannot be shared by concurrent generations. On GWT, where methods cannot be inspected, returns true for
+     *         all extensions of this class: extensions that override only the hooks with a {@link Context} parameter
+     *         should return false. */
+    protected boolean isUsingLegacyHooks() {
+        Boolean usingLegacyHooks = this.usingLegacyHooks;
+        if (usingLegacyHooks == null) {
+            final Class<?> type = getClass();
+            final Class<?> base = CellularAutomataGenerator.class;
+            usingLegacyHooks = Boolean.valueOf(
+                    Overrides.isOverridden(type, base, "consume", Grid.class, int.class, int.class, float.class)
+                            || Overrides.isOverridden(type, base, "setAlive", int.class, int.class)
+                            || Overrides.isOverridden(type, base, "setDead", int.class, int.class)
+                            || Overrides.isOverridden(type, base, "countLivingNeighbors", Grid.class, int.class,
+                                    int.class)
+                            || Overrides.isOverridden(type, base, "getTemporaryGrid"));
+            this.usingLegacyHooks = usingLegacyHooks;
+        }
+        return usingLegacyHooks.booleanValue();
+    }
+
+    /** @param grid its cells will be affected.
+     * @param context will store temporary data and statistics of the generation. */
+    private void generateCells(final Grid grid, final Context context) {
         if (initiate) {
-            spawnLivingCells(grid);
+            spawnLivingCells(grid, context);
+        }
+        startGeneration(grid.getHeight(), context);
+        if (isDoubleBuffering()) {
+            generateDoubleBuffered(grid, context);
+            return;
         }
         // Grid is copied to keep the correct living neighbors count. Otherwise it would change during iterations.
-        temporaryGrid = grid.copy();
+        context.temporaryGrid = copy(grid);
+        for (int iterationIndex = 0; iterationIndex < iterationsAmount; iterationIndex++) {
+            updateActiveTiles(grid.getWidth(), grid.getHeight(), GRID_TILE_SIZE, context);
+            prepareIteration(grid, context);
+            iterate(grid, context);
+            grid.set(context.temporaryGrid);
+            if (finishIteration(grid.getWidth(), grid.getHeight(), context)) {
+                break;
+            }
+        }
+        Generators.getGridPool().free(context.temporaryGrid);
+        context.temporaryGrid = null;
+        finishGeneration(context);
+    }
+
+    /** Generates a map of living cells directly in a bit grid, which uses 32 times less memory than a regular grid.
+     * Produces the same results as {@link #generate(Grid)} on a grid with values below {@link #getMarker()}
+     * thresholded with the marker - provided that the same random state is used for the initiation. Marker and
+     * {@link #getMode()} are not used.
+     *
+     * @param cells living cells are set to true, dead are set to false. If {@link #isInitiating()} returns true, its
+     *            initial values are replaced with random cells.
+     * @return passed bit grid, for chaining. */
+    public BitGrid generate(final BitGrid cells) {
+        return generate(cells, new Context());
+    }
+
+    /** @param cells living cells are set to true, dead are set to false. If {@link #isInitiating()} returns true, its
+     *            initial values are replaced with random cells.
+     * @param context will store temporary data and statistics of the generation. Cannot be used by multiple
+     *            generations at once.
+     * @return passed bit grid, for chaining.
+     * @see #generate(BitGrid) */
+    public BitGrid generate(final BitGrid cells, final Context context) {
+        if (initiate) {
+            if (context.random == null) {
+                initiate(cells, aliveChance);
+            } else {
+                initiate(cells, aliveChance, context.random.split());
+            }
+        }
+        startGeneration(cells.getHeight(), context);
+        if (iterationsAmount <= 0) {
+            finishGeneration(context);
+            return cells;
+        }
+        BitGrid source = cells;
+        // Buffer content does not matter: each word is overridden by the iteration.
+        BitGrid target = Generators.getGridPool().obtainBitGrid(cells.getWidth(), cells.getHeight());
+        target.setExecutor(cells.getExecutor());
+        final boolean summedArea = radius >= summedAreaRadius && !(bitParallel && radius == 1);
+        for (int iterationIndex = 0; iterationIndex < iterationsAmount; iterationIndex++) {
+            updateActiveTiles(cells.getWidth(), cells.getHeight(), BIT_GRID_TILE_SIZE, context);
+            if (summedArea) {
+                buildSummedAreaTable(source, context);
+            }
+            iterate(source, target, context);
+            final BitGrid processed = target;
+            target = source;
+            source = processed;
+            if (finishIteration(cells.getWidth(), cells.getHeight(), context)) {
+                break;
+            }
+        }
+        if (source != cells) { // Odd amount of iterations: result is in the temporary buffer.
+            cells.set(source);
+            target = source;
+        }
+        Generators.getGridPool().free(target);
+        finishGeneration(context);
+        return cells;
+    }
+
+    /** Performs a single iteration of the automaton, processing rows with the executor of the source grid.
+     *
+     * @param source current state of the cells. Not modified.
+     * @param target will contain the next state of the cells.
+     * @param context state of the current generation. */
+    protected void iterate(final BitGrid source, final BitGrid target, final Context context) {
+        source.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                iterate(source, target, fromY, toY, context);
+            }
+        });
+    }
+
+    /** Performs a single iteration of the automaton on a band of rows.
+     *
+     * @param source current state of the cells. Not modified.
+     * @param target will contain the next state of the cells.
+     * @param fromY first processed row index.
+     * @param toY last processed row index (excluded).
+     * @param context state of the current generation. */
+    protected void iterate(final BitGrid source, final BitGrid target, final int fromY, final int toY,
+            final Context context) {
+        if (bitParallel && radius == 1) {
+            iterateBitParallel(source, target, fromY, toY, context);
+            return;
+        }
+        final long[] words = target.getWords();
+        final long[] cells = source.getWords();
+        for (int y = fromY, width = source.getWidth(); y < toY; y++) {
+            for (int fromX = 0, wordIndex = target.toWordIndex(0, y); fromX < width; fromX += 64, wordIndex++) {
+                if (!isActive(fromX / BIT_GRID_TILE_SIZE, y, context)) {
+                    words[wordIndex] = cells[wordIndex];
+                    continue;
+                }
+                long word = 0L;
+                for (int bit = 0, bits = Math.min(64, width - fromX); bit < bits; bit++) {
+                    final int x = fromX + bit;
+                    final int livingNeighbors = countLivingNeighbors(source, x, y, context);
+                    if (source.get(x, y) ? !shouldDie(livingNeighbors) : shouldBeBorn(livingNeighbors)) {
+                        word |= 1L << bit;
+                    }
+                }
+                if (word != cells[wordIndex]) {
+                    markChanged(fromX, y, Long.bitCount(word ^ cells[wordIndex]), context);
+                }
+                words[wordIndex] = word;
+            }
+        }
+    }
+
+    /** Performs a single iteration of the automaton with radius of 1, processing 64 cells at once. Each word is
+     * combined with its shifted neighbors from the same, previous and next rows; the 8 neighbor bits of each cell are
+     * summed with a tree of bitwise adders, producing a 4-bit count stored in 4 words. Counts are then matched with
+     * rule masks computed once per row band with {@link #shouldDie(int)} and {@link #shouldBeBorn(int)}. Cells
+     * outside of the grid are considered dead.
+     *
+     * @param source current state of the cells. Not modified.
+     * @param target will contain the next state of the cells.
+     * @param fromY first processed row index.
+     * @param toY last processed row index (excluded).
+     * @param context state of the current generation. */
+    protected void iterateBitParallel(final BitGrid source, final BitGrid target, final int fromY, final int toY,
+            final Context context) {
+        // Bit C of the masks is set if a cell with C living neighbors should be alive in the next iteration:
+        int survivalMask = 0, birthMask = 0;
+        for (int count = 0; count <= 8; count++) {
+            if (!shouldDie(count)) {
+                survivalMask |= 1 << count;
+            }
+            if (shouldBeBorn(count)) {
+                birthMask |= 1 << count;
+            }
+        }
+        final long[] words = source.getWords();
+        final long[] next = target.getWords();
+        final int wordsPerRow = source.getWordsPerRow();
+        final int height = source.getHeight();
+        final long lastWordMask = source.getLastWordMask();
+        for (int y = fromY; y < toY; y++) {
+            final int row = y * wordsPerRow;
+            final int previousRow = y > 0 ? row - wordsPerRow : -1;
+            final int nextRow = y < height - 1 ? row + wordsPerRow : -1;
+            for (int word = 0; word < wordsPerRow; word++) {
+                if (!isActive(word, y, context)) {
+                    next[row + word] = words[row + word];
+                    continue;
+                }
+                // Horizontal sums of the previous and next rows (0-3) and the current row without the cell (0-2):
+                final long upWest = west(words, previousRow, word), up = get(words, previousRow, word),
+                        upEast = east(words, previousRow, word, wordsPerRow);
+                final long up0 = upWest ^ up ^ upEast, up1 = upWest & up | upEast & (upWest ^ up);
+                final long downWest = west(words, nextRow, word), down = get(words, nextRow, word),
+                        downEast = east(words, nextRow, word, wordsPerRow);
+                final long down0 = downWest ^ down ^ downEast, down1 = downWest & down | downEast & (downWest ^ down);
+                final long midWest = west(words, row, word), midEast = east(words, row, word, wordsPerRow);
+                final long mid0 = midWest ^ midEast, mid1 = midWest & midEast;
+                // Adding the partial sums. Bits with weight of 1:
+                final long bit0 = up0 ^ down0 ^ mid0;
+                final long carry = up0 & down0 | mid0 & (up0 ^ down0);
+                // Bits with weight of 2 - up1, down1, mid1 and the carry:
+                final long pair1 = up1 ^ down1, pair2 = mid1 ^ carry;
+                final long bit1 = pair1 ^ pair2;
+                // Carries with weight of 4; at most 2 of them can be set, as the total is at most 8:
+                final long carry1 = up1 & down1, carry2 = mid1 & carry, carry3 = pair1 & pair2;
+                final long bit2 = carry1 ^ carry2 ^ carry3;
+                final long bit3 = carry1 & carry2 | carry3 & (carry1 | carry2);
+                long survivors = 0L, births = 0L;
+                for (int count = 0; count <= 8; count++) {
+                    final int rule = 1 << count;
+                    if (((survivalMask | birthMask) & rule) != 0) {
+                        final long matching = ((count & 1) == 0 ? ~bit0 : bit0) & ((count & 2) == 0 ? ~bit1 : bit1)
+                                & ((count & 4) == 0 ? ~bit2 : bit2) & ((count & 8) == 0 ? ~bit3 : bit3);
+                        if ((survivalMask & rule) != 0) {
+                            survivors |= matching;
+                        }
+                        if ((birthMask & rule) != 0) {
+                            births |= matching;
+                        }
+                    }
+                }
+                final long cells = words[row + word];
+                long result = cells & survivors | ~cells & births;
+                if (word == wordsPerRow - 1) {
+                    result &= lastWordMask;
+                }
+                if (result != cells) {
+                    markChanged(word * BIT_GRID_TILE_SIZE, y, Long.bitCount(result ^ cells), context);
+                }
+                next[row + word] = result;
+            }
+        }
+    }
+
+    /** @return word with the selected index in the row or 0 if the row is outside of the grid (-1). */
+    private static long get(final long[] words, final int row, final int word) {
+        return row < 0 ? 0L : words[row + word];
+    }
+
+    /** @return word with the selected index, shifted so that each bit contains the value of its west neighbor. */
+    private static long west(final long[] words, final int row, final int word) {
+        if (row < 0) {
+            return 0L;
+        }
+        final long value = words[row + word] << 1;
+        return word == 0 ? value : value | words[row + word - 1] >>> 63;
+    }
+
+    /** @return word with the selected index, shifted so that each bit contains the value of its east neighbor. */
+    private static long east(final long[] words, final int row, final int word, final int wordsPerRow) {
+        if (row < 0) {
+            return 0L;
+        }
+        final long value = words[row + word] >>> 1;
+        return word == wordsPerRow - 1 ? value : value | words[row + word + 1] << 63;
+    }
+
+    /** @param cells current state of the cells.
+     * @param x column index of a cell.
+     * @param y row index of a cell.
+     * @param context state of the current generation.
+     * @return amount of neighbor cells that are alive. */
+    protected int countLivingNeighbors(final BitGrid cells, final int x, final int y, final Context context) {
+        if (context.summedAreaTable != null) {
+            final int count = countInSummedAreaTable(x, y, cells.getWidth(), cells.getHeight(), context);
+            return cells.get(x, y) ? count - 1 : count; // Excluding the cell itself.
+        }
+        int count = 0;
+        final int fromX = Math.max(0, x - radius), toX = Math.min(cells.getWidth() - 1, x + radius);
+        for (int neighborY = Math.max(0, y - radius), toY = Math.min(cells.getHeight() - 1, y + radius);
+                neighborY <= toY; neighborY++) {
+            for (int neighborX = fromX; neighborX <= toX; neighborX++) {
+                if (cells.get(neighborX, neighborY)) {
+                    count++;
+                }
+            }
+        }
+        return cells.get(x, y) ? count - 1 : count; // Excluding the cell itself.
+    }
+
+    /** @param grid will be processed. Iterations alternate between the grid and a temporary buffer.
+     * @param context state of the current generation.
+     * @see #setDoubleBuffering(boolean) */
+    protected void generateDoubleBuffered(final Grid grid, final Context context) {
+        if (iterationsAmount <= 0) {
+            finishGeneration(context);
+            return;
+        }
+        Grid source = grid;
+        // Buffer content does not matter: each row is copied from the source right before it is processed.
+        context.temporaryGrid = obtainBuffer(grid);
         for (int iterationIndex = 0; iterationIndex < iterationsAmount; iterationIndex++) {
-            grid.forEach(this);
-            grid.set(temporaryGrid);
+            updateActiveTiles(grid.getWidth(), grid.getHeight(), GRID_TILE_SIZE, context);
+            prepareIteration(source, context);
+            iterate(source, context);
+            // Swapping buffers - cells updated during this iteration will be read by the next one:
+            final Grid target = context.temporaryGrid;
+            context.temporaryGrid = source;
+            source = target;
+            if (finishIteration(grid.getWidth(), grid.getHeight(), context)) {
+                break;
+            }
+        }
+        if (source != grid) { // Odd amount of iterations: result is in the temporary buffer.
+            grid.set(source);
+            context.temporaryGrid = source;
         }
+        Generators.getGridPool().free(context.temporaryGrid);
+        context.temporaryGrid = null;
+        finishGeneration(context);
+    }
+
+    /** Performs a single iteration over a regular grid, processing rows with the grid's executor.
+     *
+     * @param grid contains the current state of the cells. The next state is stored in
+     *            {@link Context#getTemporaryGrid()}.
+     * @param context state of the current generation. */
+    protected void iterate(final Grid grid, final Context context) {
+        final int width = grid.getWidth();
+        final RowConsumer consumer = new RowConsumer() {
+            @Override
+            public boolean consume(final Grid grid, final int y, final int fromX, final int toX, final int offset) {
+                evaluateRow(grid, y, fromX, toX, offset, context);
+                return CellConsumer.CONTINUE;
+            }
+        };
+        grid.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                grid.forEachRow(consumer, 0, fromY, width, toY);
+            }
+        });
+    }
+
+    /** Prepares change counters before the first iteration.
+     *
+     * @param height amount of rows of the processed grid.
+     * @param context state of the current generation. */
+    private void startGeneration(final int height, final Context context) {
+        if (context.rowChanges == null || context.rowChanges.length != height) {
+            context.rowChanges = new int[height];
+        } else {
+            Arrays.fill(context.rowChanges, 0);
+        }
+        if (context.changedCells.length < iterationsAmount) {
+            context.changedCells = new int[iterationsAmount];
+        }
+        context.performedIterations = 0;
+    }
+
+    /** Sums up the cells changed by the current iteration.
+     *
+     * @param width amount of columns of the processed grid.
+     * @param height amount of rows of the processed grid.
+     * @param context state of the current generation.
+     * @return true if the cells converged and the next iterations should be skipped.
+     * @see #setConvergenceThreshold(float) */
+    private boolean finishIteration(final int width, final int height, final Context context) {
+        final int[] rowChanges = context.rowChanges;
+        int changed = 0;
+        for (int y = 0; y < height; y++) {
+            changed += rowChanges[y];
+            rowChanges[y] = 0;
+        }
+        context.changedCells[context.performedIterations++] = changed;
+        return changed <= getConvergenceThreshold() * ((long) width * height);
+    }
+
+    /** Updates the tiles evaluated by the next iteration. Does nothing unless {@link #isTrackingChanges()} is true.
+     * Before the first iteration, all tiles are active; before the following ones, tiles within radius of the tiles
+     * changed by the previous iteration are activated.
+     *
+     * @param width amount of columns of the processed grid.
+     * @param height amount of rows of the processed grid.
+     * @param tileSize amount of cells in a single tile.
+     * @param context state of the current generation. */
+    protected void updateActiveTiles(final int width, final int height, final int tileSize, final Context context) {
+        if (!trackingChanges) {
+            return;
+        } else if (context.changedTiles == null) { // First iteration: all tiles have to be evaluated.
+            context.tileSize = tileSize;
+            context.changedTiles = context.obtainTiles(context.changedTilesBuffer, (width + tileSize - 1) / tileSize,
+                    height);
+            context.changedTilesBuffer = context.changedTiles;
+            return;
+        }
+        final BitGrid changedTiles = context.changedTiles;
+        if (context.activeTiles == null) {
+            context.activeTiles = context.obtainTiles(context.activeTilesBuffer, changedTiles.getWidth(), height);
+            context.activeTilesBuffer = context.activeTiles;
+        }
+        final long[] changed = changedTiles.getWords();
+        final long[] active = context.activeTiles.getWords();
+        final int wordsPerRow = changedTiles.getWordsPerRow();
+        final long[] row = context.obtainTileRow(wordsPerRow);
+        // Tiles changed in the rows within radius are found with a vertical dilation, independent of the radius:
+        dilateRows(changed, wordsPerRow, height, context);
+        final long[] prefix = context.tilePrefix, suffix = context.tileSuffix;
+        final int window = 2 * radius + 1;
+        final int tileRadius = (radius + tileSize - 1) / tileSize;
+        for (int y = 0; y < height; y++) {
+            final int fromY = Math.max(0, y - radius), toY = Math.min(height - 1, y + radius);
+            final int from = fromY * wordsPerRow, to = toY * wordsPerRow;
+            if (fromY / window != toY / window) { // Window spans two blocks: suffix of the first, prefix of the last.
+                for (int word = 0; word < wordsPerRow; word++) {
+                    row[word] = suffix[from + word] | prefix[to + word];
+                }
+            } else if (fromY % window == 0) { // Window starts with a block.
+                System.arraycopy(prefix, to, row, 0, wordsPerRow);
+            } else { // Window ends with a block or the last row.
+                System.arraycopy(suffix, from, row, 0, wordsPerRow);
+            }
+            // Activating neighbor tiles within radius by shifting the bits:
+            final int activeRow = y * wordsPerRow;
+            for (int step = 0; step < tileRadius; step++) {
+                long previous = 0L;
+                for (int word = 0; word < wordsPerRow; word++) {
+                    final long current = row[word];
+                    final long next = word == wordsPerRow - 1 ? 0L : row[word + 1];
+                    active[activeRow + word] = current | current << 1 | previous >>> 63 | current >>> 1 | next << 63;
+                    previous = current;
+                }
+                System.arraycopy(active, activeRow, row, 0, wordsPerRow);
+            }
+            System.arraycopy(row, 0, active, activeRow, wordsPerRow);
+        }
+        context.activeTiles.clearUnusedBits();
+        changedTiles.set(false);
+    }
+
+    /** Divides rows into blocks of {@code 2 * radius + 1} rows and computes running ORs of changed tiles within each
+     * block: from the start of the block to each row (prefix) and from each row to the end of the block (suffix). Any
+     * window of {@code 2 * radius + 1} rows spans at most two blocks, so it can be combined from a single suffix and a
+     * single prefix - van Herk/Gil-Werman algorithm.
+     *
+     * @param changed words of the changed tiles.
+     * @param wordsPerRow amount of words in a single row.
+     * @param height amount of rows.
+     * @param context will store the prefix and suffix words. */
+    private void dilateRows(final long[] changed, final int wordsPerRow, final int height, final Context context) {
+        if (context.tilePrefix == null || context.tilePrefix.length != changed.length) {
+            context.tilePrefix = new long[changed.length];
+            context.tileSuffix = new long[changed.length];
+        }
+        final long[] prefix = context.tilePrefix, suffix = context.tileSuffix;
+        final int window = 2 * radius + 1;
+        for (int y = 0, index = 0; y < height; y++) {
+            final boolean blockStart = y % window == 0;
+            for (int word = 0; word < wordsPerRow; word++, index++) {
+                prefix[index] = blockStart ? changed[index] : prefix[index - wordsPerRow] | changed[index];
+            }
+        }
+        for (int y = height - 1, index = changed.length - 1; y >= 0; y--) {
+            final boolean blockEnd = y % window == window - 1 || y == height - 1;
+            for (int word = wordsPerRow - 1; word >= 0; word--, index--) {
+                suffix[index] = blockEnd ? changed[index] : suffix[index + wordsPerRow] | changed[index];
+            }
+        }
+    }
+
+    /** @param x column index of a cell changed by the current iteration.
+     * @param y row index of a cell changed by the current iteration.
+     * @param amount amount of changed cells in the tile containing the cell.
+     * @param context state of the current generation. */
+    protected void markChanged(final int x, final int y, final int amount, final Context context) {
+        // Each row has separate counters and words of changed tiles, so rows can be marked by different threads.
+        if (context.rowChanges != null) {
+            context.rowChanges[y] += amount;
+        }
+        if (context.changedTiles != null) {
+            context.changedTiles.set(x / context.tileSize, y, true);
+        }
+    }
+
+    /** @param tile index of a tile in a row: column index of a cell divided by the tile size.
+     * @param y row index.
+     * @param context state of the current generation.
+     * @return true if the cells of the tile should be evaluated during the current iteration. */
+    protected boolean isActive(final int tile, final int y, final Context context) {
+        return context.activeTiles == null || context.activeTiles.get(tile, y);
+    }
+
+    /** @param context its temporary generation data will be cleared. */
+    private static void finishGeneration(final Context context) {
+        freeSummedAreaTable(context);
+        context.changedTiles = null;
+        context.activeTiles = null;
+    }
+
+    /** Called before each iteration over a regular grid. Builds the summed-area table if the radius requires it.
+     *
+     * @param grid contains the current state of the cells. Will not be modified during the iteration.
+     * @param context state of the current generation.
+     * @see #setSummedAreaRadius(int) */
+    protected void prepareIteration(final Grid grid, final Context context) {
+        if (radius >= summedAreaRadius) {
+            buildSummedAreaTable(grid, context);
+        }
+    }
+
+    /** @param grid its living cells will be counted. Table cell (x + 1, y + 1) will contain the amount of living cells
+     *            with column index not greater than x and row index not greater than y.
+     * @param context will store the table. */
+    protected void buildSummedAreaTable(final Grid grid, final Context context) {
+        final int width = grid.getWidth();
+        final int[] table = obtainSummedAreaTable(width, grid.getHeight(), context);
+        final float[] array = grid instanceof VirtualGrid ? null : grid.getArray();
+        // Rows are independent: storing sums of living cells in each row first.
+        grid.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    int rowSum = 0;
+                    for (int x = 0, index = (y + 1) * (width + 1) + 1, offset = array == null ? -1 : grid.toIndex(0, y);
+                            x < width; x++, index++, offset++) {
+                        if (isAlive(array == null ? grid.get(x, y) : array[offset])) {
+                            rowSum++;
+                        }
+                        table[index] = rowSum;
+                    }
+                }
+            }
+        });
+        accumulateColumns(table, width + 1);
+    }
+
+    /** @param cells their living cells will be counted. Table cell (x + 1, y + 1) will contain the amount of living
+     *            cells with column index not greater than x and row index not greater than y.
+     * @param context will store the table. */
+    protected void buildSummedAreaTable(final BitGrid cells, final Context context) {
+        final int width = cells.getWidth();
+        final int[] table = obtainSummedAreaTable(width, cells.getHeight(), context);
+        final long[] words = cells.getWords();
+        cells.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    int rowSum = 0;
+                    for (int x = 0, index = (y + 1) * (width + 1) + 1, wordIndex = cells.toWordIndex(0, y); x < width;
+                            wordIndex++) {
+                        final long word = words[wordIndex];
+                        for (int bit = 0, bits = Math.min(64, width - x); bit < bits; bit++, x++, index++) {
+                            rowSum += (int) (word >>> bit) & 1;
+                            table[index] = rowSum;
+                        }
+                    }
+                }
+            }
+        });
+        accumulateColumns(table, width + 1);
+    }
+
+    /** @param table contains sums of living cells in each row. Will contain the summed-area table.
+     * @param tableWidth amount of columns of the table. */
+    private static void accumulateColumns(final int[] table, final int tableWidth) {
+        // Sequential, but cheap - a single vectorizable pass over the table:
+        for (int index = tableWidth * 2, length = table.length; index < length; index++) {
+            table[index] += table[index - tableWidth];
+        }
+    }
+
+    private static int[] obtainSummedAreaTable(final int width, final int height, final Context context) {
+        final Int2dArray summedAreaTable = context.summedAreaTable;
+        if (summedAreaTable == null || summedAreaTable.getWidth() != width + 1
+                || summedAreaTable.getHeight() != height + 1) {
+            freeSummedAreaTable(context);
+            // First row and column are never modified - they have to be cleared only once:
+            context.summedAreaTable = Generators.getGridPool().obtainInt2dArray(width + 1, height + 1).set(0);
+        }
+        return context.summedAreaTable.getArray();
+    }
+
+    private static void freeSummedAreaTable(final Context context) {
+        if (context.summedAreaTable != null) {
+            Generators.getGridPool().free(context.summedAreaTable);
+            context.summedAreaTable = null;
+        }
+    }
+
+    /** @param x column index of a cell.
+     * @param y row index of a cell.
+     * @param width amount of columns of the processed grid.
+     * @param height amount of rows of the processed grid.
+     * @param context contains the summed-area table.
+     * @return amount of living cells within radius of the cell, including the cell itself. Requires a summed-area
+     *         table built with the current state of the cells. */
+    private int countInSummedAreaTable(final int x, final int y, final int width, final int height,
+            final Context context) {
+        final int[] table = context.summedAreaTable.getArray();
+        final int tableWidth = width + 1;
+        final int fromX = Math.max(0, x - radius), toX = Math.min(width, x + radius + 1);
+        final int fromY = Math.max(0, y - radius) * tableWidth, toY = Math.min(height, y + radius + 1) * tableWidth;
+        return table[toY + toX] - table[fromY + toX] - table[toY + fromX] + table[fromY + fromX];
+    }
+
+    /** @param grid will be copied.
+     * @return a grid with the same values. Regular grids are copied into pooled instances to avoid allocations; other
+     *         grid types are copied with {@link Grid#copy()} to preserve their storage type.
+     * @see Generators#getGridPool() */
+    protected Grid copy(final Grid grid) {
+        if (grid instanceof VirtualGrid) {
+            return grid.copy();
+        }
+        final Grid copy = obtainBuffer(grid);
+        copy.set(grid);
+        return copy;
+    }
+
+    /** @param grid processed grid.
+     * @return a grid with the same size and storage type. Its values are undefined. */
+    protected Grid obtainBuffer(final Grid grid) {
+        if (grid instanceof VirtualGrid) {
+            return grid.copy();
+        }
+        final Grid buffer = Generators.getGridPool().obtainGrid(grid.getWidth(), grid.getHeight());
+        buffer.setExecutor(grid.getExecutor());
+        return buffer;
     }
 
     /** @param grid some of its cells will become alive, according to the current chance settings. The others will die,
      *            if they were already alive.
+     * @param context if it has a seeded random stream, cells are initiated with streams split from it. Otherwise,
+     *            {@link #spawnLivingCells(Grid)} is invoked.
+     * @see #getAliveChance() */
+    protected void spawnLivingCells(final Grid grid, final Context context) {
+        if (context.random == null) {
+            spawnLivingCells(grid);
+        } else {
+            initiate(grid, aliveChance, marker, context.random.split());
+        }
+    }
+
+    /** Initiates cells of generations that do not use a seeded random stream.
+     *
+     * @param grid some of its cells will become alive, according to the current chance settings, using
+     *            {@link Generators#getRandom()}. The others will die, if they were already alive.
      * @see #getAliveChance() */
     protected void spawnLivingCells(final Grid grid) {
         initiate(grid, aliveChance, marker);
     }
 
-    /** @param grid unlike in case of noise algorithm, for example, cellular automata generator does not use an initial
-     *            random seed (yet) which can be easily used to recreate the same map over and over. Unless you use a
-     *            custom way of initiating the grid using a seed, the easiest solution to recreate exactly the same map
-     *            is saving both generator settings and initial cell values before first iteration. By manually calling
-     *            this method, you can copy the cell values before iterations begin; since the map is already initiated,
-     *            it makes sense to turn off automatic initiation with {@link #setInitiate(boolean)} method.
+    /** @param grid its cells will be initiated with {@link Generators#getRandom()}. To recreate exactly the same map
+     *            over and over, either generate it with a seeded {@link Context#Context(long) context} or save both
+     *            generator settings and initial cell values before first iteration. By manually calling this method,
+     *            you can copy the cell values before iterations begin; since the map is already initiated, it makes
+     *            sense to turn off automatic initiation with {@link #setInitiate(boolean)} method.
      * @param generator its settings will be used. */
     public static void initiate(final Grid grid, final CellularAutomataGenerator generator) {
         initiate(grid, generator.getAliveChance(), generator.getMarker());
     }
 
-    /** @param grid unlike in case of noise algorithm, for example, cellular automata generator does not use an initial
-     *            random seed (yet) which can be easily used to recreate the same map over and over. Unless you use a
-     *            custom way of initiating the grid using a seed, the easiest solution to recreate exactly the same map
-     *            is saving both generator settings and initial cell values before first iteration. By manually calling
-     *            this method, you can copy the cell values before iterations begin; since the map is already initiated,
-     *            it makes sense to turn off automatic initiation with {@link #setInitiate(boolean)} method.
+    /** @param grid its cells will be initiated with {@link Generators#getRandom()}. To recreate exactly the same map
+     *            over and over, either generate it with a seeded {@link Context#Context(long) context} or save both
+     *            generator settings and initial cell values before first iteration. By manually calling this method,
+     *            you can copy the cell values before iterations begin; since the map is already initiated, it makes
+     *            sense to turn off automatic initiation with {@link #setInitiate(boolean)} method.
      * @param aliveChance see {@link #setAliveChance(float)}.
      * @param marker see {@link #setMarker(float)}. If value is already above the marker and rolled as alive, its value
      *            will not be changed. If cell's value is above the marker and it is rolled as dead, marker will be
      *            subtracted from its value. */
     public static void initiate(final Grid grid, final float aliveChance, final float marker) {
         final Random random = Generators.getRandom();
-        final float[] array = grid.getArray();
-        for (int index = 0, length = array.length; index < length; index++) {
-            if (random.nextFloat() > aliveChance) {
-                if (array[index] < marker) {
-                    grid.add(grid.toX(index), grid.toY(index), marker);
+        // Accessing cells through getters, as the grid does not have to be backed by an array:
+        for (int y = 0, height = grid.getHeight(); y < height; y++) {
+            for (int x = 0, width = grid.getWidth(); x < width; x++) {
+                final float value = grid.get(x, y);
+                if (random.nextFloat() > aliveChance) {
+                    if (value < marker) {
+                        grid.add(x, y, marker);
+                    }
+                } else if (value >= marker) { // Is alive - killing it.
+                    grid.subtract(x, y, marker);
                 }
-            } else if (array[index] >= marker) { // Is alive - killing it.
-                grid.subtract(grid.toX(index), grid.toY(index), marker);
             }
         }
     }
 
-    /** @return temporary grid, copied to preserve to correct amounts of living neighbors during iterations. */
-    protected Grid getTemporaryGrid() {
-        return temporaryGrid;
+    /** @param grid some of its cells will become alive. Each row uses a separate stream split from the passed random
+     *            stream, so rows can be processed by the grid's executor and the result depends only on the stream -
+     *            not on the amount of threads.
+     * @param aliveChance see {@link #setAliveChance(float)}.
+     * @param marker see {@link #setMarker(float)}. If value is already above the marker and rolled as alive, its value
+     *            will not be changed. If cell's value is above the marker and it is rolled as dead, marker will be
+     *            subtracted from its value.
+     * @param random seeded random stream. Rows use streams obtained with {@link RandomStream#split(long)}, so the
+     *            passed stream is not advanced. */
+    public static void initiate(final Grid grid, final float aliveChance, final float marker,
+            final RandomStream random) {
+        final int width = grid.getWidth();
+        final RowTask task = new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    final Random rowRandom = random.split(y);
+                    for (int x = 0; x < width; x++) {
+                        final float value = grid.get(x, y);
+                        if (rowRandom.nextFloat() > aliveChance) {
+                            if (value < marker) {
+                                grid.add(x, y, marker);
+                            }
+                        } else if (value >= marker) { // Is alive - killing it.
+                            grid.subtract(x, y, marker);
+                        }
+                    }
+                }
+            }
+        };
+        if (grid instanceof VirtualGrid) {
+            task.process(0, grid.getHeight());
+        } else {
+            grid.execute(task);
+        }
     }
 
-    @Override
-    public boolean consume(final Grid grid, final int x, final int y, final float value) {
-        final int livingNeighbors = countLivingNeighbors(grid, x, y);
+    /** @param cells will be filled with random living cells. Uses the same random sequence as
+     *            {@link #initiate(Grid, float, float)}, so both methods produce the same initial state.
+     * @param aliveChance see {@link #setAliveChance(float)}. */
+    public static void initiate(final BitGrid cells, final float aliveChance) {
+        final Random random = Generators.getRandom();
+        for (int y = 0, height = cells.getHeight(); y < height; y++) {
+            for (int x = 0, width = cells.getWidth(); x < width; x++) {
+                cells.set(x, y, random.nextFloat() > aliveChance);
+            }
+        }
+    }
+
+    /** @param cells will be filled with random living cells. Uses the same random sequences as
+     *            {@link #initiate(Grid, float, float, RandomStream)}, so both methods produce the same initial state.
+     *            Rows are processed by the executor of the bit grid.
+     * @param aliveChance see {@link #setAliveChance(float)}.
+     * @param random seeded random stream. Rows use streams obtained with {@link RandomStream#split(long)}, so the
+     *            passed stream is not advanced. */
+    public static void initiate(final BitGrid cells, final float aliveChance, final RandomStream random) {
+        final int width = cells.getWidth();
+        final long[] words = cells.getWords();
+        cells.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                for (int y = fromY; y < toY; y++) {
+                    final Random rowRandom = random.split(y);
+                    for (int fromX = 0, wordIndex = cells.toWordIndex(0, y); fromX < width; fromX += 64, wordIndex++) {
+                        long word = 0L;
+                        for (int bit = 0, bits = Math.min(64, width - fromX); bit < bits; bit++) {
+                            if (rowRandom.nextFloat() > aliveChance) {
+                                word |= 1L << bit;
+                            }
+                        }
+                        words[wordIndex] = word;
+                    }
+                }
+            }
+        });
+    }
+
+    /** @param grid processed grid.
+     * @param x column index of a cell.
+     * @param y row index of a cell.
+     * @param value current cell's value.
+     * @param context state of the current generation. */
+    protected void evaluate(final Grid grid, final int x, final int y, final float value, final Context context) {
+        if (context.legacyHooks) {
+            consume(grid, x, y, value);
+            // Deprecated hooks do not report changes - comparing the state of the cell instead:
+            if (isAlive(context.temporaryGrid.get(x, y)) != isAlive(value)) {
+                markChanged(x, y, 1, context);
+            }
+            return;
+        }
+        if (evaluateCell(grid, x, y, value, context)) {
+            markChanged(x, y, 1, context);
+        }
+    }
+
+    /** @param grid processed grid.
+     * @param x column index of a cell.
+     * @param y row index of a cell.
+     * @param value current cell's value.
+     * @param context state of the current generation.
+     * @return true if the cell was killed or became alive. */
+    private boolean evaluateCell(final Grid grid, final int x, final int y, final float value,
+            final Context context) {
+        final int livingNeighbors = countLivingNeighbors(grid, x, y, context);
         if (isAlive(value)) {
             if (shouldDie(livingNeighbors)) {
-                setDead(x, y);
+                setDead(x, y, context);
+                return true;
             }
         } else if (shouldBeBorn(livingNeighbors)) {
-            setAlive(x, y);
+            setAlive(x, y, context);
+            return true;
+        }
+        return false;
+    }
+
+    /** @param grid processed grid.
+     * @param y row index.
+     * @param fromX first column index.
+     * @param toX last column index (excluded).
+     * @param offset index of the first cell in grid's array or -1 if the grid is not backed by an array.
+     * @param context state of the current generation. */
+    protected void evaluateRow(final Grid grid, final int y, final int fromX, final int toX, final int offset,
+            final Context context) {
+        if (isDoubleBuffering()) {
+            copyRow(grid, y, fromX, toX, offset, context);
         }
+        if (context.activeTiles == null) {
+            evaluateSpan(grid, y, fromX, toX, offset, context);
+            return;
+        }
+        // Evaluating only the active tiles - the other cells keep their state:
+        final int tileSize = context.tileSize;
+        for (int tile = fromX / tileSize, lastTile = (toX - 1) / tileSize; tile <= lastTile; tile++) {
+            if (isActive(tile, y, context)) {
+                final int spanFromX = Math.max(fromX, tile * tileSize);
+                final int spanToX = Math.min(toX, tile * tileSize + tileSize);
+                evaluateSpan(grid, y, spanFromX, spanToX, offset < 0 ? offset : offset + spanFromX - fromX, context);
+            }
+        }
+    }
+
+    /** @param grid processed grid.
+     * @param y row index.
+     * @param fromX first column index.
+     * @param toX last column index (excluded).
+     * @param offset index of the first cell in grid's array or -1 if the grid is not backed by an array.
+     * @param context state of the current generation. */
+    private void evaluateSpan(final Grid grid, final int y, final int fromX, final int toX, final int offset,
+            final Context context) {
+        if (offset < 0) { // Not backed by an array.
+            for (int x = fromX; x < toX; x++) {
+                evaluate(grid, x, y, grid.get(x, y), context);
+            }
+        } else {
+            final float[] array = grid.getArray();
+            for (int x = fromX, index = offset; x < toX; x++, index++) {
+                evaluate(grid, x, y, array[index], context);
+            }
+        }
+    }
+
+    /** Copies current values of a row to the temporary grid before it is modified by a double-buffered iteration.
+     *
+     * @param grid processed grid.
+     * @param y row index.
+     * @param fromX first column index.
+     * @param toX last column index (excluded).
+     * @param offset index of the first cell in grid's array or -1 if the grid is not backed by an array.
+     * @param context contains the temporary grid. */
+    protected void copyRow(final Grid grid, final int y, final int fromX, final int toX, final int offset,
+            final Context context) {
+        final Grid temporaryGrid = context.temporaryGrid;
+        if (offset < 0 || temporaryGrid instanceof VirtualGrid) {
+            for (int x = fromX; x < toX; x++) {
+                temporaryGrid.set(x, y, grid.get(x, y));
+            }
+        } else {
+            System.arraycopy(grid.getArray(), offset, temporaryGrid.getArray(), temporaryGrid.toIndex(fromX, y),
+                    toX - fromX);
+        }
+    }
+
+    /** @param grid processed grid.
+     * @param x column index of a cell.
+     * @param y row index of a cell.
+     * @param value current cell's value.
+     * @return {@link #CONTINUE}.
+     * @deprecated override {@link #evaluate(Grid, int, int, float, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true.
+     * @throws IllegalStateException if invoked outside of a generation using the deprecated hooks. */
+    @Override
+    @Deprecated
+    public boolean consume(final Grid grid, final int x, final int y, final float value) {
+        evaluateCell(grid, x, y, value, getLegacyContext());
         return CONTINUE;
     }
 
+    /** @return context of the generation in progress.
+     * @throws IllegalStateException if invoked outside of a generation using the deprecated hooks. */
+    private Context getLegacyContext() {
+        final Context context = legacyContext;
+        if (context == null) {
+            throw new IllegalStateException("Deprecated hooks without a context can modify cells only during "
+                    + "generation, and only if isUsingLegacyHooks() returns true.");
+        }
+        return context;
+    }
+
+    /** @return temporary grid of the generation in progress, storing cells modified by the current iteration. Null if
+     *         {@link #isUsingLegacyHooks()} returns false.
+     * @deprecated use {@link Context#getTemporaryGrid()}. */
+    @Deprecated
+    protected Grid getTemporaryGrid() {
+        return legacyContext == null ? null : legacyContext.temporaryGrid;
+    }
+
+    /** Makes the cell alive in temporary cached grid copy.
+     *
+     * @param x column index of temporary grid.
+     * @param y row index of temporary grid.
+     * @param context contains the temporary grid. */
+    protected void setAlive(final int x, final int y, final Context context) {
+        if (context.legacyHooks) {
+            setAlive(x, y);
+        } else {
+            modifyCell(context.temporaryGrid, x, y, marker);
+        }
+    }
+
     /** Makes the cell alive in temporary cached grid copy.
      *
      * @param x column index of temporary grid.
-     * @param y row index of temporary grid. */
+     * @param y row index of temporary grid.
+     * @deprecated override {@link #setAlive(int, int, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true.
+     * @throws IllegalStateException if invoked outside of a generation using the deprecated hooks. */
+    @Deprecated
     protected void setAlive(final int x, final int y) {
-        modifyCell(temporaryGrid, x, y, marker);
+        modifyCell(getLegacyContext().temporaryGrid, x, y, marker);
     }
 
     /** Kills the cell in temporary cached grid copy.
      *
      * @param x column index of temporary grid.
-     * @param y row index of temporary grid. */
+     * @param y row index of temporary grid.
+     * @param context contains the temporary grid. */
+    protected void setDead(final int x, final int y, final Context context) {
+        if (context.legacyHooks) {
+            setDead(x, y);
+        } else {
+            context.temporaryGrid.subtract(x, y, marker);
+        }
+    }
+
+    /** Kills the cell in temporary cached grid copy.
+     *
+     * @param x column index of temporary grid.
+     * @param y row index of temporary grid.
+     * @deprecated override {@link #setDead(int, int, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true.
+     * @throws IllegalStateException if invoked outside of a generation using the deprecated hooks. */
+    @Deprecated
     protected void setDead(final int x, final int y) {
-        temporaryGrid.subtract(x, y, marker);
+        getLegacyContext().temporaryGrid.subtract(x, y, marker);
     }
 
     /** @param aliveNeighbors amount of alive tile's neighbors.
@@ -254,9 +1276,46 @@ public class CellularAutomataGenerator extends AbstractGenerator implements Cell
     /** @param grid processed grid.
      * @param x column index of a cell.
      * @param y row index of a cell.
+     * @param context state of the current generation.
      * @return amount of neighbor cells that are considered alive. */
+    protected int countLivingNeighbors(final Grid grid, final int x, final int y, final Context context) {
+        return context.legacyHooks ? countLivingNeighbors(grid, x, y) : countNeighbors(grid, x, y, context);
+    }
+
+    /** @param grid processed grid.
+     * @param x column index of a cell.
+     * @param y row index of a cell.
+     * @return amount of neighbor cells that are considered alive. If invoked outside of a generation using the
+     *         deprecated hooks, neighbors are counted one by one.
+     * @deprecated override {@link #countLivingNeighbors(Grid, int, int, Context)} instead. Invoked during generation
+     *             only if {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
     protected int countLivingNeighbors(final Grid grid, final int x, final int y) {
+        return countNeighbors(grid, x, y, legacyContext);
+    }
+
+    /** @param grid processed grid.
+     * @param x column index of a cell.
+     * @param y row index of a cell.
+     * @param context state of the current generation. If null, neighbors are counted one by one.
+     * @return amount of neighbor cells that are considered alive. */
+    private int countNeighbors(final Grid grid, final int x, final int y, final Context context) {
+        if (context != null && context.summedAreaTable != null) {
+            final int count = countInSummedAreaTable(x, y, grid.getWidth(), grid.getHeight(), context);
+            return isAlive(grid.get(x, y)) ? count - 1 : count; // Excluding the cell itself.
+        }
         int count = 0;
+        if (x >= radius && y >= radius && x < grid.getWidth() - radius && y < grid.getHeight() - radius) {
+            // All neighbors are within grid bounds - no need to validate indexes:
+            for (int neighborY = y - radius, toY = y + radius; neighborY <= toY; neighborY++) {
+                for (int neighborX = x - radius, toX = x + radius; neighborX <= toX; neighborX++) {
+                    if (isAlive(grid.get(neighborX, neighborY))) {
+                        count++;
+                    }
+                }
+            }
+            return isAlive(grid.get(x, y)) ? count - 1 : count; // Excluding the cell itself.
+        }
         for (int xOffset = -radius; xOffset <= radius; xOffset++) {
             for (int yOffset = -radius; yOffset <= radius; yOffset++) {
                 if (xOffset == 0 && yOffset == 0) {
@@ -271,4 +1330,93 @@ public class CellularAutomataGenerator extends AbstractGenerator implements Cell
         }
         return count;
     }
+
+    /** Working state of a single generation: temporary buffers, random stream and statistics. A new context is created
+     * by each {@link CellularAutomataGenerator#generate(Grid)} call. Contexts can also be created manually and passed
+     * to {@link CellularAutomataGenerator#generate(Grid, Context)} in order to use a seeded random stream, read
+     * statistics of the generation or reuse the allocated counters in the following generations. A single context
+     * cannot be used by multiple generations at once.
+     *
+     * @author MJ */
+    public static class Context {
+        private final RandomStream random;
+        private Grid temporaryGrid;
+        private Int2dArray summedAreaTable;
+        private BitGrid changedTiles;
+        private BitGrid activeTiles;
+        // Buffers kept between generations:
+        private BitGrid changedTilesBuffer;
+        private BitGrid activeTilesBuffer;
+        private long[] tileRow;
+        private long[] tilePrefix;
+        private long[] tileSuffix;
+        private int tileSize;
+        private int[] rowChanges;
+        private int[] changedCells = new int[0];
+        private int performedIterations;
+        private boolean legacyHooks;
+
+        /** Creates a context that uses {@link Generators#getRandom()} to initiate cells. */
+        public Context() {
+            this((RandomStream) null);
+        }
+
+        /** @param seed initial cells will be rolled with a {@link RandomStream} created with this seed. Generating a
+         *            map with the same seed and settings always produces the same result, regardless of the grid's
+         *            executor. */
+        public Context(final long seed) {
+            this(new RandomStream(seed));
+        }
+
+        /** @param random will be used to roll the initial cells. Each generation advances the stream once and splits
+         *            it into separate streams for each row, so rows can be initiated in parallel. If null,
+         *            {@link Generators#getRandom()} is used instead. */
+        public Context(final RandomStream random) {
+            this.random = random;
+        }
+
+        /** @param buffer tiles of a previous generation. Might be null.
+         * @param width amount of tiles in a row.
+         * @param height amount of rows.
+         * @return the buffer, if it has the correct size, or a new bit grid. All tiles are cleared. */
+        private BitGrid obtainTiles(final BitGrid buffer, final int width, final int height) {
+            if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+                return new BitGrid(width, height);
+            }
+            return buffer.set(false);
+        }
+
+        /** @param wordsPerRow amount of words in a row of tiles.
+         * @return a buffer able to store a single row of tiles. */
+        private long[] obtainTileRow(final int wordsPerRow) {
+            if (tileRow == null || tileRow.length != wordsPerRow) {
+                tileRow = new long[wordsPerRow];
+            }
+            return tileRow;
+        }
+
+        /** @return random instance used to initiate cells: the seeded stream or {@link Generators#getRandom()}. */
+        public Random getRandom() {
+            return random == null ? Generators.getRandom() : random;
+        }
+
+        /** @return temporary grid, storing cells modified by the current iteration to preserve the correct amounts of
+         *         living neighbors. Null if the generation is not in progress or uses a bit grid. */
+        public Grid getTemporaryGrid() {
+            return temporaryGrid;
+        }
+
+        /** @return amount of iterations performed by the last generation. Might be lower than
+         *         {@link CellularAutomataGenerator#getIterationsAmount()} if the cells stopped changing.
+         * @see CellularAutomataGenerator#setConvergenceThreshold(float) */
+        public int getPerformedIterations() {
+            return performedIterations;
+        }
+
+        /** @return amounts of cells changed by each iteration of the last generation. Its length is equal to
+         *         {@link #getPerformedIterations()}. Can be used to tune the amount of iterations. */
+        public int[] getChangedCells() {
+            return Arrays.copyOf(changedCells, performedIterations);
+        }
+    }
 }
@@ -2,8 +2,13 @@ package com.github.czyzby.noise4j.map.generator.noise;
 
 import com.github.czyzby.noise4j.map.Grid;
 import com.github.czyzby.noise4j.map.Grid.CellConsumer;
+import com.github.czyzby.noise4j.map.Grid.RowConsumer;
+import com.github.czyzby.noise4j.map.GridExecutor.RowTask;
+import com.github.czyzby.noise4j.map.VirtualGrid;
 import com.github.czyzby.noise4j.map.generator.AbstractGenerator;
 import com.github.czyzby.noise4j.map.generator.util.Generators;
+import com.github.czyzby.noise4j.map.generator.util.Generators.Calculator;
+import com.github.czyzby.noise4j.map.generator.util.Overrides;
 
 /** Divides grid into equal regions. Assigns semi-random value to each region using a noise function. Interpolates the
  * value according to neighbor regions' values. Unless regions are too small, this usually results in a smooth map with
@@ -11,14 +16,25 @@ import com.github.czyzby.noise4j.map.generator.util.Generators;
  * {@link #getModifier()}, invoking generation multiple times - each time with lower modifier. This allows to generate a
  * map with logical transitions, while keeping the map interesting thanks to further iterations with lower radius.
  *
+ * <p>
+ * Generation does not modify the generator, except for rolling a random seed once if it was not set. Generator
+ * instances can be shared by multiple threads, as long as their settings are not modified. Row bands are processed
+ * with the grid's {@link Grid#getExecutor() executor} by {@link #generateRows(Grid, int, int)}; since each cell depends
+ * only on its position and the generator's settings, results do not depend on the executor. Extensions that override
+ * the deprecated consumer methods are still generated cell by cell - see {@link #isUsingLegacyHooks()}.
+ *
  * @author MJ */
-public class NoiseGenerator extends AbstractGenerator implements CellConsumer {
+public class NoiseGenerator extends AbstractGenerator implements CellConsumer, RowConsumer {
     private static NoiseGenerator INSTANCE;
 
     private NoiseAlgorithmProvider algorithmProvider = new DefaultNoiseAlgorithmProvider();
     private int radius;
     private float modifier;
     private int seed;
+    /** Cached result of {@link #isUsingLegacyHooks()}. Null until the first check. */
+    private Boolean usingLegacyHooks;
+    /** Cached result of {@link #isConsumingCells()}. Null until the first check. */
+    private Boolean consumingCells;
 
     /** Not thread-safe. Uses static generator instance. Since this method provides only basic settings, creating or
      * obtaining an instance of the generator is generally preferred.
@@ -45,8 +61,9 @@ public class NoiseGenerator extends AbstractGenerator implements CellConsumer {
         generator.generate(grid);
     }
 
-    /** @return static instance of the generator. Not thread-safe. */
-    public static NoiseGenerator getInstance() {
+    /** @return static instance of the generator. Can be used by multiple threads, as long as its settings are not
+     *         modified during generation. Note that the static generate methods modify its settings. */
+    public static synchronized NoiseGenerator getInstance() {
         if (INSTANCE == null) {
             INSTANCE = new NoiseGenerator();
         }
@@ -87,7 +104,8 @@ public class NoiseGenerator extends AbstractGenerator implements CellConsumer {
         this.modifier = modifier;
     }
 
-    /** @param algorithmProvider handles interpolation and noise math.
+    /** @param algorithmProvider handles interpolation and noise math. To use a different {@link Calculator} in a
+     *            single generator, pass a {@link DefaultNoiseAlgorithmProvider} created with the calculator.
      * @see DefaultNoiseAlgorithmProvider */
     public void setAlgorithmProvider(final NoiseAlgorithmProvider algorithmProvider) {
         this.algorithmProvider = algorithmProvider;
@@ -95,20 +113,207 @@ public class NoiseGenerator extends AbstractGenerator implements CellConsumer {
 
     @Override
     public void generate(final Grid grid) {
+        rollSeed();
+        if (isUsingLegacyHooks()) {
+            if (isConsumingCells()) {
+                grid.forEach(this);
+            } else {
+                grid.forEachRow(this);
+            }
+            return;
+        }
+        grid.execute(new RowTask() {
+            @Override
+            public void process(final int fromY, final int toY) {
+                generateRows(grid, fromY, toY);
+            }
+        });
+    }
+
+    /** @return true if the deprecated hooks - {@link #consume(Grid, int, int, float)},
+     *         {@link #consume(Grid, int, int, int, int)} and {@link #generateValue(int, int, float)} - should be
+     *         invoked by {@link #generate(Grid)}. By default, returns true if the class of the generator overrides any
+     *         of the deprecated hooks, so that they keep working; the result is cached. In this case, the cells are
+     *         generated sequentially with {@link Grid#forEach(CellConsumer)} if the cell consumer method is
+     *         overridden, or with {@link Grid#forEachRow(RowConsumer)} otherwise - without the faster
+     *         {@link #generateRows(Grid, int, int)}. On GWT, where methods cannot be inspected, returns true for all
+     *         extensions of this class: extensions that do not override the deprecated hooks should return false. */
+    protected boolean isUsingLegacyHooks() {
+        Boolean usingLegacyHooks = this.usingLegacyHooks;
+        if (usingLegacyHooks == null) {
+            final Class<?> type = getClass();
+            final Class<?> base = NoiseGenerator.class;
+            usingLegacyHooks = Boolean.valueOf(isConsumingCells()
+                    || Overrides.isOverridden(type, base, "consume", Grid.class, int.class, int.class, int.class,
+                            int.class)
+                    || Overrides.isOverridden(type, base, "generateValue", int.class, int.class, float.class));
+            this.usingLegacyHooks = usingLegacyHooks;
+        }
+        return usingLegacyHooks.booleanValue();
+    }
+
+    /** @return true if {@link #consume(Grid, int, int, float)} is overridden. The result is cached. */
+    private boolean isConsumingCells() {
+        Boolean consumingCells = this.consumingCells;
+        if (consumingCells == null) {
+            consumingCells = Boolean.valueOf(Overrides.isOverridden(getClass(), NoiseGenerator.class, "consume",
+                    Grid.class, int.class, int.class, float.class));
+            this.consumingCells = consumingCells;
+        }
+        return consumingCells.booleanValue();
+    }
+
+    /** Rolls a random seed if it was not set. Synchronized, so that concurrent generations using the same instance roll
+     * a single seed. */
+    private synchronized void rollSeed() {
         if (seed == 0) {
-            setSeed(Generators.rollSeed());
+            seed = Generators.rollSeed();
         }
-        grid.forEach(this);
     }
 
+    /** Generates the value of a single cell. Invoked by {@link #generate(Grid)} only if {@link #isUsingLegacyHooks()}
+     * returns true - otherwise whole rows are processed with {@link #generateRows(Grid, int, int)}.
+     *
+     * @param grid will contain the generated value.
+     * @param x column index of the cell.
+     * @param y row index of the cell.
+     * @param value current value of the cell.
+     * @return {@link #CONTINUE}.
+     * @deprecated override {@link #generateRows(Grid, int, int)} to customize generation. Can still be used to
+     *             generate noise with {@link Grid#forEach(CellConsumer)}. */
     @Override
+    @Deprecated
     public boolean consume(final Grid grid, final int x, final int y, final float value) {
+        final int regionY = y / radius;
+        modifyCell(grid, x, y, generateValue(x, regionY, y / (float) radius - regionY));
+        return CONTINUE;
+    }
+
+    /** Generates values of a span of a single row. Invoked by {@link #generate(Grid)} only if
+     * {@link #isUsingLegacyHooks()} returns true and {@link #consume(Grid, int, int, float)} is not overridden -
+     * otherwise whole row bands are processed with {@link #generateRows(Grid, int, int)}.
+     *
+     * @param grid will contain the generated values.
+     * @param y row index.
+     * @param fromX first column index.
+     * @param toX last column index (excluded).
+     * @param offset index of the first cell in grid's array or -1 if the grid is not backed by an array.
+     * @return {@link CellConsumer#CONTINUE}.
+     * @deprecated override {@link #generateRows(Grid, int, int)} to customize generation. Can still be used to
+     *             generate noise with {@link Grid#forEachRow(RowConsumer)}. */
+    @Override
+    @Deprecated
+    public boolean consume(final Grid grid, final int y, final int fromX, final int toX, final int offset) {
+        // Row values are computed once per row:
+        final int regionY = y / radius;
+        final float factorialY = y / (float) radius - regionY;
+        if (offset < 0) { // Not backed by an array.
+            for (int x = fromX; x < toX; x++) {
+                modifyCell(grid, x, y, generateValue(x, regionY, factorialY));
+            }
+        } else {
+            final float[] array = grid.getArray();
+            for (int x = fromX, index = offset; x < toX; x++, index++) {
+                modifyCell(array, index, generateValue(x, regionY, factorialY));
+            }
+        }
+        return CONTINUE;
+    }
+
+    /** Generates values of a band of rows. All cells of a region share the same four corner values, so smoothed noise
+     * is computed once per region corner rather than four times per cell: corners of the current row of regions are
+     * cached and the bottom corners are reused as the top corners of the next row of regions. Similarly, the top and
+     * bottom edges of the regions are interpolated once per row of regions, leaving a single interpolation per cell.
+     * Produces exactly the same values as {@link #generateValue(int, int, float)}. This is the only method invoked by
+     * {@link #generate(Grid)} for each row band, unless {@link #isUsingLegacyHooks()} returns true - override it to
+     * customize the generation.
+     *
+     * @param grid will contain generated values.
+     * @param fromY index of the first row.
+     * @param toY index of the last row (excluded). */
+    protected void generateRows(final Grid grid, final int fromY, final int toY) {
+        final int width = grid.getWidth();
+        final float[] array = grid instanceof VirtualGrid ? null : grid.getArray();
+        // Region corners needed by the row: the last region is followed by one more corner.
+        final int corners = (width - 1) / radius + 2;
+        float[] topCorners = new float[corners];
+        float[] bottomCorners = new float[corners];
+        float[] topEdge = new float[width];
+        float[] bottomEdge = new float[width];
+        int currentRegionY = fromY / radius;
+        fillCorners(topCorners, currentRegionY);
+        fillCorners(bottomCorners, currentRegionY + 1);
+        interpolateEdge(topCorners, topEdge);
+        interpolateEdge(bottomCorners, bottomEdge);
+        for (int y = fromY; y < toY; y++) {
+            final int regionY = y / radius;
+            if (regionY != currentRegionY) { // Next row of regions: bottom corners and edge become the top ones.
+                final float[] swappedCorners = topCorners;
+                topCorners = bottomCorners;
+                bottomCorners = swappedCorners;
+                final float[] swappedEdge = topEdge;
+                topEdge = bottomEdge;
+                bottomEdge = swappedEdge;
+                fillCorners(bottomCorners, regionY + 1);
+                interpolateEdge(bottomCorners, bottomEdge);
+                currentRegionY = regionY;
+            }
+            final float factorialY = y / (float) radius - regionY;
+            if (array == null) {
+                for (int x = 0; x < width; x++) {
+                    modifyCell(grid, x, y, toValue(topEdge[x], bottomEdge[x], factorialY));
+                }
+            } else {
+                for (int x = 0, index = grid.toIndex(0, y); x < width; x++, index++) {
+                    modifyCell(array, index, toValue(topEdge[x], bottomEdge[x], factorialY));
+                }
+            }
+        }
+    }
+
+    /** @param corners will contain smoothed noise of the region corners in the selected row.
+     * @param regionY row index of the corners. */
+    private void fillCorners(final float[] corners, final int regionY) {
+        for (int regionX = 0, length = corners.length; regionX < length; regionX++) {
+            corners[regionX] = algorithmProvider.smoothNoise(this, regionX, regionY);
+        }
+    }
+
+    /** @param corners smoothed noise of the region corners in a single row.
+     * @param edge will contain noise of the region edges interpolated between the corners, for each column. */
+    private void interpolateEdge(final float[] corners, final float[] edge) {
+        for (int x = 0, width = edge.length; x < width; x++) {
+            final int regionX = x / radius;
+            final float factorialX = x / (float) radius - regionX;
+            edge[x] = algorithmProvider.interpolate(corners[regionX], corners[regionX + 1], factorialX);
+        }
+    }
+
+    /** @param topInterpolation interpolated noise of the top edge of the region.
+     * @param bottomInterpolation interpolated noise of the bottom edge of the region.
+     * @param factorialY distance of the cell from the start of the region on Y axis.
+     * @return generated value, modifying the current cell's value. */
+    private float toValue(final float topInterpolation, final float bottomInterpolation, final float factorialY) {
+        final float finalInterpolation = algorithmProvider.interpolate(topInterpolation, bottomInterpolation,
+                factorialY);
+        return (finalInterpolation + 1f) / 2f * modifier;
+    }
+
+    /** Computes the value of a single cell. Used only by the deprecated consumer methods; since it computes smoothed
+     * noise of all four region corners for each cell, {@link #generate(Grid)} uses the much faster
+     * {@link #generateRows(Grid, int, int)} instead, unless {@link #isUsingLegacyHooks()} returns true.
+     *
+     * @param x column index of the cell.
+     * @param regionY row index of the region containing the cell.
+     * @param factorialY distance of the cell from the start of the region on Y axis.
+     * @return generated value, modifying the current cell's value.
+     * @deprecated override {@link #generateRows(Grid, int, int)} instead. */
+    @Deprecated
+    protected float generateValue(final int x, final int regionY, final float factorialY) {
         // Region index:
         final int regionX = x / radius;
-        final int regionY = y / radius;
         // Distance from the start of the region:
         final float factorialX = x / (float) radius - regionX;
-        final float factorialY = y / (float) radius - regionY;
         // Generated noises. Top and left noises are handled (already interpolated) by the other neighbors.
         final float noiseCenter = algorithmProvider.smoothNoise(this, regionX, regionY);
         final float noiseRight = algorithmProvider.smoothNoise(this, regionX + 1, regionY);
@@ -117,11 +322,7 @@ public class NoiseGenerator extends AbstractGenerator implements CellConsumer {
         // Noise interpolations:
         final float topInterpolation = algorithmProvider.interpolate(noiseCenter, noiseRight, factorialX);
         final float bottomInterpolation = algorithmProvider.interpolate(noiseBottom, noiseBottomRight, factorialX);
-        final float finalInterpolation = algorithmProvider.interpolate(topInterpolation, bottomInterpolation,
-                factorialY);
-        // Modifying current cell value according to the generation mode:
-        modifyCell(grid, x, y, (finalInterpolation + 1f) / 2f * modifier);
-        return CONTINUE;
+        return toValue(topInterpolation, bottomInterpolation, factorialY);
     }
 
     /** Interface providing functions necessary for map generation.
@@ -157,6 +358,19 @@ public class NoiseGenerator extends AbstractGenerator implements CellConsumer {
      * @author MJ */
     public static class DefaultNoiseAlgorithmProvider implements NoiseAlgorithmProvider {
         private static final float PI = (float) Math.PI;
+        private final Calculator calculator;
+
+        /** Creates a provider that uses {@link Generators#getCalculator()} for the cos interpolation. */
+        public DefaultNoiseAlgorithmProvider() {
+            this(null);
+        }
+
+        /** @param calculator will be used for the cos interpolation of this provider - for example, a faster
+         *            {@link com.github.czyzby.noise4j.map.generator.util.LookupCalculator}. If null,
+         *            {@link Generators#getCalculator()} is used. */
+        public DefaultNoiseAlgorithmProvider(final Calculator calculator) {
+            this.calculator = calculator;
+        }
 
         // HERE BE DRAGONS. AND MAGIC NUMBERS.
         @Override
@@ -179,7 +393,8 @@ public class NoiseGenerator extends AbstractGenerator implements CellConsumer {
 
         @Override
         public float interpolate(final float start, final float end, final float factorial) {
-            final float modificator = (1f - Generators.getCalculator().cos(factorial * PI)) * 0.5f;
+            final Calculator calculator = this.calculator == null ? Generators.getCalculator() : this.calculator;
+            final float modificator = (1f - calculator.cos(factorial * PI)) * 0.5f;
             return start * (1f - modificator) + end * modificator;
         }
     }
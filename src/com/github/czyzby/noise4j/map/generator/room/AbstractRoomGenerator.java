@@ -54,10 +54,18 @@ public abstract class AbstractRoomGenerator extends AbstractGenerator {
      * @param room was just spawned. Should fill its values in the grid.
      * @param value value used to fill the room. */
     protected void carveRoom(final Grid grid, final Room room, final float value) {
+        carveRoom(grid, room, value, Generators.getRandom());
+    }
+
+    /** @param grid contains the room.
+     * @param room was just spawned. Should fill its values in the grid.
+     * @param value value used to fill the room.
+     * @param random will be used to choose the room type. */
+    protected void carveRoom(final Grid grid, final Room room, final float value, final Random random) {
         if (roomTypes.isEmpty()) { // No types specified: carving whole room:
             room.fill(grid, value);
         } else {
-            int index = Generators.randomIndex(roomTypes);
+            int index = Generators.randomIndex(random, roomTypes);
             final int originalIndex = index;
             RoomType type = roomTypes.get(index);
             while (!type.isValid(room)) {
@@ -75,13 +83,19 @@ public abstract class AbstractRoomGenerator extends AbstractGenerator {
     /** @param grid will be used to generate bounds of the room.
      * @return a new random-sized room within grid's bounds. */
     protected Room getRandomRoom(final Grid grid) {
-        final int width = randomSize();
-        final int height = randomSize(width);
+        return getRandomRoom(grid, Generators.getRandom());
+    }
+
+    /** @param grid will be used to generate bounds of the room.
+     * @param random will be used to roll the size and position of the room.
+     * @return a new random-sized room within grid's bounds. */
+    protected Room getRandomRoom(final Grid grid, final Random random) {
+        final int width = randomSize(random);
+        final int height = randomSize(width, random);
         if (width > grid.getWidth() || height > grid.getHeight()) {
             throw new IllegalStateException(
                     "maxRoomSize is higher than grid's size, which resulted in spawning a room bigger than the whole map. Set maxRoomSize to a lower value.");
         }
-        final Random random = Generators.getRandom();
         final int x = normalizePosition(random.nextInt(grid.getWidth() - width));
         final int y = normalizePosition(random.nextInt(grid.getHeight() - height));
         return new Room(x, y, width, height);
@@ -99,18 +113,41 @@ public abstract class AbstractRoomGenerator extends AbstractGenerator {
         return size;
     }
 
+    /** @param size random room size value.
+     * @param random can be used to normalize the size.
+     * @return validated and normalized room size. By default, delegates to {@link #normalizeSize(int)}. */
+    protected int normalizeSize(final int size, final Random random) {
+        return normalizeSize(size);
+    }
+
     /** @return random odd room size within {@link #minRoomSize} and {@link #maxRoomSize} range. */
     protected int randomSize() {
-        return normalizeSize(minRoomSize == maxRoomSize ? minRoomSize : Generators.randomInt(minRoomSize, maxRoomSize));
+        return randomSize(Generators.getRandom());
+    }
+
+    /** @param random will be used to roll the size.
+     * @return random odd room size within {@link #minRoomSize} and {@link #maxRoomSize} range. */
+    protected int randomSize(final Random random) {
+        return normalizeSize(
+                minRoomSize == maxRoomSize ? minRoomSize : Generators.randomInt(random, minRoomSize, maxRoomSize),
+                random);
     }
 
     /** @param bound second size variable.
      * @return random odd room size within {@link #minRoomSize} and {@link #maxRoomSize} range, respecting
      *         {@link #tolerance} */
     protected int randomSize(final int bound) {
-        final int size = Generators.randomInt(Math.max(minRoomSize, bound - tolerance),
+        return randomSize(bound, Generators.getRandom());
+    }
+
+    /** @param bound second size variable.
+     * @param random will be used to roll the size.
+     * @return random odd room size within {@link #minRoomSize} and {@link #maxRoomSize} range, respecting
+     *         {@link #tolerance} */
+    protected int randomSize(final int bound, final Random random) {
+        final int size = Generators.randomInt(random, Math.max(minRoomSize, bound - tolerance),
                 Math.min(maxRoomSize, bound + tolerance));
-        return normalizeSize(size);
+        return normalizeSize(size, random);
     }
 
     /** @return minimum room's width and height. */
@@ -1,18 +1,23 @@
 package com.github.czyzby.noise4j.map.generator.room.dungeon;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
 
 import com.github.czyzby.noise4j.array.Int2dArray;
+import com.github.czyzby.noise4j.map.BitGrid;
 import com.github.czyzby.noise4j.map.Grid;
 import com.github.czyzby.noise4j.map.generator.room.AbstractRoomGenerator;
 import com.github.czyzby.noise4j.map.generator.util.Generators;
+import com.github.czyzby.noise4j.map.generator.util.Overrides;
+import com.github.czyzby.noise4j.map.generator.util.RandomStream;
 
 /** Generates a set of rooms with a maze-like system of corridors connecting them. This particular implementation
  * requires the map and rooms to have odd sizes - if the passed map is not odd, last row and column might be filled with
@@ -21,6 +26,11 @@ import com.github.czyzby.noise4j.map.generator.util.Generators;
  * This algorithm fills the whole map. Even if the map was not empty before, {@link #generate(Grid)} method will
  * override the previous cell settings - it's better to modify already generated dungeon rather than pass non-empty grid
  * to this generator.
+ * <p>
+ * Generation does not modify the generator: rooms and regions of each generated dungeon are stored in a separate
+ * {@link Context}. Generator instances can be shared by multiple threads, as long as their settings are not modified.
+ * The only exception are extensions of this class that still rely on the deprecated hooks without a {@link Context}
+ * parameter - see {@link #isUsingLegacyHooks()}.
  *
  * @author MJ */
 /* Algorithm was based on implementation from journal.stuffwithstuff.com, translated to Java and improved (especially
@@ -59,6 +69,8 @@ import com.github.czyzby.noise4j.map.generator.util.Generators;
  * otherwise leave on the list and modify its coordinates to match the dead end neighbor. */
 public class DungeonGenerator extends AbstractRoomGenerator {
     private static DungeonGenerator INSTANCE;
+    /** Enum's values() method copies the array on each call - and directions are checked for almost every cell. */
+    private static final Direction[] DIRECTIONS = Direction.values();
 
     // Settings.
     private int roomGenerationAttempts;
@@ -68,13 +80,10 @@ public class DungeonGenerator extends AbstractRoomGenerator {
     private float windingChance = 0.15f;
     private float randomConnectorChance = 0.01f;
     private int deadEndRemovalIterations = Integer.MAX_VALUE;
-
-    // Control variables.
-    private final List<Room> rooms = new ArrayList<Room>();
-    private final List<Direction> directions = new ArrayList<Direction>();
-    private Int2dArray regions;
-    private int currentRegion;
-    private int lastRoomRegion;
+    /** Context of the generation in progress. Set only if {@link #isUsingLegacyHooks()} returns true. */
+    private Context legacyContext;
+    /** Cached result of {@link #isUsingLegacyHooks()}. Null until the first check. */
+    private Boolean usingLegacyHooks;
 
     /** Not thread-safe. Uses static generator instance. Since this method provides only basic settings, creating or
      * obtaining an instance of the generator is generally preferred.
@@ -87,8 +96,9 @@ public class DungeonGenerator extends AbstractRoomGenerator {
         generator.generate(grid);
     }
 
-    /** @return static instance of the generator. Not thread-safe. */
-    public static DungeonGenerator getInstance() {
+    /** @return static instance of the generator. Can be used by multiple threads, as long as its settings are not
+     *         modified during generation. Note that the static generate methods modify its settings. */
+    public static synchronized DungeonGenerator getInstance() {
         if (INSTANCE == null) {
             INSTANCE = new DungeonGenerator();
         }
@@ -97,34 +107,181 @@ public class DungeonGenerator extends AbstractRoomGenerator {
 
     @Override
     public void generate(final Grid grid) {
+        generate(grid, new Context());
+    }
+
+    /** @param grid will contain the generated dungeon.
+     * @param context will store rooms and regions of the dungeon during generation. After the generation, contains
+     *            the generated rooms. Cannot be used by multiple generations at once. */
+    public void generate(final Grid grid, final Context context) {
+        context.legacyHooks = isUsingLegacyHooks();
+        if (!context.legacyHooks) {
+            generateDungeon(grid, context);
+            return;
+        }
+        legacyContext = context;
+        try {
+            generateDungeon(grid, context);
+        } finally {
+            legacyContext = null;
+        }
+    }
+
+    /** @return true if the deprecated hooks without a {@link Context} parameter - like {@link #reset()},
+     *         {@link #spawnRooms(Grid, int)} or {@link #carveConnector(Grid, int, int)} - should be invoked during
+     *         generation. By default, returns true if the class of the generator overrides any of the deprecated hooks,
+     *         so that they keep working; the result is cached. In this case, the context of the generation in progress
+     *         is stored in the generator for the deprecated hooks, and the instance cannot be shared by concurrent
+     *         generations. On GWT, where methods cannot be inspected, returns true for all extensions of this class:
+     *         extensions that override only the hooks with a {@link Context} parameter should return false. */
+    protected boolean isUsingLegacyHooks() {
+        Boolean usingLegacyHooks = this.usingLegacyHooks;
+        if (usingLegacyHooks == null) {
+            final Class<?> type = getClass();
+            usingLegacyHooks = Boolean.valueOf(isOverridden(type, "reset") || isOverridden(type, "nextRegion")
+                    || isOverridden(type, "spawnRooms", Grid.class, int.class)
+                    || isOverridden(type, "overlapsAny", Room.class)
+                    || isOverridden(type, "spawnCorridors", Grid.class)
+                    || isOverridden(type, "carveMaze", Grid.class, Point.class)
+                    || isOverridden(type, "joinRegions", Grid.class)
+                    || isOverridden(type, "carveConnector", Grid.class, int.class, int.class)
+                    || isOverridden(type, "findConnectors", Grid.class)
+                    || isOverridden(type, "addConnector", Grid.class, Map.class, int.class, int.class)
+                    || isOverridden(type, "getRegion", int.class, int.class)
+                    || isOverridden(type, "removeDeadEnds", Grid.class)
+                    || isOverridden(type, "isDeadEnd", Grid.class, int.class, int.class)
+                    || isOverridden(type, "isCorridor", int.class, int.class));
+            this.usingLegacyHooks = usingLegacyHooks;
+        }
+        return usingLegacyHooks.booleanValue();
+    }
+
+    /** @param type class of the generator.
+     * @param name name of a method declared by this class.
+     * @param parameterTypes types of the method's parameters.
+     * @return true if the method is overridden by the class. */
+    private static boolean isOverridden(final Class<?> type, final String name, final Class<?>... parameterTypes) {
+        return Overrides.isOverridden(type, DungeonGenerator.class, name, parameterTypes);
+    }
+
+    /** @return context of the generation in progress.
+     * @throws IllegalStateException if invoked outside of a generation using the deprecated hooks. */
+    private Context getLegacyContext() {
+        final Context context = legacyContext;
+        if (context == null) {
+            throw new IllegalStateException("Deprecated hooks without a context can be invoked only during "
+                    + "generation, and only if isUsingLegacyHooks() returns true.");
+        }
+        return context;
+    }
+
+    /** @param grid will contain the generated dungeon.
+     * @param context stores rooms and regions of the dungeon. */
+    private void generateDungeon(final Grid grid, final Context context) {
         validateRoomSizes();
-        reset();
+        if (context.legacyHooks) {
+            reset();
+        } else {
+            reset(context);
+        }
         // Mirroring grid with a 2D int array - each non-wall mirrored cell will contain region index:
-        regions = new Int2dArray(grid.getWidth(), grid.getHeight());
+        context.regions = Generators.getGridPool().obtainInt2dArray(grid.getWidth(), grid.getHeight()).set(0);
         // Filling grid with wall tiles:
         grid.set(wallThreshold);
-        // Generating rooms:
-        spawnRooms(grid, roomGenerationAttempts == 0 ? getDefaultRoomsAmount(grid) : roomGenerationAttempts);
-        // Generating corridors:
-        spawnCorridors(grid);
-        // Joining spawned rooms and corridor regions:
-        joinRegions(grid);
-        // Removing corridors leading to nowhere:
-        removeDeadEnds(grid);
-        reset(); // Removing all unnecessary references.
-    }
-
-    /** Resets control variables. */
+        final int attempts = roomGenerationAttempts == 0 ? getDefaultRoomsAmount(grid) : roomGenerationAttempts;
+        // Generating rooms and corridors, joining their regions and removing corridors leading to nowhere:
+        if (context.legacyHooks) {
+            spawnRooms(grid, attempts);
+            spawnCorridors(grid);
+            joinRegions(grid);
+            removeDeadEnds(grid);
+        } else {
+            spawnRooms(grid, attempts, context);
+            spawnCorridors(grid, context);
+            joinRegions(grid, context);
+            removeDeadEnds(grid, context);
+        }
+        freeRegions(context); // Removing all unnecessary references.
+    }
+
+    /** Generates a dungeon and stores its wall mask in a bit grid, which uses 32 times less memory than a regular
+     * grid. The dungeon is generated on a temporary grid obtained from {@link Generators#getGridPool()}, as the
+     * algorithm needs to distinguish between rooms and corridors.
+     *
+     * @param walls will contain the generated dungeon. Walls are set to true, rooms and corridors are set to false.
+     * @return passed bit grid, for chaining. */
+    public BitGrid generate(final BitGrid walls) {
+        return generate(walls, new Context());
+    }
+
+    /** @param walls will contain the generated dungeon. Walls are set to true, rooms and corridors are set to false.
+     * @param context will store rooms and regions of the dungeon during generation. After the generation, contains
+     *            the generated rooms. Cannot be used by multiple generations at once.
+     * @return passed bit grid, for chaining.
+     * @see #generate(BitGrid) */
+    public BitGrid generate(final BitGrid walls, final Context context) {
+        final Grid grid = Generators.getGridPool().obtainGrid(walls.getWidth(), walls.getHeight());
+        try {
+            generate(grid, context);
+            walls.set(grid, wallThreshold);
+        } finally {
+            Generators.getGridPool().free(grid);
+        }
+        return walls;
+    }
+
+    /** Resets control variables.
+     *
+     * @param context state of the generation. */
+    protected void reset(final Context context) {
+        context.currentRegion = context.lastRoomRegion = -1;
+        context.rooms.clear();
+        context.directions.clear();
+        context.clearCollections();
+        freeRegions(context);
+    }
+
+    /** Resets control variables.
+     *
+     * @deprecated override {@link #reset(Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
     protected void reset() {
-        currentRegion = lastRoomRegion = -1;
-        rooms.clear();
-        directions.clear();
-        regions = null;
+        reset(getLegacyContext());
+    }
+
+    /** @param context its regions will be returned to the pool. */
+    private static void freeRegions(final Context context) {
+        context.directions.clear();
+        if (context.regions != null) {
+            Generators.getGridPool().free(context.regions);
+            context.regions = null;
+        }
+    }
+
+    /** Increases current region index.
+     *
+     * @param context state of the generation. */
+    protected void nextRegion(final Context context) {
+        context.currentRegion++;
     }
 
-    /** Increases current region index. */
+    /** Increases current region index.
+     *
+     * @deprecated override {@link #nextRegion(Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
     protected void nextRegion() {
-        currentRegion++;
+        nextRegion(getLegacyContext());
+    }
+
+    /** @param context state of the generation. Its region index will be increased. */
+    private void increaseRegion(final Context context) {
+        if (context.legacyHooks) {
+            nextRegion();
+        } else {
+            nextRegion(context);
+        }
     }
 
     /** @throws IllegalStateException if room sizes are not odd. */
@@ -141,27 +298,41 @@ public class DungeonGenerator extends AbstractRoomGenerator {
     }
 
     /** @param grid is being generated.
-     * @param attempts amount of attempts of placing rooms before the generator gives up. */
-    protected void spawnRooms(final Grid grid, final int attempts) {
+     * @param attempts amount of attempts of placing rooms before the generator gives up.
+     * @param context state of the generation. */
+    protected void spawnRooms(final Grid grid, final int attempts, final Context context) {
+        final List<Room> rooms = context.rooms;
+        final Random random = context.getRandom();
         for (int index = 0, maxRoomsAmount = getMaxRoomsAmount(); index < attempts; index++) {
-            final Room newRoom = getRandomRoom(grid);
-            if (!overlapsAny(newRoom)) {
+            final Room newRoom = getRandomRoom(grid, random);
+            final boolean overlaps = context.legacyHooks ? overlapsAny(newRoom) : overlapsAny(newRoom, context);
+            if (!overlaps) {
                 rooms.add(newRoom);
-                carveRoom(grid, newRoom, floorThreshold);
-                nextRegion();
-                newRoom.fill(regions, currentRegion); // Assigning region values to all cells.
+                carveRoom(grid, newRoom, floorThreshold, random);
+                increaseRegion(context);
+                newRoom.fill(context.regions, context.currentRegion); // Assigning region values to all cells.
             }
             if (maxRoomsAmount > 0 && rooms.size() >= maxRoomsAmount) {
                 break;
             }
         }
-        lastRoomRegion = currentRegion;
+        context.lastRoomRegion = context.currentRegion;
+    }
+
+    /** @param grid is being generated.
+     * @param attempts amount of attempts of placing rooms before the generator gives up.
+     * @deprecated override {@link #spawnRooms(Grid, int, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected void spawnRooms(final Grid grid, final int attempts) {
+        spawnRooms(grid, attempts, getLegacyContext());
     }
 
     /** @param room validated room.
+     * @param context contains the current rooms.
      * @return true if passed room overlaps with any of the current rooms. */
-    protected boolean overlapsAny(final Room room) {
-        for (final Room currentRoom : rooms) {
+    protected boolean overlapsAny(final Room room, final Context context) {
+        for (final Room currentRoom : context.rooms) {
             if (currentRoom.overlaps(room)) {
                 return true;
             }
@@ -169,17 +340,40 @@ public class DungeonGenerator extends AbstractRoomGenerator {
         return false;
     }
 
-    /** @param grid will contain mazes spawned on the non-grid cells. */
-    protected void spawnCorridors(final Grid grid) {
+    /** @param room validated room.
+     * @return true if passed room overlaps with any of the current rooms.
+     * @deprecated override {@link #overlapsAny(Room, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected boolean overlapsAny(final Room room) {
+        return overlapsAny(room, getLegacyContext());
+    }
+
+    /** @param grid will contain mazes spawned on the non-grid cells.
+     * @param context state of the generation. */
+    protected void spawnCorridors(final Grid grid, final Context context) {
         for (int x = 1, width = grid.getWidth(); x < width; x += 2) {
             for (int y = 1, height = grid.getHeight(); y < height; y += 2) {
                 if (isCarveable(grid, x, y)) {
-                    carveMaze(grid, new Point(x, y));
+                    final Point point = context.obtainPoint(x, y);
+                    if (context.legacyHooks) {
+                        carveMaze(grid, point);
+                    } else {
+                        carveMaze(grid, point, context);
+                    }
                 }
             }
         }
     }
 
+    /** @param grid will contain mazes spawned on the non-grid cells.
+     * @deprecated override {@link #spawnCorridors(Grid, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected void spawnCorridors(final Grid grid) {
+        spawnCorridors(grid, getLegacyContext());
+    }
+
     /** @param grid contains the cell.
      * @param x column index.
      * @param y row index.
@@ -189,9 +383,14 @@ public class DungeonGenerator extends AbstractRoomGenerator {
     }
 
     /** @param grid contains the point.
-     * @param point will start carving maze at this point. Stops when it reaches a dead end. */
-    protected void carveMaze(final Grid grid, final Point point) {
-        nextRegion();
+     * @param point will start carving maze at this point. Stops when it reaches a dead end.
+     * @param context state of the generation. */
+    protected void carveMaze(final Grid grid, final Point point, final Context context) {
+        increaseRegion(context);
+        final Int2dArray regions = context.regions;
+        final int currentRegion = context.currentRegion;
+        final List<Direction> directions = context.directions;
+        final Random random = context.getRandom();
         Direction lastDirection = null;
         while (true) {
             // Carving current point:
@@ -200,7 +399,7 @@ public class DungeonGenerator extends AbstractRoomGenerator {
 
             directions.clear();
             // Checking neighbors - getting possible carving directions:
-            for (final Direction direction : Direction.values()) {
+            for (final Direction direction : DIRECTIONS) {
                 if (isCarveable(point, grid, direction)) {
                     directions.add(direction);
                 }
@@ -210,11 +409,10 @@ public class DungeonGenerator extends AbstractRoomGenerator {
             }
             Direction carvingDirection;
             // Getting actual carving direction:
-            if (lastDirection != null && directions.contains(lastDirection)
-                    && Generators.randomPercent() > windingChance) {
+            if (lastDirection != null && directions.contains(lastDirection) && random.nextFloat() > windingChance) {
                 carvingDirection = lastDirection;
             } else {
-                carvingDirection = Generators.randomElement(directions);
+                carvingDirection = Generators.randomElement(random, directions);
             }
             lastDirection = carvingDirection;
             // Carving "ignored" even-indexed corridor cell:
@@ -226,6 +424,15 @@ public class DungeonGenerator extends AbstractRoomGenerator {
         }
     }
 
+    /** @param grid contains the point.
+     * @param point will start carving maze at this point. Stops when it reaches a dead end.
+     * @deprecated override {@link #carveMaze(Grid, Point, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected void carveMaze(final Grid grid, final Point point) {
+        carveMaze(grid, point, getLegacyContext());
+    }
+
     /** @param grid contains the point.
      * @param point a point representing a part of a corridor. Should set its value in the grid. */
     protected void carveCorridor(final Grid grid, final Point point) {
@@ -254,22 +461,28 @@ public class DungeonGenerator extends AbstractRoomGenerator {
                 && isWall(grid, x - 1, y - 1);
     }
 
-    /** @param grid contains unconnected room and corridor regions. */
-    protected void joinRegions(final Grid grid) { // DRAGON.
-        nextRegion();
+    /** @param grid contains unconnected room and corridor regions.
+     * @param context state of the generation. */
+    protected void joinRegions(final Grid grid, final Context context) { // DRAGON.
+        increaseRegion(context);
+        final int currentRegion = context.currentRegion;
         // Working on boxed primitives, because lawl, Java generics and collections.
-        final Map<Point, Set<Integer>> connectorsToRegions = findConnectors(grid);
-        final List<Point> connectors = new ArrayList<Point>(connectorsToRegions.keySet());
-        final Integer[] merged = new Integer[currentRegion]; // Keeps track of merged regions.
-        final Set<Integer> unjoined = new HashSet<Integer>(); // Keeps track of unconnected regions.
+        final Map<Point, Set<Integer>> connectorsToRegions = context.legacyHooks ? findConnectors(grid)
+                : findConnectors(grid, context);
+        final List<Point> connectors = context.connectors;
+        connectors.addAll(connectorsToRegions.keySet());
+        final Integer[] merged = context.obtainMerged(currentRegion); // Keeps track of merged regions.
+        final Set<Integer> unjoined = context.unjoined; // Keeps track of unconnected regions.
         for (int index = 0; index < currentRegion; index++) {
+            final Integer region = context.boxRegion(index);
             // All regions point to themselves at first:
-            merged[index] = index;
+            merged[index] = region;
             // All regions start unjoined:
-            unjoined.add(index);
+            unjoined.add(region);
         }
-        Generators.shuffle(connectors);
-        final Set<Integer> tempSet = new HashSet<Integer>();
+        final Random random = context.getRandom();
+        Generators.shuffle(random, connectors);
+        final Set<Integer> tempSet = context.tempSet;
         // Looping until all regions point to one source:
         for (final Iterator<Point> connectorIterator = connectors.iterator(); connectorIterator.hasNext()
                 && unjoined.size() > 1;) {
@@ -282,13 +495,13 @@ public class DungeonGenerator extends AbstractRoomGenerator {
                 tempSet.add(merged[region]);
             }
             if (tempSet.size() <= 1) { // All connector's regions point to the same region group...
-                if (Generators.randomPercent() < randomConnectorChance) {
+                if (random.nextFloat() < randomConnectorChance) {
                     // This connector is not actually needed, but it got lucky - carving:
-                    carveConnector(grid, connector.x, connector.y);
+                    connect(grid, connector, context);
                 }
                 continue;
             }
-            carveConnector(grid, connector.x, connector.y);
+            connect(grid, connector, context);
             regions.clear();
             regions.addAll(tempSet);
             final Iterator<Integer> regionsIterator = regions.iterator();
@@ -311,6 +524,28 @@ public class DungeonGenerator extends AbstractRoomGenerator {
                 unjoined.remove(destination);
             }
         }
+        connectors.clear();
+        unjoined.clear();
+        tempSet.clear();
+    }
+
+    /** @param grid contains unconnected room and corridor regions.
+     * @deprecated override {@link #joinRegions(Grid, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected void joinRegions(final Grid grid) {
+        joinRegions(grid, getLegacyContext());
+    }
+
+    /** @param grid contains the connector.
+     * @param connector will be carved.
+     * @param context state of the generation. */
+    private void connect(final Grid grid, final Point connector, final Context context) {
+        if (context.legacyHooks) {
+            carveConnector(grid, connector.x, connector.y);
+        } else {
+            carveConnector(grid, connector.x, connector.y, context);
+        }
     }
 
     /** Should change selected point's value. Note that connector might connect both two corridors and two rooms -
@@ -318,50 +553,114 @@ public class DungeonGenerator extends AbstractRoomGenerator {
      *
      * @param grid contains the point.
      * @param x column index.
-     * @param y row index. */
-    protected void carveConnector(final Grid grid, final int x, final int y) {
+     * @param y row index.
+     * @param context state of the generation. */
+    protected void carveConnector(final Grid grid, final int x, final int y, final Context context) {
         grid.set(x, y, corridorThreshold);
-        regions.set(x, y, lastRoomRegion + 1); // Treating connector as corridor.
+        context.regions.set(x, y, context.lastRoomRegion + 1); // Treating connector as corridor.
+    }
+
+    /** Should change selected point's value. Note that connector might connect both two corridors and two rooms -
+     * spawning a door (for example) might not be always desired; check cell neighbors first.
+     *
+     * @param grid contains the point.
+     * @param x column index.
+     * @param y row index.
+     * @deprecated override {@link #carveConnector(Grid, int, int, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected void carveConnector(final Grid grid, final int x, final int y) {
+        carveConnector(grid, x, y, getLegacyContext());
     }
 
     /** @param grid contains unconnected room and corridor regions.
+     * @param context state of the generation.
      * @return map of points that are neighbors to at least 2 different regions mapped to set of IDs of their
      *         neighbors. */
-    protected Map<Point, Set<Integer>> findConnectors(final Grid grid) {
+    protected Map<Point, Set<Integer>> findConnectors(final Grid grid, final Context context) {
+        // Not reused: iteration order of the map decides the order of shuffled connectors, and a bigger table left by
+        // a previous generation would change the dungeon generated with the same seed.
         final Map<Point, Set<Integer>> connectorsToRegions = new HashMap<Point, Set<Integer>>();
         for (int x = 1, width = grid.getWidth() - 1; x < width; x++) {
             for (int y = 1, height = grid.getHeight() - 1; y < height; y++) {
-                addConnector(grid, connectorsToRegions, x, y);
+                if (context.legacyHooks) {
+                    addConnector(grid, connectorsToRegions, x, y);
+                } else {
+                    addConnector(grid, connectorsToRegions, x, y, context);
+                }
             }
         }
         return connectorsToRegions;
     }
 
+    /** @param grid contains unconnected room and corridor regions.
+     * @return map of points that are neighbors to at least 2 different regions mapped to set of IDs of their
+     *         neighbors.
+     * @deprecated override {@link #findConnectors(Grid, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected Map<Point, Set<Integer>> findConnectors(final Grid grid) {
+        return findConnectors(grid, getLegacyContext());
+    }
+
     /** @param grid contains the regions.
      * @param connectorsToRegions map of possible connectors to the collection of regions that are their neighbors.
      * @param x column index of possible connector.
-     * @param y row index of possible connector. */
+     * @param y row index of possible connector.
+     * @param context state of the generation. */
     protected void addConnector(final Grid grid, final Map<Point, Set<Integer>> connectorsToRegions, final int x,
-            final int y) {
+            final int y, final Context context) {
         if (isWall(grid, x, y)) {
-            final Set<Integer> regions = new HashSet<Integer>(4, 1f);
-            for (final Direction direction : Direction.values()) {
-                final int region = getRegion(direction.nextX(x), direction.nextY(y));
-                if (region >= 0 && !isWall(grid, direction.nextX(x), direction.nextY(y))) {
-                    regions.add(region);
+            // Most walls are not connectors - gathering regions in an array before filling a set:
+            final int[] neighborRegions = context.neighborRegions;
+            int regionsAmount = 0;
+            for (final Direction direction : DIRECTIONS) {
+                final int region = regionOf(direction.nextX(x), direction.nextY(y), context);
+                if (region >= 0 && !isWall(grid, direction.nextX(x), direction.nextY(y))
+                        && !contains(neighborRegions, regionsAmount, region)) {
+                    neighborRegions[regionsAmount++] = region;
                 }
             }
-            if (regions.size() > 1) { // At least 2 regions.
-                connectorsToRegions.put(new Point(x, y), regions);
+            if (regionsAmount > 1) { // At least 2 regions.
+                final Set<Integer> regions = context.obtainRegionSet();
+                for (int index = 0; index < regionsAmount; index++) {
+                    regions.add(context.boxRegion(neighborRegions[index]));
+                }
+                connectorsToRegions.put(context.obtainPoint(x, y), regions);
+            }
+        }
+    }
+
+    /** @param grid contains the regions.
+     * @param connectorsToRegions map of possible connectors to the collection of regions that are their neighbors.
+     * @param x column index of possible connector.
+     * @param y row index of possible connector.
+     * @deprecated override {@link #addConnector(Grid, Map, int, int, Context)} instead. Invoked during generation
+     *             only if {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected void addConnector(final Grid grid, final Map<Point, Set<Integer>> connectorsToRegions, final int x,
+            final int y) {
+        addConnector(grid, connectorsToRegions, x, y, getLegacyContext());
+    }
+
+    /** @param array contains values.
+     * @param length amount of values in the array.
+     * @param value will be searched for.
+     * @return true if the value is among the first length elements of the array. */
+    private static boolean contains(final int[] array, final int length, final int value) {
+        for (int index = 0; index < length; index++) {
+            if (array[index] == value) {
+                return true;
             }
         }
+        return false;
     }
 
     /** @param regions all regions of a connector.
      * @param regionsIterator regions' iterator. Should have one value skipped (source).
      * @param merged contains mapping of regions to the IDs of their supergroups.
      * @return regions marked as destinations.
-     * @see #joinRegions(Grid) */
+     * @see #joinRegions(Grid, Context) */
     protected Integer[] getDestinations(final Set<Integer> regions, final Iterator<Integer> regionsIterator,
             final Integer[] merged) {
         final Integer[] destinations = new Integer[regions.size() - 1];
@@ -374,48 +673,89 @@ public class DungeonGenerator extends AbstractRoomGenerator {
 
     /** @param x column index.
      * @param y row index.
+     * @param context contains the regions.
      * @return region index of the cell. -1 if not in a region. */
-    protected int getRegion(final int x, final int y) {
-        if (regions.isIndexValid(x, y)) {
-            return regions.get(x, y);
+    protected int getRegion(final int x, final int y, final Context context) {
+        if (context.regions.isIndexValid(x, y)) {
+            return context.regions.get(x, y);
         }
         return -1;
     }
 
-    /** @param grid will have its cells with 3 or 4 wall neighbors removed. */
-    protected void removeDeadEnds(final Grid grid) {
+    /** @param x column index.
+     * @param y row index.
+     * @return region index of the cell. -1 if not in a region.
+     * @deprecated override {@link #getRegion(int, int, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected int getRegion(final int x, final int y) {
+        return getRegion(x, y, getLegacyContext());
+    }
+
+    /** @param x column index.
+     * @param y row index.
+     * @param context contains the regions.
+     * @return region index of the cell. -1 if not in a region. */
+    private int regionOf(final int x, final int y, final Context context) {
+        return context.legacyHooks ? getRegion(x, y) : getRegion(x, y, context);
+    }
+
+    /** @param grid will have its cells with 3 or 4 wall neighbors removed.
+     * @param context state of the generation. */
+    protected void removeDeadEnds(final Grid grid, final Context context) {
         if (deadEndRemovalIterations <= 0) {
             return; // The user wants us to leave all dead ends. No need to waste time searching for them.
         }
-        final List<Point> deadEnds = new LinkedList<Point>();
+        final List<Point> deadEnds = context.deadEnds;
         for (int x = 0, width = grid.getWidth(); x < width; x++) {
             for (int y = 0, height = grid.getHeight(); y < height; y++) {
-                if (isDeadEnd(grid, x, y)) {
-                    deadEnds.add(new Point(x, y));
+                if (checkDeadEnd(grid, x, y, context)) {
+                    deadEnds.add(context.obtainPoint(x, y));
                 }
             }
         }
         // Removing dead ends until there are none left or we've done enough iterations:
         for (int index = 0; index < deadEndRemovalIterations && !deadEnds.isEmpty(); index++) {
-            for (final Iterator<Point> iterator = deadEnds.iterator(); iterator.hasNext();) {
-                final Point deadEnd = iterator.next();
+            // Compacting the list in place - removing single elements from an array list would be quadratic:
+            int remaining = 0;
+            for (int deadEndIndex = 0, size = deadEnds.size(); deadEndIndex < size; deadEndIndex++) {
+                final Point deadEnd = deadEnds.get(deadEndIndex);
                 // Closing dead end:
                 grid.set(deadEnd.x, deadEnd.y, wallThreshold);
                 // Checking dead end neighbors - one (and only one) of them can be a dead end too:
-                if (!findDeadEndNeighbor(grid, deadEnd)) {
-                    // No dead end neighbors found - removing dead end from list:
-                    iterator.remove();
-                } // else { Point becomes its neighbor - will be removed on next iteration (or never). }
+                if (findDeadEndNeighbor(grid, deadEnd, context)) {
+                    // Point becomes its neighbor - will be removed on next iteration (or never):
+                    deadEnds.set(remaining++, deadEnd);
+                } // else { No dead end neighbors found - removing dead end from list. }
             }
+            truncate(deadEnds, remaining);
+        }
+        deadEnds.clear();
+    }
+
+    /** @param grid will have its cells with 3 or 4 wall neighbors removed.
+     * @deprecated override {@link #removeDeadEnds(Grid, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected void removeDeadEnds(final Grid grid) {
+        removeDeadEnds(grid, getLegacyContext());
+    }
+
+    /** @param list will have its last elements removed.
+     * @param size desired size of the list. */
+    private static void truncate(final List<?> list, final int size) {
+        for (int index = list.size() - 1; index >= size; index--) {
+            list.remove(index);
         }
     }
 
     /** @param grid contains the cell.
      * @param deadEnd a currently closed dead end that can possibly have a single dead end neighbor.
+     * @param context state of the generation.
      * @return true if dead end neighbor present. */
-    private boolean findDeadEndNeighbor(final Grid grid, final Point deadEnd) {
-        for (final Direction direction : Direction.values()) {
-            if (isDeadEnd(grid, direction.nextX(deadEnd.x), direction.nextY(deadEnd.y))) {
+    private boolean findDeadEndNeighbor(final Grid grid, final Point deadEnd, final Context context) {
+        for (final Direction direction : DIRECTIONS) {
+            if (checkDeadEnd(grid, direction.nextX(deadEnd.x), direction.nextY(deadEnd.y), context)) {
                 // Setting dead end as its neighbor:
                 deadEnd.x = direction.nextX(deadEnd.x);
                 deadEnd.y = direction.nextY(deadEnd.y);
@@ -428,13 +768,16 @@ public class DungeonGenerator extends AbstractRoomGenerator {
     /** @param grid contains the cell.
      * @param x column index.
      * @param y row index.
+     * @param context state of the generation.
      * @return true if the cell has at least 3 wall neighbors. */
-    protected boolean isDeadEnd(final Grid grid, final int x, final int y) {
-        if (grid.isIndexValid(x, y) && !isWall(grid, x, y) && isCorridor(x, y)) {
+    protected boolean isDeadEnd(final Grid grid, final int x, final int y, final Context context) {
+        final boolean corridor = grid.isIndexValid(x, y) && !isWall(grid, x, y)
+                && (context.legacyHooks ? isCorridor(x, y) : isCorridor(x, y, context));
+        if (corridor) {
             int wallNeighbors = 0;
             int nextX;
             int nextY;
-            for (final Direction direction : Direction.values()) {
+            for (final Direction direction : DIRECTIONS) {
                 nextX = direction.nextX(x);
                 nextY = direction.nextY(y);
                 if (grid.isIndexValid(nextX, nextY) && isWall(grid, nextX, nextY)) {
@@ -446,12 +789,44 @@ public class DungeonGenerator extends AbstractRoomGenerator {
         return false;
     }
 
+    /** @param grid contains the cell.
+     * @param x column index.
+     * @param y row index.
+     * @return true if the cell has at least 3 wall neighbors.
+     * @deprecated override {@link #isDeadEnd(Grid, int, int, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
+    protected boolean isDeadEnd(final Grid grid, final int x, final int y) {
+        return isDeadEnd(grid, x, y, getLegacyContext());
+    }
+
+    /** @param grid contains the cell.
+     * @param x column index.
+     * @param y row index.
+     * @param context state of the generation.
+     * @return true if the cell has at least 3 wall neighbors. */
+    private boolean checkDeadEnd(final Grid grid, final int x, final int y, final Context context) {
+        return context.legacyHooks ? isDeadEnd(grid, x, y) : isDeadEnd(grid, x, y, context);
+    }
+
     /** @param x column index.
      * @param y row index.
+     * @param context state of the generation.
      * @return true if selected cell is a corridor. Works only if the cell is not a wall. This check works if all rooms
      *         and corridors are already spawned. */
+    protected boolean isCorridor(final int x, final int y, final Context context) {
+        return regionOf(x, y, context) > context.lastRoomRegion;
+    }
+
+    /** @param x column index.
+     * @param y row index.
+     * @return true if selected cell is a corridor. Works only if the cell is not a wall. This check works if all rooms
+     *         and corridors are already spawned.
+     * @deprecated override {@link #isCorridor(int, int, Context)} instead. Invoked during generation only if
+     *             {@link #isUsingLegacyHooks()} returns true. */
+    @Deprecated
     protected boolean isCorridor(final int x, final int y) {
-        return getRegion(x, y) > lastRoomRegion;
+        return isCorridor(x, y, getLegacyContext());
     }
 
     @Override // Room position has to be odd.
@@ -463,9 +838,22 @@ public class DungeonGenerator extends AbstractRoomGenerator {
     }
 
     @Override // Room size has to be odd.
-    protected int normalizeSize(int size) {
+    protected int normalizeSize(final int size) {
+        return toOddSize(size, Generators.getRandom());
+    }
+
+    @Override
+    protected int normalizeSize(final int size, final Random random) {
+        // Unseeded generations keep using the method without the random parameter, which might be overridden:
+        return random == Generators.getRandom() ? normalizeSize(size) : toOddSize(size, random);
+    }
+
+    /** @param size random room size value.
+     * @param random used to choose whether even sizes are decremented or incremented.
+     * @return odd room size. */
+    private static int toOddSize(final int size, final Random random) {
         if (size % 2 != 1) {
-            return Generators.getRandom().nextBoolean() ? --size : ++size;
+            return random.nextBoolean() ? size - 1 : size + 1;
         }
         return size;
     }
@@ -560,6 +948,225 @@ public class DungeonGenerator extends AbstractRoomGenerator {
         this.deadEndRemovalIterations = deadEndRemovalIterations;
     }
 
+    /** Working state of a single dungeon generation: random stream, rooms, regions of cells and temporary collections.
+     * A new context is created by each {@link DungeonGenerator#generate(Grid)} call. Contexts can also be created
+     * manually and passed to {@link DungeonGenerator#generate(Grid, Context)} in order to use a seeded random stream or
+     * to access the generated rooms. Consecutive generations with the same context reuse its temporary collections,
+     * so they do not allocate them again. A single context cannot be used by multiple generations at once.
+     *
+     * @author MJ */
+    public static class Context {
+        private final RandomStream random;
+        private final List<Room> rooms = new ArrayList<Room>();
+        private final List<Direction> directions = new ArrayList<Direction>();
+        private Int2dArray regions;
+        private int currentRegion = -1;
+        private int lastRoomRegion = -1;
+        private boolean legacyHooks;
+        // Reused by each generation, so that consecutive generations do not allocate temporary collections:
+        private final List<Point> points = new ArrayList<Point>();
+        private int pointsInUse;
+        private final List<Point> connectors = new ArrayList<Point>();
+        private final Set<Integer> unjoined = new HashSet<Integer>();
+        private final Set<Integer> tempSet = new RegionSet();
+        private final List<Point> deadEnds = new ArrayList<Point>();
+        private final int[] neighborRegions = new int[DIRECTIONS.length];
+        private final List<Set<Integer>> regionSets = new ArrayList<Set<Integer>>();
+        private int regionSetsInUse;
+        private Integer[] boxedRegions = new Integer[0];
+        private Integer[] merged;
+
+        /** Creates a context that uses {@link Generators#getRandom()}. */
+        public Context() {
+            this((RandomStream) null);
+        }
+
+        /** @param seed dungeon will be generated with a {@link RandomStream} created with this seed. Generating a
+         *            dungeon with the same seed and settings always produces the same result. */
+        public Context(final long seed) {
+            this(new RandomStream(seed));
+        }
+
+        /** @param random will be used to generate the dungeon. Each generation advances the stream, so reusing the
+         *            context produces different dungeons. If null, {@link Generators#getRandom()} is used instead. */
+        public Context(final RandomStream random) {
+            this.random = random;
+        }
+
+        /** @return random instance used by the generation: the seeded stream or {@link Generators#getRandom()}. */
+        public Random getRandom() {
+            return random == null ? Generators.getRandom() : random;
+        }
+
+        /** @return direct reference to the list of rooms spawned by the last generation. */
+        public List<Room> getRooms() {
+            return rooms;
+        }
+
+        /** @return index of the last region assigned to a room. Regions with higher indexes are corridors. */
+        public int getLastRoomRegion() {
+            return lastRoomRegion;
+        }
+
+        /** @param x column index.
+         * @param y row index.
+         * @return a point reused by consecutive generations. Valid until the next generation using this context. */
+        Point obtainPoint(final int x, final int y) {
+            if (pointsInUse == points.size()) {
+                points.add(new Point(x, y));
+                return points.get(pointsInUse++);
+            }
+            final Point point = points.get(pointsInUse++);
+            point.x = x;
+            point.y = y;
+            return point;
+        }
+
+        /** @return an empty set of regions reused by consecutive generations. */
+        Set<Integer> obtainRegionSet() {
+            if (regionSetsInUse == regionSets.size()) {
+                regionSets.add(new RegionSet());
+                return regionSets.get(regionSetsInUse++);
+            }
+            final Set<Integer> regions = regionSets.get(regionSetsInUse++);
+            regions.clear();
+            return regions;
+        }
+
+        /** @param region index of a region.
+         * @return boxed index, cached by the context. Indexes above 127 are not cached by {@link Integer#valueOf(int)}. */
+        Integer boxRegion(final int region) {
+            if (region >= boxedRegions.length) {
+                final Integer[] boxed = new Integer[Math.max(region + 1, boxedRegions.length * 2)];
+                System.arraycopy(boxedRegions, 0, boxed, 0, boxedRegions.length);
+                boxedRegions = boxed;
+            }
+            Integer boxed = boxedRegions[region];
+            if (boxed == null) {
+                boxed = boxedRegions[region] = Integer.valueOf(region);
+            }
+            return boxed;
+        }
+
+        /** @param length amount of regions.
+         * @return array of merged regions with at least the chosen length. */
+        Integer[] obtainMerged(final int length) {
+            if (merged == null || merged.length < length) {
+                merged = new Integer[length];
+            }
+            return merged;
+        }
+
+        /** Clears temporary collections. Keeps the points and arrays for reuse. */
+        void clearCollections() {
+            pointsInUse = 0;
+            regionSetsInUse = 0;
+            connectors.clear();
+            unjoined.clear();
+            tempSet.clear();
+            deadEnds.clear();
+        }
+    }
+
+    /** Set of region indexes backed by an array. Connectors have at most 4 neighbor regions, so a linear search is
+     * cheap - and, unlike {@link HashSet}, adding elements does not allocate entries. Iteration order of the regions
+     * does not affect the generated dungeon: it only decides which index represents the merged regions.
+     *
+     * @author MJ */
+    private static class RegionSet extends AbstractSet<Integer> {
+        private Integer[] regions = new Integer[4];
+        private int size;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(final Object region) {
+            return indexOf(region) >= 0;
+        }
+
+        private int indexOf(final Object region) {
+            for (int index = 0; index < size; index++) {
+                if (regions[index].equals(region)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean add(final Integer region) {
+            if (region == null) {
+                throw new NullPointerException("Region cannot be null.");
+            } else if (contains(region)) {
+                return false;
+            }
+            if (size == regions.length) {
+                final Integer[] resized = new Integer[size * 2];
+                System.arraycopy(regions, 0, resized, 0, size);
+                regions = resized;
+            }
+            regions[size++] = region;
+            return true;
+        }
+
+        @Override
+        public boolean remove(final Object region) {
+            final int index = indexOf(region);
+            if (index < 0) {
+                return false;
+            }
+            removeAt(index);
+            return true;
+        }
+
+        private void removeAt(final int index) {
+            System.arraycopy(regions, index + 1, regions, index, size - index - 1);
+            regions[--size] = null;
+        }
+
+        @Override
+        public void clear() {
+            for (int index = 0; index < size; index++) {
+                regions[index] = null;
+            }
+            size = 0;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<Integer>() {
+                private int index;
+                private boolean removable;
+
+                @Override
+                public boolean hasNext() {
+                    return index < size;
+                }
+
+                @Override
+                public Integer next() {
+                    if (index >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    removable = true;
+                    return regions[index++];
+                }
+
+                @Override
+                public void remove() {
+                    if (!removable) {
+                        throw new IllegalStateException();
+                    }
+                    removable = false;
+                    removeAt(--index);
+                }
+            };
+        }
+    }
+
     /** A simple container class, storing 2 values.
      *
      * @author MJ */ // Avoids extra dependencies and classes not available on Android/GWT.
@@ -4,6 +4,8 @@ import java.math.BigInteger;
 import java.util.List;
 import java.util.Random;
 
+import com.github.czyzby.noise4j.map.GridPool;
+
 /** Utilities for map generators.
  *
  * <p>
@@ -29,6 +31,10 @@ import java.util.Random;
  *
  * </blockquote>
  *
+ * <p>
+ * Outside of LibGDX, {@link LookupCalculator} provides table-based sin and cos functions with a documented maximum
+ * error: {@code Generators.setCalculator(new LookupCalculator())}.
+ *
  * @author MJ */
 public class Generators {
     /** Length of generated random seeds with {@link #rollSeed()}. Depending on the algorithm, this value might vary -
@@ -37,12 +43,14 @@ public class Generators {
 
     private static Random RANDOM;
     private static Calculator CALCULATOR;
+    private static GridPool GRID_POOL = new GridPool();
 
     private Generators() {
     }
 
-    /** @return {@link Random} instance shared by the generators. Not thread-safe, unless modified with
-     *         {@link #setRandom(Random)}. */
+    /** @return {@link Random} instance shared by the generators, unless they use their own seeded
+     *         {@link RandomStream}. Default {@link Random} implementation is thread-safe, but contended by concurrent
+     *         generations - and since their random values depend on thread scheduling, they cannot be reproduced. */
     public static Random getRandom() {
         if (RANDOM == null) {
             RANDOM = new Random();
@@ -80,6 +88,20 @@ public class Generators {
         CALCULATOR = calculator;
     }
 
+    /** @return {@link GridPool} shared by the generators, storing their temporary grids and arrays. Thread-safe. */
+    public static GridPool getGridPool() {
+        return GRID_POOL;
+    }
+
+    /** @param gridPool will be used by the generators to obtain temporary grids and arrays. Pass a pool with 0 retained
+     *            instances to disable pooling. Cannot be null. */
+    public static void setGridPool(final GridPool gridPool) {
+        if (gridPool == null) {
+            throw new IllegalArgumentException("Grid pool cannot be null.");
+        }
+        GRID_POOL = gridPool;
+    }
+
     /** @return a random probable prime with {@link #DEFAULT_SEED_BIT_LENGTH} bits.
      * @see BigInteger#probablePrime(int, Random) */
     public static int rollSeed() {
@@ -97,20 +119,43 @@ public class Generators {
      * @param max maximum possible random value.
      * @return random value in the specified range. */
     public static int randomInt(final int min, final int max) {
-        return min + getRandom().nextInt(max - min + 1);
+        return randomInt(getRandom(), min, max);
+    }
+
+    /** @param random will be used to roll the value.
+     * @param min minimum possible random value.
+     * @param max maximum possible random value.
+     * @return random value in the specified range. */
+    public static int randomInt(final Random random, final int min, final int max) {
+        return min + random.nextInt(max - min + 1);
     }
 
     /** @param list a list of elements. Cannot be null or empty.
      * @return random list element.
      * @param <Type> type of stored elements. */
     public static <Type> Type randomElement(final List<Type> list) {
-        return list.get(randomIndex(list));
+        return randomElement(getRandom(), list);
+    }
+
+    /** @param random will be used to choose the element.
+     * @param list a list of elements. Cannot be null or empty.
+     * @return random list element.
+     * @param <Type> type of stored elements. */
+    public static <Type> Type randomElement(final Random random, final List<Type> list) {
+        return list.get(randomIndex(random, list));
     }
 
     /** @param list a list of elements. Cannot be null or empty.
      * @return random index of an element stored in the list. */
     public static int randomIndex(final List<?> list) {
-        return getRandom().nextInt(list.size());
+        return randomIndex(getRandom(), list);
+    }
+
+    /** @param random will be used to choose the index.
+     * @param list a list of elements. Cannot be null or empty.
+     * @return random index of an element stored in the list. */
+    public static int randomIndex(final Random random, final List<?> list) {
+        return random.nextInt(list.size());
     }
 
     /** @return a random float in range of 0f (inclusive) to 1f (exclusive). */
@@ -125,7 +170,17 @@ public class Generators {
      * @return passed list, for chaining.
      * @param <Type> type of elements stored in the list. */
     public static <Type> List<Type> shuffle(final List<Type> list) {
-        final Random random = getRandom();
+        return shuffle(getRandom(), list);
+    }
+
+    /** GWT-compatible collection shuffling method. Use only for lists with quick random access; use
+     * {@link java.util.Collections#shuffle(List, Random)} if not targeting GWT.
+     *
+     * @param random will be used to shuffle the elements.
+     * @param list its elements will be shuffled.
+     * @return passed list, for chaining.
+     * @param <Type> type of elements stored in the list. */
+    public static <Type> List<Type> shuffle(final Random random, final List<Type> list) {
         int swap;
         for (int i = list.size(); i > 1; i--) {
             swap = random.nextInt(i);
@@ -0,0 +1,35 @@
+package com.github.czyzby.noise4j.map.generator.util;
+
+/** Detects methods overridden by extensions of the generators. Allows the generators to invoke their deprecated hooks
+ * only if an extension actually relies on them.
+ *
+ * <p>
+ * Uses reflection, which is not supported on GWT: GWT applications use an emulated version of this class that treats
+ * every method of an extension as overridden.
+ *
+ * @author MJ */
+public class Overrides {
+    private Overrides() {
+    }
+
+    /** @param type class of an object. Has to be equal to or extend the base class.
+     * @param base class declaring the method.
+     * @param name name of the method.
+     * @param parameterTypes types of the method's parameters.
+     * @return true if the method is declared by the type or any of its superclasses that extends the base class. If
+     *         the classes cannot be inspected, the method is assumed to be overridden. */
+    public static boolean isOverridden(final Class<?> type, final Class<?> base, final String name,
+            final Class<?>... parameterTypes) {
+        for (Class<?> current = type; current != null && current != base; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (final NoSuchMethodException exception) {
+                // Not declared by this class - checking its superclass.
+            } catch (final SecurityException exception) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.czyzby.noise4j.map.generator.util;
+
+import java.util.Random;
+
+/** A seeded, splittable stream of random values, based on the SplitMix64 algorithm - the same one that is used by
+ * {@code java.util.SplittableRandom}, which is not available on GWT and Java 6. Extends {@link Random}, so it can be
+ * passed to any method that consumes a random instance, but unlike {@link Random} it does not update an atomic seed on
+ * each call: it is faster, but not thread-safe. Instead of sharing a single stream between threads, each thread, row
+ * stripe or tile should use its own stream obtained with {@link #split(long)}.
+ *
+ * <p>
+ * Streams created with the same seed always produce the same values. Since {@link #split(long)} depends only on the
+ * state of this stream and the passed index, work divided into indexed parts - for example, rows of a grid - can be
+ * processed in any order and by any amount of threads, always producing exactly the same results.
+ *
+ * @author MJ */
+public class RandomStream extends Random {
+    private static final long serialVersionUID = 1L;
+    /** Odd constant added to the state after each value: 2^64 divided by the golden ratio. */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    /** Odd constant used to derive the seeds of split streams, so that they do not match values of this stream. */
+    private static final long SPLIT_GAMMA = 0xD1B54A32D192ED03L;
+
+    private long state;
+
+    /** @param seed initial state of the stream. Streams with the same seed produce the same values. */
+    public RandomStream(final long seed) {
+        super(seed); // Invokes setSeed.
+    }
+
+    /** @param seed will replace the current state of the stream. */
+    @Override
+    public void setSeed(final long seed) {
+        state = seed;
+    }
+
+    @Override
+    protected int next(final int bits) {
+        return (int) (nextLong() >>> 64 - bits);
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /** @return a new independent stream. Advances this stream by a single value, so each call returns a different
+     *         stream. */
+    public RandomStream split() {
+        return new RandomStream(mix(nextLong() ^ SPLIT_GAMMA));
+    }
+
+    /** @param index index of a part of the work - for example, a row or a tile - that will use the returned stream.
+     * @return a new independent stream. Does not advance this stream: as long as this stream is not used, calls with
+     *         the same index return streams producing the same values, regardless of the order of calls and calling
+     *         threads. Note that concurrent calls are safe only if this stream is not used at the same time. */
+    public RandomStream split(final long index) {
+        return new RandomStream(mix(state ^ mix((index + 1L) * SPLIT_GAMMA)));
+    }
+
+    /** @param value will be mixed.
+     * @return value with well-distributed bits. Bijective function, so different values are always mixed into
+     *         different results. */
+    private static long mix(long value) {
+        value = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ value >>> 27) * 0x94D049BB133111EBL;
+        return value ^ value >>> 31;
+    }
+}
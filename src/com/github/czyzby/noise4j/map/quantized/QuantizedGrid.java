@@ -0,0 +1,95 @@
+package com.github.czyzby.noise4j.map.quantized;
+
+import com.github.czyzby.noise4j.map.Grid;
+import com.github.czyzby.noise4j.map.VirtualGrid;
+
+/** Base for grids storing their values with reduced precision. Values are linearly mapped onto a fixed amount of
+ * levels between configurable minimum and maximum: {@link #getMin()} is stored as 0 and {@link #getMax()} as
+ * {@link #getMaxLevel()}. Both bounds are always represented exactly. Values outside of the range are clamped; NaN is
+ * stored as the minimum.
+ *
+ * <p>
+ * Since setting a value rounds it to the nearest level, {@link #set(int, int, float)} returns the actually stored value
+ * rather than the passed one. Keep in mind that incremental operations (like adding a small value to a cell multiple
+ * times) might be affected by the rounding.
+ *
+ * @author MJ
+ * @see ByteGrid
+ * @see ShortGrid */
+public abstract class QuantizedGrid extends VirtualGrid {
+    private final float min;
+    private final float max;
+    private final int maxLevel;
+    private final float step;
+    private final float inverseStep;
+
+    /** @param width amount of columns.
+     * @param height amount of rows.
+     * @param min lowest value that can be stored in the grid.
+     * @param max highest value that can be stored in the grid.
+     * @param maxLevel amount of levels minus one. */
+    public QuantizedGrid(final int width, final int height, final float min, final float max, final int maxLevel) {
+        super(width, height);
+        if (!(max > min) || Float.isInfinite(max - min)) {
+            throw new IllegalArgumentException("Invalid value range: [" + min + ", " + max + "].");
+        } else if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many cells: " + width + "x" + height);
+        }
+        this.min = min;
+        this.max = max;
+        this.maxLevel = maxLevel;
+        step = (max - min) / maxLevel;
+        inverseStep = maxLevel / (max - min);
+    }
+
+    /** @return lowest value that can be stored in the grid. */
+    public float getMin() {
+        return min;
+    }
+
+    /** @return highest value that can be stored in the grid. */
+    public float getMax() {
+        return max;
+    }
+
+    /** @return level representing {@link #getMax()}. */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /** @return difference between two consecutive levels. Maximum rounding error is half of this value. */
+    public float getPrecision() {
+        return step;
+    }
+
+    /** @param value will be converted.
+     * @return the nearest level representing the value, in range from 0 to {@link #getMaxLevel()}. */
+    public int encode(final float value) {
+        if (value > min) {
+            if (value < max) {
+                return (int) ((value - min) * inverseStep + 0.5f);
+            }
+            return maxLevel;
+        }
+        return 0; // Also handles NaN.
+    }
+
+    /** @param level in range from 0 to {@link #getMaxLevel()}.
+     * @return value represented by the level. */
+    public float decode(final int level) {
+        return level == maxLevel ? max : min + level * step;
+    }
+
+    /** @param grid another grid.
+     * @return true if the grid stores values with the same range and amount of levels. */
+    protected boolean hasSameRange(final QuantizedGrid grid) {
+        return grid.maxLevel == maxLevel && Float.compare(grid.min, min) == 0 && Float.compare(grid.max, max) == 0;
+    }
+
+    /** @param grid will use the same executor as this grid.
+     * @return passed grid. */
+    protected <T extends Grid> T copyExecutor(final T grid) {
+        grid.setExecutor(getExecutor());
+        return grid;
+    }
+}